@@ -29,24 +29,74 @@ public class Constants {
     public static final String CONFIG_RESTRICTED_CLAIMS_DESCRIPTION =
             "Claims which the values are restricted to be used as passwords.";
 
-    // SQL Queries related to the custom password policy handler component.
+    // Constants defining the configuration details for the breached password restriction process.
+    public static final String CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION =
+            "customPasswordPolicyHandler.enableBreachedPasswordRestriction";
+    public static final String CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION_DISPLAYED_NAME =
+            "Enable Breached Password Restriction";
+    public static final String CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION_DESCRIPTION =
+            "Enable to restrict the use of passwords which have appeared in data breaches.";
+    public static final boolean CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION_DEFAULT_VALUE = false;
+
+    // SQL Queries related to the custom password policy handler component. The DDL statements are built for the
+    // dialect of the database from the table names and the column definitions.
     public static final String TABLE_NAME = "IDN_COMMON_PASSWORD_STORE";
-    public static final String CREATE_COMMON_PASSWORD_STORE =
-            "CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" +
-                    "PASSWORD VARCHAR(255) NOT NULL," +
-                    "PRIMARY KEY (PASSWORD));";
-    public static final String INSERT_VALUES_TO_COMMON_PASSWORD_STORE =
-            "REPLACE INTO " + TABLE_NAME + " (PASSWORD) VALUES (?);";
+    public static final String COMMON_PASSWORD_STORE_COLUMNS =
+            "PASSWORD VARCHAR(255) NOT NULL," +
+                    "PRIMARY KEY (PASSWORD)";
     public static final String SELECT_COMMON_PASSWORDS_LIKE =
             "SELECT PASSWORD FROM " + TABLE_NAME + " WHERE PASSWORD LIKE ?";
-    public static final String DROP_COMMON_PASSWORD_STORE =
-            "DROP TABLE IF EXISTS " + TABLE_NAME + ";";
+    public static final String SELECT_ALL_COMMON_PASSWORDS =
+            "SELECT PASSWORD FROM " + TABLE_NAME;
+    public static final String COUNT_COMMON_PASSWORDS =
+            "SELECT COUNT(*) FROM " + TABLE_NAME;
+    public static final String DELETE_COMMON_PASSWORD =
+            "DELETE FROM " + TABLE_NAME + " WHERE PASSWORD = ?";
+    public static final String DELETE_ALL_COMMON_PASSWORDS =
+            "DELETE FROM " + TABLE_NAME;
+
+    // SQL Queries related to the n-gram lookup mode of the common password store.
+    public static final String NGRAM_TABLE_NAME = "IDN_COMMON_PASSWORD_NGRAM";
+    public static final int NGRAM_LENGTH = 3;
+    public static final String COMMON_PASSWORD_NGRAM_STORE_COLUMNS =
+            "NGRAM VARCHAR(" + NGRAM_LENGTH + ") NOT NULL," +
+                    "PASSWORD VARCHAR(255) NOT NULL," +
+                    "PRIMARY KEY (NGRAM, PASSWORD)";
+    // The placeholder is replaced with the bind parameters of the n-grams of the credential.
+    public static final String SELECT_COMMON_PASSWORDS_BY_NGRAMS =
+            "SELECT PASSWORD FROM " + NGRAM_TABLE_NAME + " WHERE NGRAM IN (%s) GROUP BY PASSWORD " +
+                    "HAVING COUNT(*) = ?";
+    public static final String DELETE_COMMON_PASSWORD_NGRAMS =
+            "DELETE FROM " + NGRAM_TABLE_NAME + " WHERE PASSWORD = ?";
+    public static final String DELETE_ALL_COMMON_PASSWORD_NGRAMS =
+            "DELETE FROM " + NGRAM_TABLE_NAME;
+
+    // SQL Queries related to the resumable loading of the common password store.
+    public static final String LOAD_STATE_TABLE_NAME = "IDN_COMMON_PASSWORD_LOAD_STATE";
+    public static final String COMMON_PASSWORD_LOAD_STATE_COLUMNS =
+            "SOURCE_NAME VARCHAR(255) NOT NULL," +
+                    "FINGERPRINT VARCHAR(64) NOT NULL," +
+                    "LOADED_LINES INTEGER NOT NULL," +
+                    "COMPLETED CHAR(1) NOT NULL," +
+                    "PRIMARY KEY (SOURCE_NAME)";
+    public static final String SELECT_LOAD_STATE =
+            "SELECT FINGERPRINT, LOADED_LINES, COMPLETED FROM " + LOAD_STATE_TABLE_NAME + " WHERE SOURCE_NAME = ?";
+    public static final String UPDATE_LOAD_STATE =
+            "UPDATE " + LOAD_STATE_TABLE_NAME + " SET FINGERPRINT = ?, LOADED_LINES = ?, COMPLETED = ? " +
+                    "WHERE SOURCE_NAME = ?";
+    public static final String INSERT_LOAD_STATE =
+            "INSERT INTO " + LOAD_STATE_TABLE_NAME + " (FINGERPRINT, LOADED_LINES, COMPLETED, SOURCE_NAME) " +
+                    "VALUES (?, ?, ?, ?)";
 
     // Common passwords text file location related constants.
     public static final String PASSWORD_FILE_NAME = "commonpasswords.txt";
     public static final String PASSWORD_FILE_DIR = CarbonUtils.getCarbonHome()
             + "/repository/deployment/server/commonpasswords/";
     public static final String PASSWORD_FILE_PATH = PASSWORD_FILE_DIR + PASSWORD_FILE_NAME;
+    public static final String TENANT_PASSWORD_FILE_DIR = PASSWORD_FILE_DIR + "tenants/";
+    public static final String TENANT_PASSWORD_FILE_EXTENSION = ".txt";
+    public static final String BREACHED_PASSWORD_FILE_NAME = "breachedpasswords.bph";
+    public static final String BREACHED_PASSWORD_FILE_PATH = PASSWORD_FILE_DIR + BREACHED_PASSWORD_FILE_NAME;
 
     /**
      * Enum class defined for the custom password policy handler component specific error messages.
@@ -66,10 +116,19 @@ public class Constants {
         ERROR_ADDING_COMMON_PASSWORDS_TO_DB(
                 "40002", "An error occurred while adding the common password data to the DB table."
         ),
+        ERROR_READING_COMMON_PASSWORDS_FROM_DB(
+                "40002", "An error occurred while validating the password against the common password data in the DB."
+        ),
         ERROR_REMOVING_COMMON_PASSWORDS_FROM_DB(
                 "40002",
                 "An error occurred while removing the common password repository data from the database."
         ),
+        ERROR_COMMON_PASSWORDS_NOT_AVAILABLE(
+                "40002", "The common password data is not available yet. Please try again later."
+        ),
+        ERROR_READING_BREACHED_PASSWORDS_FILE(
+                "40002", "An error occurred while reading the breached password hash store."
+        ),
         ERROR_EMPTY_USER_STORE_MANAGER(
                 "40002",
                 "The user store manager is empty."
@@ -82,7 +141,18 @@ public class Constants {
                 "40002",
                 "An error occurred while retrieving the user claims."
         ),
+        ERROR_EXECUTING_PASSWORD_VALIDATORS(
+                "40002",
+                "An error occurred while executing the password validators."
+        ),
+        ERROR_RESOLVING_TENANT(
+                "40002",
+                "An error occurred while resolving the tenant of the user."
+        ),
         // Error code enforced when the password either contains a common password or a user claim.
+        ERROR_CODE_VALIDATING_PASSWORD_POLICY(
+                "40002", "The new password violates the password policies. Please use another password instead."
+        ),
         ERROR_CODE_VALIDATING_COMMON_PASSWORD_POLICY(
                 "40002",
                 "The new password is vulnerable for security issues since it is a commonly used password. " +
@@ -91,6 +161,11 @@ public class Constants {
         ERROR_CODE_VALIDATING_USER_ATTRIBUTE_PASSWORD_POLICY(
                 "40002", "The new password is vulnerable for security issues since it contains user " +
                 "attributes. Please use another password instead."
+        ),
+        ERROR_CODE_VALIDATING_BREACHED_PASSWORD_POLICY(
+                "40002",
+                "The new password is vulnerable for security issues since it has appeared in a data breach. " +
+                        "Please use another password instead."
         );
 
         // Instance variables for the error code and message.
@@ -0,0 +1,329 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.common.constant.Constants;
+import com.wso2.password.policy.handler.breached.BreachedPasswordHashStoreCompiler;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.governance.IdentityGovernanceService;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.claim.ClaimManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.spi.InitialContextFactory;
+import javax.sql.DataSource;
+
+/**
+ * Generates the data sets of the benchmarks and stubs the Identity Server services the benchmarked classes depend on.
+ */
+public final class BenchmarkUtils {
+
+    public static final int CREDENTIAL_COUNT = 1024;
+    public static final double COMMON_PASSWORD_RATIO = 0.1;
+
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final int MIN_COMMON_PASSWORD_LENGTH = 6;
+    private static final int MAX_COMMON_PASSWORD_LENGTH = 12;
+    private static final Map<String, Object> namingBindings = new ConcurrentHashMap<>();
+
+    static {
+        // The common password file directory is resolved from the carbon home when the constants are loaded.
+        if (System.getProperty("carbon.home") == null) {
+            try {
+                System.setProperty("carbon.home",
+                        Files.createTempDirectory("password-policy-benchmark").toString());
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    private BenchmarkUtils() {
+
+    }
+
+    /**
+     * Generates distinct random common passwords.
+     *
+     * @param size Number of common passwords.
+     * @param seed Seed of the random generator.
+     * @return The common passwords.
+     */
+    public static List<String> generateCommonPasswords(int size, long seed) {
+
+        Random random = new Random(seed);
+        Set<String> commonPasswords = new LinkedHashSet<>();
+        while (commonPasswords.size() < size) {
+            int length = MIN_COMMON_PASSWORD_LENGTH +
+                    random.nextInt(MAX_COMMON_PASSWORD_LENGTH - MIN_COMMON_PASSWORD_LENGTH + 1);
+            commonPasswords.add(randomString(random, length));
+        }
+        return new ArrayList<>(commonPasswords);
+    }
+
+    /**
+     * Generates normalized credentials of a fixed length. A share of the credentials contain, or are contained in, a
+     * common password, and the others are random.
+     *
+     * @param commonPasswords The common passwords.
+     * @param length          Length of the credentials.
+     * @param seed            Seed of the random generator.
+     * @return The credentials.
+     */
+    public static String[] generateCredentials(List<String> commonPasswords, int length, long seed) {
+
+        Random random = new Random(seed);
+        String[] credentials = new String[CREDENTIAL_COUNT];
+        for (int i = 0; i < credentials.length; i++) {
+            if (random.nextDouble() < COMMON_PASSWORD_RATIO) {
+                String commonPassword = commonPasswords.get(random.nextInt(commonPasswords.size()));
+                if (commonPassword.length() >= length) {
+                    credentials[i] = commonPassword.substring(0, length);
+                } else {
+                    int prefixLength = random.nextInt(length - commonPassword.length() + 1);
+                    credentials[i] = randomString(random, prefixLength) + commonPassword +
+                            randomString(random, length - commonPassword.length() - prefixLength);
+                }
+            } else {
+                credentials[i] = randomString(random, length);
+            }
+        }
+        return credentials;
+    }
+
+    /**
+     * Writes the common passwords to the common password file directory and points the handler to the file.
+     *
+     * @param commonPasswords The common passwords.
+     * @param fileName        Name of the common password file.
+     * @return Path of the common password file.
+     * @throws IOException If an error occurs while writing the file.
+     */
+    public static Path writeCommonPasswordFile(List<String> commonPasswords, String fileName) throws IOException {
+
+        Path directory = Paths.get(Constants.PASSWORD_FILE_DIR);
+        Files.createDirectories(directory);
+        Path commonPasswordFile = directory.resolve(fileName);
+        try (BufferedWriter writer = Files.newBufferedWriter(commonPasswordFile, StandardCharsets.UTF_8)) {
+            for (String commonPassword : commonPasswords) {
+                writer.write(commonPassword);
+                writer.newLine();
+            }
+        }
+        System.setProperty("commonPasswordFileName", fileName);
+        return commonPasswordFile;
+    }
+
+    /**
+     * Writes a breached password corpus of SHA-1 hashes in the format of the downloadable k-anonymity hash ranges,
+     * compiles it into a hash store in the common password file directory and points the handler to the store. The
+     * corpus consists of the hashes of the given breached passwords, padded with random hashes up to the corpus size.
+     *
+     * @param breachedPasswords The breached passwords.
+     * @param corpusSize        Number of hashes in the corpus.
+     * @param prefixBits        Number of leading hash bits the hashes are partitioned by.
+     * @param fileName          Name of the hash store file.
+     * @return Path of the hash store file.
+     * @throws IOException If an error occurs while writing the files.
+     */
+    public static Path writeBreachedPasswordFile(List<String> breachedPasswords, long corpusSize, int prefixBits,
+                                                 String fileName) throws IOException {
+
+        Path directory = Paths.get(Constants.PASSWORD_FILE_DIR);
+        Files.createDirectories(directory);
+        Path corpusFile = directory.resolve(fileName + ".txt");
+        Path hashStoreFile = directory.resolve(fileName);
+        Random random = new Random(corpusSize);
+        byte[] hash = new byte[20];
+        try (BufferedWriter writer = Files.newBufferedWriter(corpusFile, StandardCharsets.US_ASCII)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (long i = 0; i < corpusSize; i++) {
+                if (i < breachedPasswords.size()) {
+                    hash = digest.digest(breachedPasswords.get((int) i).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    random.nextBytes(hash);
+                }
+                for (byte hashByte : hash) {
+                    writer.write(Character.toUpperCase(Character.forDigit((hashByte >> 4) & 0xF, 16)));
+                    writer.write(Character.toUpperCase(Character.forDigit(hashByte & 0xF, 16)));
+                }
+                writer.write(':');
+                writer.write(Integer.toString(1 + random.nextInt(1000)));
+                writer.newLine();
+            }
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+        BreachedPasswordHashStoreCompiler.compile(corpusFile, hashStoreFile, prefixBits, false);
+        Files.delete(corpusFile);
+        System.setProperty("breachedPasswordFileName", fileName);
+        return hashStoreFile;
+    }
+
+    /**
+     * Generates the claims of a user, with the claim URI as the key.
+     *
+     * @param claimCount Number of claims.
+     * @param seed       Seed of the random generator.
+     * @return The claims of the user.
+     */
+    public static Map<String, String> generateUserClaims(int claimCount, long seed) {
+
+        Random random = new Random(seed);
+        Map<String, String> userClaims = new HashMap<>();
+        for (int i = 0; i < claimCount; i++) {
+            userClaims.put("http://wso2.org/claims/benchmark" + i, randomString(random, 8));
+        }
+        return userClaims;
+    }
+
+    /**
+     * Creates a user store manager which serves the given claims of every user.
+     *
+     * @param userClaims The claims of the users.
+     * @return The user store manager stub.
+     */
+    public static UserStoreManager stubUserStoreManager(Map<String, String> userClaims) {
+
+        String[] claimUris = userClaims.keySet().toArray(new String[0]);
+        ClaimManager claimManager = stub(ClaimManager.class, (method, args) -> {
+            if ("getAllClaimUris".equals(method.getName())) {
+                return claimUris.clone();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return stub(UserStoreManager.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getClaimManager":
+                    return claimManager;
+                case "getUserClaimValues":
+                    Map<String, String> claimValues = new HashMap<>();
+                    for (String claimUri : (String[]) args[1]) {
+                        if (userClaims.containsKey(claimUri)) {
+                            claimValues.put(claimUri, userClaims.get(claimUri));
+                        }
+                    }
+                    return claimValues;
+                case "getTenantId":
+                    return -1234;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * Creates an identity governance service which serves the given connector properties for every tenant.
+     *
+     * @param properties The connector properties as name and value pairs.
+     * @return The identity governance service stub.
+     */
+    public static IdentityGovernanceService stubIdentityGovernanceService(Map<String, String> properties) {
+
+        return stub(IdentityGovernanceService.class, (method, args) -> {
+            if ("getConfiguration".equals(method.getName())) {
+                List<Property> identityProperties = new ArrayList<>();
+                for (Map.Entry<String, String> entry : properties.entrySet()) {
+                    Property property = new Property();
+                    property.setName(entry.getKey());
+                    property.setValue(entry.getValue());
+                    identityProperties.add(property);
+                }
+                return identityProperties.toArray(new Property[0]);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * Binds a data source to a JNDI name of the initial context, which is served by a naming context stub since the
+     * benchmarks do not run in a container.
+     *
+     * @param name       The JNDI name.
+     * @param dataSource The data source.
+     */
+    public static void bindDataSource(String name, DataSource dataSource) {
+
+        System.setProperty(Context.INITIAL_CONTEXT_FACTORY, NamingContextFactory.class.getName());
+        namingBindings.put(name, dataSource);
+    }
+
+    private static String randomString(Random random, int length) {
+
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    private static <T> T stub(Class<T> type, StubHandler handler) {
+
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return type.getSimpleName() + " stub";
+                        }
+                    }
+                    return handler.invoke(method, args);
+                }));
+    }
+
+    /**
+     * Creates the naming context stubs which look up the objects bound through bindDataSource.
+     */
+    public static final class NamingContextFactory implements InitialContextFactory {
+
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+
+            return stub(Context.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "lookup":
+                        Object object = namingBindings.get(String.valueOf(args[0]));
+                        if (object == null) {
+                            throw new NameNotFoundException(String.valueOf(args[0]));
+                        }
+                        return object;
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+
+    /**
+     * Handles the invocations of a stubbed service.
+     */
+    private interface StubHandler {
+
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+}
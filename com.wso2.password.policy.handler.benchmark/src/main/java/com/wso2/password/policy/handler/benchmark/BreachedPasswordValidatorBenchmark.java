@@ -0,0 +1,59 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.validator.impl.BreachedPasswordValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the breached password validator against generated hash stores of different sizes. Half of the credentials
+ * are breached passwords.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BreachedPasswordValidatorBenchmark {
+
+    @Param({"1000000", "10000000", "100000000"})
+    private long corpusSize;
+
+    @Param({"16", "20"})
+    private int prefixBits;
+
+    private BreachedPasswordValidator validator;
+    private String[] credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, WSO2Exception {
+
+        List<String> passwords = BenchmarkUtils.generateCommonPasswords(BenchmarkUtils.CREDENTIAL_COUNT, corpusSize);
+        BenchmarkUtils.writeBreachedPasswordFile(passwords.subList(0, passwords.size() / 2), corpusSize, prefixBits,
+                "benchmark-breached-" + corpusSize + "-" + prefixBits + ".bph");
+        validator = BreachedPasswordValidator.getInstance();
+        validator.initializeData();
+        credentials = passwords.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public boolean validateCredentials(CredentialCursor cursor) {
+
+        return validator.validateCredentials(credentials[cursor.next(credentials.length)]);
+    }
+}
@@ -0,0 +1,77 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.validator.PasswordValidationContext;
+import com.wso2.password.policy.handler.validator.impl.ClaimBasedPasswordValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the claim based password validator, with the claims sent with the event and with the claims retrieved from
+ * a stubbed user store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimBasedPasswordValidatorBenchmark {
+
+    @Param({"10", "100"})
+    private int claimCount;
+
+    @Param({"3"})
+    private int restrictedClaimCount;
+
+    @Param({"8", "16", "32"})
+    private int passwordLength;
+
+    private ClaimBasedPasswordValidator validator;
+    private PasswordValidationContext eventClaimsContext;
+    private PasswordValidationContext userStoreClaimsContext;
+    private String[] credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        Map<String, String> userClaims = BenchmarkUtils.generateUserClaims(claimCount, claimCount);
+        Set<String> restrictedClaims = new LinkedHashSet<>(new ArrayList<>(userClaims.keySet())
+                .subList(0, Math.min(restrictedClaimCount, claimCount)));
+        eventClaimsContext = new PasswordValidationContext("carbon.super", "benchmark", null, userClaims,
+                restrictedClaims);
+        userStoreClaimsContext = new PasswordValidationContext("carbon.super", "benchmark",
+                BenchmarkUtils.stubUserStoreManager(userClaims), null, restrictedClaims);
+        validator = ClaimBasedPasswordValidator.getInstance();
+        credentials = BenchmarkUtils.generateCredentials(new ArrayList<>(userClaims.values()), passwordLength,
+                passwordLength);
+    }
+
+    @Benchmark
+    public boolean validateWithEventClaims(CredentialCursor cursor) throws WSO2Exception {
+
+        return validator.validateCredentials(credentials[cursor.next(credentials.length)], eventClaimsContext);
+    }
+
+    @Benchmark
+    public boolean validateWithUserStoreClaims(CredentialCursor cursor) throws WSO2Exception {
+
+        return validator.validateCredentials(credentials[cursor.next(credentials.length)], userStoreClaimsContext);
+    }
+}
@@ -0,0 +1,102 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.password.policy.handler.dictionary.AbstractCommonPasswordDictionary;
+import com.wso2.password.policy.handler.dictionary.impl.DawgCommonPasswordDictionary;
+import com.wso2.password.policy.handler.dictionary.impl.InMemoryCommonPasswordDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to load a common password text file into the heap based dictionaries with different numbers
+ * of threads, and reports the peak heap usage of each iteration, which is the sum of the peak usages of the heap
+ * memory pools during the load above the heap usage after a garbage collection before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CommonPasswordDictionaryLoadBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    private int dictionarySize;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"suffixarray", "dawg"})
+    private String dictionaryType;
+
+    private Path commonPasswordFilePath;
+    private long baselineHeapBytes;
+    private long peakHeapBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        commonPasswordFilePath = BenchmarkUtils.writeCommonPasswordFile(
+                BenchmarkUtils.generateCommonPasswords(dictionarySize, dictionarySize),
+                "benchmark-load-" + dictionarySize + ".txt");
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPeakHeapUsage() {
+
+        System.gc();
+        long usedHeapBytes = 0;
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                memoryPool.resetPeakUsage();
+                usedHeapBytes += memoryPool.getUsage().getUsed();
+            }
+        }
+        baselineHeapBytes = usedHeapBytes;
+    }
+
+    @TearDown(Level.Invocation)
+    public void recordPeakHeapUsage() {
+
+        long usedHeapBytes = 0;
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                usedHeapBytes += memoryPool.getPeakUsage().getUsed();
+            }
+        }
+        peakHeapBytes = Math.max(peakHeapBytes, usedHeapBytes - baselineHeapBytes);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportPeakHeapUsage() {
+
+        System.out.printf("Peak heap usage of the %s load: %d MB%n", dictionaryType, peakHeapBytes >> 20);
+        peakHeapBytes = 0;
+    }
+
+    @Benchmark
+    public AbstractCommonPasswordDictionary load() throws IOException {
+
+        if ("dawg".equals(dictionaryType)) {
+            return DawgCommonPasswordDictionary.load(commonPasswordFilePath, parallelism);
+        }
+        return InMemoryCommonPasswordDictionary.load(commonPasswordFilePath, parallelism);
+    }
+}
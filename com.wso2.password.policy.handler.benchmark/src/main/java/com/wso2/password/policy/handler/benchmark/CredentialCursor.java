@@ -0,0 +1,26 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Walks each benchmark thread through the generated credentials, so the threads do not contend on a shared index.
+ */
+@State(Scope.Thread)
+public class CredentialCursor {
+
+    private int index;
+
+    /**
+     * Retrieves the index of the next credential.
+     *
+     * @param credentialCount Number of credentials.
+     * @return Index of the next credential.
+     */
+    public int next(int credentialCount) {
+
+        int current = index;
+        index = current + 1 == credentialCount ? 0 : current + 1;
+        return current;
+    }
+}
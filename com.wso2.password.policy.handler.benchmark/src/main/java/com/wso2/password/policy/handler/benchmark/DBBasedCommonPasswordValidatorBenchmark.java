@@ -0,0 +1,86 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.validator.impl.DBBasedCommonPasswordValidator;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the DB-based common password validator against an embedded H2 database, with each lookup mode and with
+ * and without the in-memory pre-filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DBBasedCommonPasswordValidatorBenchmark {
+
+    private static final String DATA_SOURCE_NAME = "jdbc/CommonPasswordBenchmarkDB";
+
+    @Param({"1000", "100000", "1000000"})
+    private int dictionarySize;
+
+    @Param({"8", "16", "32"})
+    private int passwordLength;
+
+    @Param({"like", "ngram"})
+    private String lookupMode;
+
+    @Param({"true", "false"})
+    private boolean preFilter;
+
+    private DBBasedCommonPasswordValidator validator;
+    private String[] credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, WSO2Exception {
+
+        List<String> commonPasswords = BenchmarkUtils.generateCommonPasswords(dictionarySize, dictionarySize);
+        BenchmarkUtils.writeCommonPasswordFile(commonPasswords, "benchmark-" + dictionarySize + ".txt");
+        System.setProperty("commonPasswordDBLookupMode", lookupMode);
+        System.setProperty("enableDBCommonPasswordPreFilter", String.valueOf(preFilter));
+        System.setProperty("enableCustomPasswordDelete", "true");
+        // Load the common passwords in the calling thread, so the trial does not start before they are loaded.
+        System.setProperty("enableBackgroundCommonPasswordLoad", "false");
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:commonpasswords;DB_CLOSE_DELAY=-1");
+        BenchmarkUtils.bindDataSource(DATA_SOURCE_NAME, dataSource);
+        System.setProperty("commonPasswordDataSource", DATA_SOURCE_NAME);
+        validator = DBBasedCommonPasswordValidator.getInstance();
+        // Start each trial from an empty store, since the parameters change the stored data.
+        validator.destroyData();
+        validator.initializeData();
+        credentials = BenchmarkUtils.generateCredentials(commonPasswords, passwordLength, passwordLength);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws WSO2Exception {
+
+        validator.destroyData();
+    }
+
+    @Benchmark
+    public boolean validateCredentials(CredentialCursor cursor) {
+
+        return validator.validateCredentials(credentials[cursor.next(credentials.length)]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.validator.impl.FileBasedCommonPasswordValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the file-based common password validator against dictionaries of different sizes, and the linear scan of
+ * every common password as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileBasedCommonPasswordValidatorBenchmark {
+
+    private static final String LINEAR_SCAN_DICTIONARY_TYPE = "linearscan";
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int dictionarySize;
+
+    @Param({"8", "16", "32"})
+    private int passwordLength;
+
+    @Param({"suffixarray", "dawg", "linearscan"})
+    private String dictionaryType;
+
+    private FileBasedCommonPasswordValidator validator;
+    private LinearScanCommonPasswordMatcher linearScanMatcher;
+    private String[] credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, WSO2Exception {
+
+        List<String> commonPasswords = BenchmarkUtils.generateCommonPasswords(dictionarySize, dictionarySize);
+        credentials = BenchmarkUtils.generateCredentials(commonPasswords, passwordLength, passwordLength);
+        if (LINEAR_SCAN_DICTIONARY_TYPE.equals(dictionaryType)) {
+            linearScanMatcher = new LinearScanCommonPasswordMatcher(commonPasswords);
+            return;
+        }
+        BenchmarkUtils.writeCommonPasswordFile(commonPasswords, "benchmark-" + dictionarySize + ".txt");
+        System.setProperty("commonPasswordDictionaryType", dictionaryType);
+        validator = FileBasedCommonPasswordValidator.getInstance();
+        // Load the common passwords in the calling thread instead of the background.
+        validator.reloadData();
+    }
+
+    @Benchmark
+    public boolean validateCredentials(CredentialCursor cursor) {
+
+        String credential = credentials[cursor.next(credentials.length)];
+        return linearScanMatcher != null ? linearScanMatcher.validateCredentials(credential) :
+                validator.validateCredentials(credential);
+    }
+}
@@ -0,0 +1,41 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.password.policy.handler.dictionary.impl.InMemoryCommonPasswordDictionary;
+
+import java.util.List;
+
+/**
+ * Baseline of the file-based common password validator, which matches a credential by scanning every common password
+ * in either direction. The dictionaries of the validator are compared against it.
+ */
+final class LinearScanCommonPasswordMatcher {
+
+    private final String[] commonPasswords;
+
+    /**
+     * Creates a matcher of the common passwords, normalized and de-duplicated the same way as the dictionaries.
+     *
+     * @param commonPasswords The raw common passwords.
+     */
+    LinearScanCommonPasswordMatcher(List<String> commonPasswords) {
+
+        this.commonPasswords = InMemoryCommonPasswordDictionary.build(commonPasswords).getEntries()
+                .toArray(new String[0]);
+    }
+
+    /**
+     * Checks whether the credential contains, or is a part of, any of the common passwords.
+     *
+     * @param credential The normalized credential.
+     * @return True if the credential does not match any of the common passwords, false if else.
+     */
+    boolean validateCredentials(String credential) {
+
+        for (String commonPassword : commonPasswords) {
+            if (credential.contains(commonPassword) || commonPassword.contains(credential)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
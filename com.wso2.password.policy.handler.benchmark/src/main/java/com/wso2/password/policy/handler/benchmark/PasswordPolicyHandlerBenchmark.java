@@ -0,0 +1,101 @@
+package com.wso2.password.policy.handler.benchmark;
+
+import com.wso2.common.constant.Constants;
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.PasswordPolicyHandler;
+import com.wso2.password.policy.handler.internal.WSO2PasswordPolicyHandlerMgtDataHolder;
+import com.wso2.password.policy.handler.validator.PasswordValidatorChain;
+import com.wso2.password.policy.handler.validator.impl.ClaimBasedPasswordValidator;
+import com.wso2.password.policy.handler.validator.impl.FileBasedCommonPasswordValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.event.IdentityEventConstants;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.event.Event;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the whole password update event handling with the file-based common password validator and the claim
+ * based validator, against stubbed identity governance and user store services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordPolicyHandlerBenchmark {
+
+    private static final int CLAIM_COUNT = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int dictionarySize;
+
+    @Param({"8", "16", "32"})
+    private int passwordLength;
+
+    private PasswordPolicyHandler handler;
+    private Event[] events;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, WSO2Exception {
+
+        List<String> commonPasswords = BenchmarkUtils.generateCommonPasswords(dictionarySize, dictionarySize);
+        BenchmarkUtils.writeCommonPasswordFile(commonPasswords, "benchmark-" + dictionarySize + ".txt");
+        // Load the common passwords in the calling thread instead of the background.
+        FileBasedCommonPasswordValidator.getInstance().reloadData();
+        // The validators are added to the chain by the OSGi service component in the server.
+        PasswordValidatorChain.getInstance().addValidator(FileBasedCommonPasswordValidator.getInstance());
+        PasswordValidatorChain.getInstance().addValidator(ClaimBasedPasswordValidator.getInstance());
+
+        Map<String, String> userClaims = BenchmarkUtils.generateUserClaims(CLAIM_COUNT, CLAIM_COUNT);
+        Map<String, String> properties = new HashMap<>();
+        properties.put(Constants.CONFIG_ENABLE_COMMON_PASSWORD_RESTRICTION, "true");
+        properties.put(Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION, "true");
+        properties.put(Constants.CONFIG_RESTRICTED_CLAIMS, new ArrayList<>(userClaims.keySet()).subList(0, 3)
+                .toString());
+        WSO2PasswordPolicyHandlerMgtDataHolder.getInstance().setIdentityGovernanceService(
+                BenchmarkUtils.stubIdentityGovernanceService(properties));
+        handler = new PasswordPolicyHandler();
+
+        String[] credentials = BenchmarkUtils.generateCredentials(commonPasswords, passwordLength, passwordLength);
+        events = new Event[credentials.length];
+        for (int i = 0; i < credentials.length; i++) {
+            Map<String, Object> eventProperties = new HashMap<>();
+            eventProperties.put(IdentityEventConstants.EventProperty.TENANT_DOMAIN, "carbon.super");
+            eventProperties.put(IdentityEventConstants.EventProperty.USER_NAME, "benchmark");
+            eventProperties.put(IdentityEventConstants.EventProperty.CREDENTIAL, credentials[i]);
+            eventProperties.put(IdentityEventConstants.EventProperty.USER_STORE_MANAGER,
+                    BenchmarkUtils.stubUserStoreManager(userClaims));
+            events[i] = new Event(IdentityEventConstants.Event.PRE_UPDATE_CREDENTIAL, eventProperties);
+        }
+    }
+
+    @Benchmark
+    public boolean handleEvent(CredentialCursor cursor) {
+
+        try {
+            handler.handleEvent(events[cursor.next(events.length)]);
+            return true;
+        } catch (IdentityEventException e) {
+            // The credentials which violate a policy are expected to be rejected.
+            return false;
+        }
+    }
+}
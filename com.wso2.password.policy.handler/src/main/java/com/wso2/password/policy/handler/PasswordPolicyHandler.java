@@ -2,13 +2,20 @@ package com.wso2.password.policy.handler;
 
 import com.wso2.common.constant.Constants;
 import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.cache.PasswordPolicyConfigCache;
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
 import com.wso2.password.policy.handler.internal.WSO2PasswordPolicyHandlerMgtDataHolder;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyMetrics;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyStage;
+import com.wso2.password.policy.handler.util.CredentialBuffer;
 import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
-import com.wso2.password.policy.handler.validator.impl.ClaimBasedPasswordValidator;
-import com.wso2.password.policy.handler.validator.impl.DBBasedCommonPasswordValidator;
-import com.wso2.password.policy.handler.validator.impl.FileBasedCommonPasswordValidator;
+import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
+import com.wso2.password.policy.handler.validator.PasswordValidationContext;
+import com.wso2.password.policy.handler.validator.PasswordValidatorChain;
+import com.wso2.password.policy.handler.validator.PasswordValidatorExecutor;
 import org.apache.commons.lang.StringUtils;
 import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.core.bean.context.MessageContext;
 import org.wso2.carbon.identity.core.handler.InitConfig;
@@ -20,18 +27,22 @@ import org.wso2.carbon.identity.governance.IdentityGovernanceException;
 import org.wso2.carbon.identity.governance.common.IdentityConnectorConfig;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 
 /**
  * Handler which enforces the custom password policies on password update events.
  */
 public class PasswordPolicyHandler extends AbstractEventHandler implements IdentityConnectorConfig {
 
+    private static final long DEFAULT_DATA_READY_TIMEOUT = 5000;
+
     /**
      * Handles the password update event which is captured by this handler.
      *
@@ -48,40 +59,35 @@ public class PasswordPolicyHandler extends AbstractEventHandler implements Ident
         if (StringUtils.isBlank(tenantDomain)) {
             tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
         }
-        Property[] identityProperties;
+        PasswordPolicyMetrics passwordPolicyMetrics = PasswordPolicyMetrics.getInstance();
+        long startTime = passwordPolicyMetrics.startTimer();
+        boolean isAccepted = false;
         try {
-            identityProperties = WSO2PasswordPolicyHandlerMgtDataHolder.getInstance()
-                    .getIdentityGovernanceService().getConfiguration(getPropertyNames(), tenantDomain);
-        } catch (IdentityGovernanceException e) {
-            throw new IdentityEventException("An error occurred while retrieving password policy properties.", e);
+            validatePasswordPolicies(eventProperties, tenantDomain);
+            isAccepted = true;
+        } finally {
+            passwordPolicyMetrics.recordStage(PasswordPolicyStage.HANDLE_EVENT, startTime);
+            passwordPolicyMetrics.recordTenant(tenantDomain, startTime, isAccepted);
         }
+    }
 
-        boolean isCommonPasswordRestrictionEnabled =
-                Constants.CONFIG_ENABLE_COMMON_PASSWORD_RESTRICTION_DEFAULT_VALUE;
-        boolean isClaimBasedPasswordRestrictionEnabled =
-                Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION_DEFAULT_VALUE;
-        List<String> restrictedClaims = new ArrayList<>();
-        for (Property property : identityProperties) {
-            if (property.getName().equals(
-                    Constants.CONFIG_ENABLE_COMMON_PASSWORD_RESTRICTION)) {
-                String value = property.getValue();
-                isCommonPasswordRestrictionEnabled = StringUtils.isBlank(value) ? isCommonPasswordRestrictionEnabled :
-                        Boolean.parseBoolean(value);
-            }
-            if (property.getName().equals(
-                    Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION)) {
-                String value = property.getValue();
-                isClaimBasedPasswordRestrictionEnabled = StringUtils.isBlank(value) ?
-                        isClaimBasedPasswordRestrictionEnabled : Boolean.parseBoolean(value);
-            }
-            if (property.getName().equals(Constants.CONFIG_RESTRICTED_CLAIMS)) {
-                String value = property.getValue().replaceAll("[\\[\\]]", "");
-                restrictedClaims = StringUtils.isBlank(value) ?
-                        restrictedClaims : Arrays.asList(value.split(", "));
-            }
-        }
+    /**
+     * Validates the credential of a password update event against the password policies of the tenant.
+     *
+     * @param eventProperties Properties belonging to the triggered event.
+     * @param tenantDomain    The tenant domain of the user.
+     * @throws IdentityEventException If the credential violates a password policy or if there is an error while
+     *                                validating it.
+     */
+    private void validatePasswordPolicies(Map<String, Object> eventProperties, String tenantDomain)
+            throws IdentityEventException {
+
+        PasswordPolicyMetrics passwordPolicyMetrics = PasswordPolicyMetrics.getInstance();
+        long configLookupStartTime = passwordPolicyMetrics.startTimer();
+        PasswordPolicyConfig passwordPolicyConfig = getPasswordPolicyConfig(tenantDomain);
+        passwordPolicyMetrics.recordStage(PasswordPolicyStage.CONFIG_LOOKUP, configLookupStartTime);
 
-        if (isCommonPasswordRestrictionEnabled || isClaimBasedPasswordRestrictionEnabled) {
+        if (PasswordValidatorChain.getInstance().hasEnabledValidators(passwordPolicyConfig)) {
 
             String userName = eventProperties.get(IdentityEventConstants.EventProperty.USER_NAME) == null ? null :
                     (String) eventProperties.get(IdentityEventConstants.EventProperty.USER_NAME);
@@ -91,43 +97,251 @@ public class PasswordPolicyHandler extends AbstractEventHandler implements Ident
                         Constants.ErrorMessages.ERROR_CODE_USERNAME_OR_PASSWORD_NOT_FOUND, null
                 );
             }
-            String credential = rawCredential instanceof StringBuffer ? rawCredential.toString() :
-                    (String) rawCredential;
-            credential = StringUtils.deleteWhitespace(credential.toLowerCase(Locale.ROOT));
-
-            if (isCommonPasswordRestrictionEnabled) {
-                if (Boolean.parseBoolean(System.getProperty("enableDBBasedCommonPasswordValidator"))) {
-                    if (!DBBasedCommonPasswordValidator.getInstance().validateCredentials(credential)) {
+            // The credential is either a String or a StringBuffer, which is normalized without being copied.
+            CharSequence credential = (CharSequence) rawCredential;
+            validateCredential(credential, PasswordValidationContext.fromEventProperties(tenantDomain, userName,
+                    passwordPolicyConfig.getRestrictedClaims(), eventProperties), passwordPolicyConfig);
+        }
+    }
 
-                        throw PasswordPolicyHandlerUtils.handleEventException(
-                                Constants.ErrorMessages.ERROR_CODE_VALIDATING_COMMON_PASSWORD_POLICY, null
-                        );
-                    }
-                } else {
-                    if (!FileBasedCommonPasswordValidator.getInstance().validateCredentials(credential)) {
+    /**
+     * Validates a credential against the password policies of a tenant, by executing the validators enabled for the
+     * tenant in the order of the PasswordValidatorChain until one of them rejects the credential. The credential is
+     * normalized into a pooled buffer for the validators which require it, which is zeroed once they complete. When
+     * the concurrent password validation is enabled, the validators are executed concurrently instead.
+     *
+     * @param credential           The credential to be validated.
+     * @param validationContext    The data of the password update.
+     * @param passwordPolicyConfig The password policy configuration of the tenant.
+     * @throws IdentityEventException If the credential violates a password policy or if there is an error while
+     *                                validating it.
+     */
+    public void validateCredential(CharSequence credential, PasswordValidationContext validationContext,
+                                   PasswordPolicyConfig passwordPolicyConfig) throws IdentityEventException {
+
+        List<AbstractPasswordValidator> validators = PasswordValidatorChain.getInstance().getValidators();
+        if (PasswordValidatorExecutor.getInstance().isEnabled()) {
+            List<AbstractPasswordValidator> enabledValidators = new ArrayList<>(validators.size());
+            for (AbstractPasswordValidator validator : validators) {
+                if (validator.isEnabled(passwordPolicyConfig)) {
+                    enabledValidators.add(validator);
+                }
+            }
+            // A single validator is executed in the calling thread, without any hand off.
+            if (enabledValidators.size() > 1) {
+                validateCredentialConcurrently(credential, validationContext, enabledValidators);
+                return;
+            }
+        }
 
-                        throw PasswordPolicyHandlerUtils.handleEventException(
-                                Constants.ErrorMessages.ERROR_CODE_VALIDATING_COMMON_PASSWORD_POLICY, null
-                        );
+        CredentialBuffer normalizedCredential = null;
+        try {
+            for (AbstractPasswordValidator validator : validators) {
+                if (!validator.isEnabled(passwordPolicyConfig)) {
+                    continue;
+                }
+                CharSequence validatedCredential = credential;
+                if (validator.isNormalizedCredentialRequired()) {
+                    if (normalizedCredential == null) {
+                        normalizedCredential = CredentialBuffer.normalize(credential);
                     }
+                    validatedCredential = normalizedCredential;
+                }
+                if (!validateCredentials(validator, validatedCredential, validationContext)) {
+                    throw PasswordPolicyHandlerUtils.handleEventException(validator.getValidationError(), null);
                 }
             }
+        } finally {
+            if (normalizedCredential != null) {
+                normalizedCredential.close();
+            }
+        }
+    }
 
-            if (isClaimBasedPasswordRestrictionEnabled && !restrictedClaims.isEmpty()) {
-                ClaimBasedPasswordValidator claimBasedPasswordValidator = ClaimBasedPasswordValidator.getInstance();
-                try {
-                    claimBasedPasswordValidator.initializeData(eventProperties, restrictedClaims, userName);
-                } catch (WSO2Exception e) {
-                    throw new IdentityEventException(e.getErrorCode(), e.getMessage(), e);
-                }
-                if (!claimBasedPasswordValidator.validateCredentials(credential)) {
+    /**
+     * Validates a credential with the given validators concurrently, and stops waiting for them as soon as one of them
+     * rejects the credential. The first validator in the order of the chain is executed in the calling thread while
+     * the others are executed by the PasswordValidatorExecutor. Each validation normalizes the credential into a buffer
+     * of its own thread, so the buffers are zeroed by the threads which own them even if the validation is abandoned.
+     *
+     * @param credential        The credential to be validated.
+     * @param validationContext The data of the password update.
+     * @param validators        The validators enabled for the tenant, in the order of the chain.
+     * @throws IdentityEventException If the credential violates a password policy or if there is an error while
+     *                                validating it.
+     */
+    private void validateCredentialConcurrently(CharSequence credential, PasswordValidationContext validationContext,
+                                                List<AbstractPasswordValidator> validators)
+            throws IdentityEventException {
+
+        CompletionService<AbstractPasswordValidator> completionService =
+                new ExecutorCompletionService<>(PasswordValidatorExecutor.getInstance().getExecutorService());
+        List<Future<AbstractPasswordValidator>> futures = new ArrayList<>(validators.size() - 1);
+        // The user stores and the other tenant specific services resolve the tenant from the carbon context of the
+        // thread, so the validations run in the tenant flow of the calling thread.
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        String tenantDomain = carbonContext.getTenantDomain();
+        int tenantId = carbonContext.getTenantId();
+        try {
+            for (AbstractPasswordValidator validator : validators.subList(1, validators.size())) {
+                futures.add(completionService.submit(() -> validateInTenantFlow(validator, credential,
+                        validationContext, tenantDomain, tenantId)));
+            }
+            AbstractPasswordValidator rejectingValidator =
+                    validateNormalizedCredential(validators.get(0), credential, validationContext);
+            for (int i = 0; rejectingValidator == null && i < futures.size(); i++) {
+                rejectingValidator = completionService.take().get();
+            }
+            if (rejectingValidator != null) {
+                throw PasswordPolicyHandlerUtils.handleEventException(rejectingValidator.getValidationError(), null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityEventException(Constants.ErrorMessages.ERROR_EXECUTING_PASSWORD_VALIDATORS.getCode(),
+                    Constants.ErrorMessages.ERROR_EXECUTING_PASSWORD_VALIDATORS.getMessage(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IdentityEventException) {
+                throw (IdentityEventException) e.getCause();
+            }
+            throw new IdentityEventException(Constants.ErrorMessages.ERROR_EXECUTING_PASSWORD_VALIDATORS.getCode(),
+                    Constants.ErrorMessages.ERROR_EXECUTING_PASSWORD_VALIDATORS.getMessage(), e.getCause());
+        } finally {
+            // The pending validations are cancelled, but the running ones are left to complete without being
+            // interrupted, since an interrupt closes the interruptible channels and the sockets of virtual threads,
+            // such as the database connections.
+            for (Future<AbstractPasswordValidator> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
 
-                    throw PasswordPolicyHandlerUtils.handleEventException(
-                            Constants.ErrorMessages.ERROR_CODE_VALIDATING_USER_ATTRIBUTE_PASSWORD_POLICY, null
-                    );
-                }
+    /**
+     * Validates a credential with a validator in a tenant flow of the given tenant, which is required in the threads
+     * which do not belong to the password update.
+     *
+     * @param validator         The validator.
+     * @param credential        The credential as it was entered.
+     * @param validationContext The data of the password update.
+     * @param tenantDomain      The tenant domain of the carbon context of the password update.
+     * @param tenantId          The tenant id of the carbon context of the password update.
+     * @return The validator if it rejects the credential, null if it accepts it.
+     * @throws IdentityEventException If there is an error while validating the credential.
+     */
+    private AbstractPasswordValidator validateInTenantFlow(AbstractPasswordValidator validator,
+                                                           CharSequence credential,
+                                                           PasswordValidationContext validationContext,
+                                                           String tenantDomain, int tenantId)
+            throws IdentityEventException {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantDomain(tenantDomain);
+            carbonContext.setTenantId(tenantId);
+            return validateNormalizedCredential(validator, credential, validationContext);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Validates a credential with a validator in the calling thread, normalizing it first if the validator requires it.
+     *
+     * @param validator         The validator.
+     * @param credential        The credential as it was entered.
+     * @param validationContext The data of the password update.
+     * @return The validator if it rejects the credential, null if it accepts it.
+     * @throws IdentityEventException If there is an error while validating the credential.
+     */
+    private AbstractPasswordValidator validateNormalizedCredential(AbstractPasswordValidator validator,
+                                                                   CharSequence credential,
+                                                                   PasswordValidationContext validationContext)
+            throws IdentityEventException {
+
+        if (!validator.isNormalizedCredentialRequired()) {
+            return validateCredentials(validator, credential, validationContext) ? null : validator;
+        }
+        try (CredentialBuffer normalizedCredential = CredentialBuffer.normalize(credential)) {
+            return validateCredentials(validator, normalizedCredential, validationContext) ? null : validator;
+        }
+    }
+
+    /**
+     * Validates a credential with a validator and records the latency and the outcome of the validation, both in the
+     * metrics and in the chain which orders the validators by them.
+     *
+     * @param validator         The validator.
+     * @param credential        The credential, normalized unless the validator requires it as it was entered.
+     * @param validationContext The data of the password update event.
+     * @return True if the validation is successful, false if else.
+     * @throws IdentityEventException If there is an error while validating the credential.
+     */
+    private boolean validateCredentials(AbstractPasswordValidator validator, CharSequence credential,
+                                        PasswordValidationContext validationContext) throws IdentityEventException {
+
+        PasswordPolicyMetrics passwordPolicyMetrics = PasswordPolicyMetrics.getInstance();
+        long startTime = passwordPolicyMetrics.startTimer();
+        long chainStartTime = System.nanoTime();
+        boolean isValidCredential;
+        try {
+            // The data of the validator is initialized on the first event of a tenant which enables it.
+            validator.initializeDataIfRequired();
+            if (!validator.isDataReady()) {
+                awaitDataReady(validator);
             }
+            isValidCredential = validator.validateCredentials(credential, validationContext);
+        } catch (WSO2Exception e) {
+            throw new IdentityEventException(e.getErrorCode(), e.getMessage(), e);
         }
+        PasswordValidatorChain.getInstance().recordValidation(validator, System.nanoTime() - chainStartTime,
+                isValidCredential);
+        passwordPolicyMetrics.recordValidator(validator.getName(), startTime, isValidCredential);
+        return isValidCredential;
+    }
+
+    /**
+     * Waits for the data of a validator which is being prepared in the background for at most the number of
+     * milliseconds given by the passwordValidatorDataReadyTimeout system property. A validator whose data is still not
+     * ready reports an error instead of validating the credential.
+     *
+     * @param validator The validator.
+     */
+    private static void awaitDataReady(AbstractPasswordValidator validator) {
+
+        try {
+            validator.awaitDataReady(Long.getLong("passwordValidatorDataReadyTimeout", DEFAULT_DATA_READY_TIMEOUT));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retrieves the password policy configuration of a tenant from the cache, or from the identity governance service
+     * if it is not cached.
+     *
+     * @param tenantDomain The tenant domain.
+     * @return The password policy configuration of the tenant.
+     * @throws IdentityEventException If there is an error while retrieving the password policy properties.
+     */
+    public PasswordPolicyConfig getPasswordPolicyConfig(String tenantDomain) throws IdentityEventException {
+
+        PasswordPolicyConfigCache passwordPolicyConfigCache = PasswordPolicyConfigCache.getInstance();
+        PasswordPolicyConfig passwordPolicyConfig = passwordPolicyConfigCache.getValueFromCache(tenantDomain);
+        if (passwordPolicyConfig != null) {
+            return passwordPolicyConfig;
+        }
+
+        long loadingGeneration = passwordPolicyConfigCache.getGeneration();
+        Property[] identityProperties;
+        try {
+            identityProperties = WSO2PasswordPolicyHandlerMgtDataHolder.getInstance()
+                    .getIdentityGovernanceService().getConfiguration(getPropertyNames(), tenantDomain);
+        } catch (IdentityGovernanceException e) {
+            throw new IdentityEventException("An error occurred while retrieving password policy properties.", e);
+        }
+        passwordPolicyConfig = PasswordPolicyConfig.fromProperties(identityProperties);
+        passwordPolicyConfigCache.addToCache(tenantDomain, passwordPolicyConfig, loadingGeneration);
+        return passwordPolicyConfig;
     }
 
     /**
@@ -227,6 +441,10 @@ public class PasswordPolicyHandler extends AbstractEventHandler implements Ident
                 Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION,
                 Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION_DISPLAYED_NAME
         );
+        nameMapping.put(
+                Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION,
+                Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION_DISPLAYED_NAME
+        );
         nameMapping.put(
                 Constants.CONFIG_RESTRICTED_CLAIMS,
                 Constants.CONFIG_RESTRICTED_CLAIMS_DISPLAYED_NAME
@@ -252,6 +470,10 @@ public class PasswordPolicyHandler extends AbstractEventHandler implements Ident
                 Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION,
                 Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION_DESCRIPTION
         );
+        descriptionMapping.put(
+                Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION,
+                Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION_DESCRIPTION
+        );
         descriptionMapping.put(
                 Constants.CONFIG_RESTRICTED_CLAIMS,
                 Constants.CONFIG_RESTRICTED_CLAIMS_DESCRIPTION
@@ -271,6 +493,7 @@ public class PasswordPolicyHandler extends AbstractEventHandler implements Ident
         List<String> properties = new ArrayList<>();
         properties.add(Constants.CONFIG_ENABLE_COMMON_PASSWORD_RESTRICTION);
         properties.add(Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION);
+        properties.add(Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION);
         properties.add(Constants.CONFIG_RESTRICTED_CLAIMS);
 
         return properties.toArray(new String[0]);
@@ -291,6 +514,9 @@ public class PasswordPolicyHandler extends AbstractEventHandler implements Ident
         defaultProperties.put(Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION,
                 configs.getModuleProperties().getProperty(
                         Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION));
+        defaultProperties.put(Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION,
+                configs.getModuleProperties().getProperty(
+                        Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION));
         defaultProperties.put(Constants.CONFIG_RESTRICTED_CLAIMS,
                 configs.getModuleProperties().getProperty(
                         Constants.CONFIG_RESTRICTED_CLAIMS));
@@ -0,0 +1,235 @@
+package com.wso2.password.policy.handler.batch;
+
+import com.wso2.common.constant.Constants;
+import com.wso2.password.policy.handler.PasswordPolicyHandler;
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
+import com.wso2.password.policy.handler.validator.PasswordValidationContext;
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.event.IdentityEventException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OSGi service which validates the credentials of many users against the password policies of their tenants, for bulk
+ * user imports and forced password resets. The password policy configuration and the tenant id of each tenant are
+ * retrieved once per batch, and the credentials are validated in parallel by a pool of the number of threads given by
+ * the batchPasswordValidationParallelism system property.
+ * <p>
+ * The validations block on the user store and the database, so they run on a plain bounded thread pool rather than a
+ * fork join pool, and each request is validated in a tenant flow of its tenant, since the user stores and the other
+ * tenant specific services resolve the tenant from the carbon context of the thread.
+ */
+public class PasswordPolicyBatchValidationService {
+
+    private static final int VALIDATION_CHUNK_SIZE = 8;
+    private static final long IDLE_THREAD_TIMEOUT = 60;
+    private final PasswordPolicyHandler passwordPolicyHandler;
+    private final ThreadPoolExecutor validationExecutor;
+
+    /**
+     * Creates the service.
+     *
+     * @param passwordPolicyHandler The handler which enforces the password policies on the password update events.
+     */
+    public PasswordPolicyBatchValidationService(PasswordPolicyHandler passwordPolicyHandler) {
+
+        this.passwordPolicyHandler = passwordPolicyHandler;
+        int parallelism = Math.max(1, Integer.getInteger("batchPasswordValidationParallelism",
+                Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.validationExecutor = new ThreadPoolExecutor(parallelism, parallelism, IDLE_THREAD_TIMEOUT,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    // Daemon threads, so they never block the shutdown of the server.
+                    Thread thread = new Thread(runnable, "PasswordBatchValidator-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.validationExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Validates the credentials of the given requests.
+     *
+     * @param requests The requests to be validated.
+     * @return The results of the requests, in the order of the requests.
+     */
+    public List<PasswordValidationResult> validate(List<PasswordValidationRequest> requests) {
+
+        PasswordValidationRequest[] batch = requests.toArray(new PasswordValidationRequest[0]);
+        Map<String, PasswordPolicyConfig> tenantConfigs = new HashMap<>();
+        Map<String, Integer> tenantIds = new HashMap<>();
+        Map<String, PasswordValidationResult> tenantErrors = new HashMap<>();
+        for (PasswordValidationRequest request : batch) {
+            String tenantDomain = getTenantDomain(request);
+            if (tenantConfigs.containsKey(tenantDomain) || tenantErrors.containsKey(tenantDomain)) {
+                continue;
+            }
+            // Report the errors for all the requests of the tenant.
+            try {
+                tenantIds.put(tenantDomain, IdentityTenantUtil.getTenantId(tenantDomain));
+                tenantConfigs.put(tenantDomain, passwordPolicyHandler.getPasswordPolicyConfig(tenantDomain));
+            } catch (IdentityEventException exception) {
+                tenantErrors.put(tenantDomain, toResult(exception));
+            } catch (IdentityRuntimeException exception) {
+                tenantErrors.put(tenantDomain, PasswordValidationResult.rejected(
+                        Constants.ErrorMessages.ERROR_RESOLVING_TENANT.getCode(),
+                        Constants.ErrorMessages.ERROR_RESOLVING_TENANT.getMessage()));
+            }
+        }
+
+        PasswordValidationResult[] results = new PasswordValidationResult[batch.length];
+        List<Future<?>> futures = new ArrayList<>((batch.length + VALIDATION_CHUNK_SIZE - 1) / VALIDATION_CHUNK_SIZE);
+        for (int from = 0; from < batch.length; from += VALIDATION_CHUNK_SIZE) {
+            futures.add(validationExecutor.submit(new ValidationTask(batch, results, tenantConfigs, tenantIds,
+                    tenantErrors, from, Math.min(from + VALIDATION_CHUNK_SIZE, batch.length))));
+        }
+        awaitValidations(futures);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Stops the threads which validate the credentials.
+     */
+    public void shutdown() {
+
+        validationExecutor.shutdown();
+    }
+
+    /**
+     * Waits for all the validations of a batch, without being interrupted, since the results of the batch are only
+     * complete once all of them have completed. An unexpected error of a validation cancels the pending ones and is
+     * thrown to the caller.
+     */
+    private static void awaitValidations(List<Future<?>> futures) {
+
+        boolean interrupted = false;
+        try {
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException exception) {
+                        interrupted = true;
+                    } catch (ExecutionException exception) {
+                        for (Future<?> pendingFuture : futures) {
+                            pendingFuture.cancel(false);
+                        }
+                        if (exception.getCause() instanceof Error) {
+                            throw (Error) exception.getCause();
+                        }
+                        throw exception.getCause() instanceof RuntimeException ?
+                                (RuntimeException) exception.getCause() :
+                                new IllegalStateException(exception.getCause());
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Validates the credential of a request in a tenant flow of its tenant.
+     */
+    private PasswordValidationResult validateInTenantFlow(PasswordValidationRequest request,
+                                                          PasswordPolicyConfig passwordPolicyConfig,
+                                                          String tenantDomain, int tenantId) {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantDomain(tenantDomain);
+            carbonContext.setTenantId(tenantId);
+            return validate(request, passwordPolicyConfig);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private PasswordValidationResult validate(PasswordValidationRequest request,
+                                              PasswordPolicyConfig passwordPolicyConfig) {
+
+        if (StringUtils.isBlank(request.getUserName()) || request.getCredential() == null) {
+            return PasswordValidationResult.rejected(
+                    Constants.ErrorMessages.ERROR_CODE_USERNAME_OR_PASSWORD_NOT_FOUND.getCode(),
+                    Constants.ErrorMessages.ERROR_CODE_USERNAME_OR_PASSWORD_NOT_FOUND.getMessage());
+        }
+
+        PasswordValidationContext validationContext = new PasswordValidationContext(getTenantDomain(request),
+                request.getUserName(), request.getUserStoreManager(), request.getUserClaims(),
+                passwordPolicyConfig.getRestrictedClaims());
+        try {
+            passwordPolicyHandler.validateCredential(request.getCredential(), validationContext,
+                    passwordPolicyConfig);
+        } catch (IdentityEventException exception) {
+            return toResult(exception);
+        }
+        return PasswordValidationResult.accepted();
+    }
+
+    private static PasswordValidationResult toResult(IdentityEventException exception) {
+
+        return PasswordValidationResult.rejected(exception.getErrorCode(), exception.getMessage());
+    }
+
+    private static String getTenantDomain(PasswordValidationRequest request) {
+
+        return StringUtils.isBlank(request.getTenantDomain()) ? MultitenantConstants.SUPER_TENANT_DOMAIN_NAME :
+                request.getTenantDomain();
+    }
+
+    /**
+     * Validates the requests in a chunk of a batch.
+     */
+    private final class ValidationTask implements Runnable {
+
+        private final PasswordValidationRequest[] requests;
+        private final PasswordValidationResult[] results;
+        private final Map<String, PasswordPolicyConfig> tenantConfigs;
+        private final Map<String, Integer> tenantIds;
+        private final Map<String, PasswordValidationResult> tenantErrors;
+        private final int from;
+        private final int to;
+
+        ValidationTask(PasswordValidationRequest[] requests, PasswordValidationResult[] results,
+                       Map<String, PasswordPolicyConfig> tenantConfigs, Map<String, Integer> tenantIds,
+                       Map<String, PasswordValidationResult> tenantErrors, int from, int to) {
+
+            this.requests = requests;
+            this.results = results;
+            this.tenantConfigs = tenantConfigs;
+            this.tenantIds = tenantIds;
+            this.tenantErrors = tenantErrors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+
+            for (int i = from; i < to; i++) {
+                String tenantDomain = getTenantDomain(requests[i]);
+                PasswordValidationResult tenantError = tenantErrors.get(tenantDomain);
+                results[i] = tenantError != null ? tenantError : validateInTenantFlow(requests[i],
+                        tenantConfigs.get(tenantDomain), tenantDomain, tenantIds.get(tenantDomain));
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.wso2.password.policy.handler.batch;
+
+import org.wso2.carbon.user.core.UserStoreManager;
+
+import java.util.Map;
+
+/**
+ * A credential of a user to be validated against the password policies of the tenant of the user by the
+ * PasswordPolicyBatchValidationService.
+ */
+public final class PasswordValidationRequest {
+
+    private final String tenantDomain;
+    private final String userName;
+    private final String credential;
+    private final Map<String, String> userClaims;
+    private final UserStoreManager userStoreManager;
+
+    /**
+     * Creates a request for a user whose claims are given.
+     *
+     * @param tenantDomain The tenant domain of the user, the super tenant domain if it is blank.
+     * @param userName     Username of the user.
+     * @param credential   The credential to be validated.
+     * @param userClaims   Claims of the user.
+     */
+    public PasswordValidationRequest(String tenantDomain, String userName, String credential,
+                                     Map<String, String> userClaims) {
+
+        this(tenantDomain, userName, credential, userClaims, null);
+    }
+
+    /**
+     * Creates a request.
+     *
+     * @param tenantDomain     The tenant domain of the user, the super tenant domain if it is blank.
+     * @param userName         Username of the user.
+     * @param credential       The credential to be validated.
+     * @param userClaims       Claims of the user, null if they have to be retrieved from the user store.
+     * @param userStoreManager The user store manager of the user, null if the claims of the user are given.
+     */
+    public PasswordValidationRequest(String tenantDomain, String userName, String credential,
+                                     Map<String, String> userClaims, UserStoreManager userStoreManager) {
+
+        this.tenantDomain = tenantDomain;
+        this.userName = userName;
+        this.credential = credential;
+        this.userClaims = userClaims;
+        this.userStoreManager = userStoreManager;
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public String getUserName() {
+
+        return userName;
+    }
+
+    public String getCredential() {
+
+        return credential;
+    }
+
+    public Map<String, String> getUserClaims() {
+
+        return userClaims;
+    }
+
+    public UserStoreManager getUserStoreManager() {
+
+        return userStoreManager;
+    }
+}
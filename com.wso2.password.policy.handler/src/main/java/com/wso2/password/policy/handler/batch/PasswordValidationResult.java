@@ -0,0 +1,58 @@
+package com.wso2.password.policy.handler.batch;
+
+/**
+ * The outcome of validating the credential of a PasswordValidationRequest. A rejected credential carries the error
+ * code and the message which the password update event would have failed with.
+ */
+public final class PasswordValidationResult {
+
+    private static final PasswordValidationResult ACCEPTED = new PasswordValidationResult(true, null, null);
+
+    private final boolean valid;
+    private final String errorCode;
+    private final String errorMessage;
+
+    private PasswordValidationResult(boolean valid, String errorCode, String errorMessage) {
+
+        this.valid = valid;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Retrieves the result of an accepted credential.
+     *
+     * @return The result of an accepted credential.
+     */
+    public static PasswordValidationResult accepted() {
+
+        return ACCEPTED;
+    }
+
+    /**
+     * Creates the result of a credential which violates a password policy or could not be validated.
+     *
+     * @param errorCode    The error code.
+     * @param errorMessage The error message.
+     * @return The result of a rejected credential.
+     */
+    public static PasswordValidationResult rejected(String errorCode, String errorMessage) {
+
+        return new PasswordValidationResult(false, errorCode, errorMessage);
+    }
+
+    public boolean isValid() {
+
+        return valid;
+    }
+
+    public String getErrorCode() {
+
+        return errorCode;
+    }
+
+    public String getErrorMessage() {
+
+        return errorMessage;
+    }
+}
@@ -0,0 +1,310 @@
+package com.wso2.password.policy.handler.breached;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An exact-match store of the SHA-1 hashes of breached passwords which is queried directly from a memory mapped file,
+ * so the hashes never materialize on the heap and a lookup costs the same regardless of the size of the corpus.
+ * <p>
+ * The hashes are partitioned by their leading bits, like the hash ranges of the k-anonymity breached password APIs.
+ * The file consists of a header (magic number, format version, prefix length in bits and hash count), the index of the
+ * first hash of each partition, and the sorted hashes without their leading whole prefix bytes, which are implied by
+ * the partition. Since the hashes are uniformly distributed, the position of a hash within its partition is
+ * interpolated from the first and the last hash of the partition, so a lookup reads the partition index and one or two
+ * pages of hashes. All the values are stored in big-endian order.
+ */
+public final class BreachedPasswordHashStore {
+
+    public static final int MAGIC = 0x42504853;
+    public static final int VERSION = 1;
+    public static final int HASH_LENGTH = 20;
+    public static final int MIN_PREFIX_BITS = 8;
+    public static final int MAX_PREFIX_BITS = 24;
+    public static final int DEFAULT_PREFIX_BITS = 20;
+
+    static final int HEADER_SIZE = 20;
+
+    // A single mapping cannot exceed 2GB, so the hashes are mapped in segments holding whole hashes.
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+    // Interpolation steps before falling back to bisection, which bounds the lookups of skewed partitions.
+    private static final int MAX_INTERPOLATION_STEPS = 3;
+
+    private static final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+
+            try {
+                return MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException exception) {
+                throw new IllegalStateException("The SHA-1 algorithm is not available.", exception);
+            }
+        }
+    };
+    private static final ThreadLocal<byte[]> hashBuffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+
+            return new byte[HASH_LENGTH];
+        }
+    };
+
+    private final int prefixBits;
+    private final int prefixBytes;
+    private final int recordLength;
+    private final long hashCount;
+    private final LongBuffer partitionOffsets;
+    private final ByteBuffer[] segments;
+    private final int segmentRecords;
+
+    private BreachedPasswordHashStore(int prefixBits, long hashCount, LongBuffer partitionOffsets,
+                                      ByteBuffer[] segments, int segmentRecords) {
+
+        this.prefixBits = prefixBits;
+        this.prefixBytes = prefixBits / 8;
+        this.recordLength = HASH_LENGTH - prefixBytes;
+        this.hashCount = hashCount;
+        this.partitionOffsets = partitionOffsets;
+        this.segments = segments;
+        this.segmentRecords = segmentRecords;
+    }
+
+    /**
+     * Opens a breached password hash store file.
+     *
+     * @param path Path of the hash store file.
+     * @return A store backed by the mapped file.
+     * @throws IOException If the file cannot be mapped or is not a breached password hash store.
+     */
+    public static BreachedPasswordHashStore open(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_SIZE));
+            if (size < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException("The file " + path + " is not a breached password hash store.");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported breached password hash store version: " + header.getInt(4));
+            }
+            int prefixBits = header.getInt(8);
+            long hashCount = header.getLong(12);
+            if (prefixBits < MIN_PREFIX_BITS || prefixBits > MAX_PREFIX_BITS || hashCount < 0) {
+                throw new IOException("The header of the breached password hash store " + path + " is corrupted.");
+            }
+
+            long tableSize = getPartitionTableSize(prefixBits);
+            int recordLength = getRecordLength(prefixBits);
+            long recordsStart = HEADER_SIZE + tableSize;
+            if (size != recordsStart + hashCount * recordLength) {
+                throw new IOException("The breached password hash store " + path + " is truncated.");
+            }
+            LongBuffer partitionOffsets = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, tableSize)
+                    .asLongBuffer();
+            if (!isValidPartitionIndex(partitionOffsets, hashCount)) {
+                throw new IOException("The partition index of the breached password hash store " + path
+                        + " is corrupted.");
+            }
+
+            int segmentRecords = (int) (MAX_SEGMENT_SIZE / recordLength);
+            ByteBuffer[] segments = new ByteBuffer[(int) ((hashCount + segmentRecords - 1) / segmentRecords)];
+            for (int i = 0; i < segments.length; i++) {
+                long firstRecord = (long) i * segmentRecords;
+                long records = Math.min(segmentRecords, hashCount - firstRecord);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, recordsStart + firstRecord * recordLength,
+                        records * recordLength);
+            }
+            return new BreachedPasswordHashStore(prefixBits, hashCount, partitionOffsets, segments, segmentRecords);
+        }
+    }
+
+    /**
+     * Checks whether the SHA-1 hash of a credential is in the store. The credential is hashed as it is, encoded in
+     * UTF-8, without creating a string or a byte array from it.
+     *
+     * @param credential The credential.
+     * @return True if the credential is a breached password, false if else.
+     */
+    public boolean contains(CharSequence credential) {
+
+        byte[] hash = hashBuffers.get();
+        hash(credential, hash);
+        return containsHash(hash);
+    }
+
+    /**
+     * Checks whether a SHA-1 hash is in the store.
+     *
+     * @param hash The SHA-1 hash.
+     * @return True if the hash is in the store, false if else.
+     */
+    public boolean containsHash(byte[] hash) {
+
+        int partition = getPartition(hash, prefixBits);
+        long low = partitionOffsets.get(partition);
+        long high = partitionOffsets.get(partition + 1) - 1;
+        long key = readLong(hash, prefixBytes);
+
+        for (int step = 0; low <= high; step++) {
+            long probe;
+            if (step < MAX_INTERPOLATION_STEPS) {
+                long lowKey = getRecordKey(low);
+                long highKey = getRecordKey(high);
+                if (Long.compareUnsigned(key, lowKey) < 0 || Long.compareUnsigned(key, highKey) > 0) {
+                    return false;
+                }
+                probe = interpolate(key, low, lowKey, high, highKey);
+            } else {
+                probe = (low + high) >>> 1;
+            }
+
+            int comparison = compareRecord(hash, probe);
+            if (comparison == 0) {
+                return true;
+            } else if (comparison < 0) {
+                high = probe - 1;
+            } else {
+                low = probe + 1;
+            }
+        }
+        return false;
+    }
+
+    public long getHashCount() {
+
+        return hashCount;
+    }
+
+    public int getPrefixBits() {
+
+        return prefixBits;
+    }
+
+    /**
+     * Computes the SHA-1 hash of a character sequence encoded in UTF-8. Unpaired surrogates are encoded as '?', the
+     * same way as String#getBytes does.
+     *
+     * @param value The character sequence.
+     * @param hash  The array the hash is written to.
+     */
+    static void hash(CharSequence value, byte[] hash) {
+
+        MessageDigest digest = digests.get();
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                digest.update((byte) c);
+            } else if (c < 0x800) {
+                digest.update((byte) (0xC0 | (c >> 6)));
+                digest.update((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                digest.update((byte) (0xF0 | (codePoint >> 18)));
+                digest.update((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                digest.update((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                digest.update((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                digest.update((byte) '?');
+            } else {
+                digest.update((byte) (0xE0 | (c >> 12)));
+                digest.update((byte) (0x80 | ((c >> 6) & 0x3F)));
+                digest.update((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        try {
+            digest.digest(hash, 0, HASH_LENGTH);
+        } catch (DigestException exception) {
+            throw new IllegalStateException("The SHA-1 hash could not be computed.", exception);
+        }
+    }
+
+    static int getPartition(byte[] hash, int prefixBits) {
+
+        int leadingBits = ((hash[0] & 0xFF) << 24) | ((hash[1] & 0xFF) << 16) | ((hash[2] & 0xFF) << 8)
+                | (hash[3] & 0xFF);
+        return leadingBits >>> (32 - prefixBits);
+    }
+
+    static long getPartitionTableSize(int prefixBits) {
+
+        return ((1L << prefixBits) + 1) * 8;
+    }
+
+    static int getRecordLength(int prefixBits) {
+
+        return HASH_LENGTH - prefixBits / 8;
+    }
+
+    /**
+     * Checks that the index of the first hash of each partition starts at zero, never decreases and ends at the hash
+     * count, since the lookups read the hashes between the indices of a partition without any bounds check.
+     *
+     * @param partitionOffsets The partition index.
+     * @param hashCount        Number of hashes in the store.
+     * @return True if the partition index is valid, false if else.
+     */
+    private static boolean isValidPartitionIndex(LongBuffer partitionOffsets, long hashCount) {
+
+        if (partitionOffsets.get(0) != 0 || partitionOffsets.get(partitionOffsets.limit() - 1) != hashCount) {
+            return false;
+        }
+        long previousOffset = 0;
+        for (int i = 1; i < partitionOffsets.limit(); i++) {
+            long offset = partitionOffsets.get(i);
+            if (offset < previousOffset) {
+                return false;
+            }
+            previousOffset = offset;
+        }
+        return true;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    // Estimates the position of the key from the unsigned keys at both ends of the range.
+    private static long interpolate(long key, long low, long lowKey, long high, long highKey) {
+
+        if (lowKey == highKey) {
+            return low;
+        }
+        double fraction = toUnsignedDouble(key - lowKey) / toUnsignedDouble(highKey - lowKey);
+        return Math.min(high, low + (long) (fraction * (high - low)));
+    }
+
+    private static double toUnsignedDouble(long value) {
+
+        return (value >>> 1) * 2.0 + (value & 1);
+    }
+
+    private long getRecordKey(long index) {
+
+        return segments[(int) (index / segmentRecords)].getLong((int) (index % segmentRecords) * recordLength);
+    }
+
+    private int compareRecord(byte[] hash, long index) {
+
+        ByteBuffer segment = segments[(int) (index / segmentRecords)];
+        int position = (int) (index % segmentRecords) * recordLength;
+        int comparison = Long.compareUnsigned(readLong(hash, prefixBytes), segment.getLong(position));
+        for (int i = 8; comparison == 0 && i < recordLength; i++) {
+            comparison = Integer.compare(hash[prefixBytes + i] & 0xFF, segment.get(position + i) & 0xFF);
+        }
+        return comparison;
+    }
+}
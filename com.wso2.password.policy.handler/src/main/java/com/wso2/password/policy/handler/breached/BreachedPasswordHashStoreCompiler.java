@@ -0,0 +1,319 @@
+package com.wso2.password.policy.handler.breached;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Offline tool which compiles a breached password corpus into the hash store format that is memory mapped by the
+ * BreachedPasswordHashStore. The corpus is either a file of SHA-1 hashes in hexadecimal, one per line and optionally
+ * followed by ':' and a count as in the downloadable k-anonymity hash ranges, or a file of plaintext passwords which
+ * are hashed as they are.
+ * <p>
+ * Corpora larger than the heap are compiled in two passes: the hashes are first spread into temporary bucket files
+ * by their first byte, and each bucket is then sorted in memory and appended to the store.
+ * <p>
+ * Usage: BreachedPasswordHashStoreCompiler [--plaintext] [--prefix-bits &lt;8-24&gt;] &lt;breached passwords file&gt;
+ * &lt;hash store file&gt;
+ */
+public class BreachedPasswordHashStoreCompiler {
+
+    private static final int BUCKET_COUNT = 256;
+    private static final int BUCKET_BUFFER_SIZE = 1 << 16;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private BreachedPasswordHashStoreCompiler() {
+
+    }
+
+    /**
+     * Compiles a breached password corpus into a hash store file.
+     *
+     * @param source     Path of the breached password corpus.
+     * @param target     Path of the hash store file.
+     * @param prefixBits Number of leading hash bits the hashes are partitioned by.
+     * @param plaintext  True if the corpus consists of plaintext passwords, false if it consists of SHA-1 hashes.
+     * @return Number of unique hashes written to the hash store.
+     * @throws IOException If an error occurs while reading or writing the files, or if the corpus contains an
+     *                     invalid hash.
+     */
+    public static long compile(Path source, Path target, int prefixBits, boolean plaintext) throws IOException {
+
+        if (prefixBits < BreachedPasswordHashStore.MIN_PREFIX_BITS
+                || prefixBits > BreachedPasswordHashStore.MAX_PREFIX_BITS) {
+            throw new IllegalArgumentException("The prefix length has to be between "
+                    + BreachedPasswordHashStore.MIN_PREFIX_BITS + " and "
+                    + BreachedPasswordHashStore.MAX_PREFIX_BITS + " bits.");
+        }
+        Path absoluteTarget = target.toAbsolutePath();
+        Path bucketDirectory = Files.createTempDirectory(absoluteTarget.getParent(), "breached-password-buckets");
+        try {
+            long[] bucketSizes = writeBuckets(source, bucketDirectory, plaintext);
+            return writeStore(bucketDirectory, bucketSizes, absoluteTarget, prefixBits);
+        } finally {
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                Files.deleteIfExists(getBucketPath(bucketDirectory, bucket));
+            }
+            Files.deleteIfExists(bucketDirectory);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        boolean plaintext = false;
+        int prefixBits = BreachedPasswordHashStore.DEFAULT_PREFIX_BITS;
+        int argument = 0;
+        while (argument < args.length && args[argument].startsWith("--")) {
+            if ("--plaintext".equals(args[argument])) {
+                plaintext = true;
+                argument++;
+            } else if ("--prefix-bits".equals(args[argument]) && argument + 1 < args.length) {
+                prefixBits = Integer.parseInt(args[argument + 1]);
+                argument += 2;
+            } else {
+                break;
+            }
+        }
+        if (args.length - argument != 2) {
+            System.err.println("Usage: BreachedPasswordHashStoreCompiler [--plaintext] [--prefix-bits <8-24>] "
+                    + "<breached passwords file> <hash store file>");
+            System.exit(1);
+        }
+        long size = compile(Paths.get(args[argument]), Paths.get(args[argument + 1]), prefixBits, plaintext);
+        System.out.println(String.format("Compiled %d unique breached password hashes into %s.", size,
+                args[argument + 1]));
+    }
+
+    // Spreads the hashes of the corpus into bucket files by their first byte.
+    private static long[] writeBuckets(Path source, Path bucketDirectory, boolean plaintext) throws IOException {
+
+        long[] bucketSizes = new long[BUCKET_COUNT];
+        OutputStream[] buckets = new OutputStream[BUCKET_COUNT];
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                buckets[bucket] = new BufferedOutputStream(
+                        Files.newOutputStream(getBucketPath(bucketDirectory, bucket)), BUCKET_BUFFER_SIZE);
+            }
+            byte[] hash = new byte[BreachedPasswordHashStore.HASH_LENGTH];
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (plaintext) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    BreachedPasswordHashStore.hash(line, hash);
+                } else {
+                    line = line.trim();
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    if (!parseHash(line, hash)) {
+                        throw new IOException("Invalid SHA-1 hash at line " + lineNumber + " of " + source + ".");
+                    }
+                }
+                int bucket = hash[0] & 0xFF;
+                buckets[bucket].write(hash);
+                bucketSizes[bucket]++;
+            }
+        } finally {
+            for (OutputStream bucket : buckets) {
+                if (bucket != null) {
+                    bucket.close();
+                }
+            }
+        }
+        return bucketSizes;
+    }
+
+    // Sorts the buckets in order and writes their unique hashes after the header and the partition index.
+    private static long writeStore(Path bucketDirectory, long[] bucketSizes, Path target, int prefixBits)
+            throws IOException {
+
+        int prefixBytes = prefixBits / 8;
+        int partitionCount = 1 << prefixBits;
+        long[] partitionOffsets = new long[partitionCount + 1];
+        long recordsStart = BreachedPasswordHashStore.HEADER_SIZE
+                + BreachedPasswordHashStore.getPartitionTableSize(prefixBits);
+        long hashCount = 0;
+        int nextPartition = 0;
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+            long position = recordsStart;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                if (bucketSizes[bucket] == 0) {
+                    continue;
+                }
+                if (bucketSizes[bucket] * BreachedPasswordHashStore.HASH_LENGTH > Integer.MAX_VALUE - 8) {
+                    throw new IOException("The breached password corpus is too large to be sorted in memory.");
+                }
+                byte[] hashes = Files.readAllBytes(getBucketPath(bucketDirectory, bucket));
+                Files.delete(getBucketPath(bucketDirectory, bucket));
+                int count = (int) bucketSizes[bucket];
+                new HashSorter(hashes).sort(0, count);
+
+                for (int i = 0; i < count; i++) {
+                    int offset = i * BreachedPasswordHashStore.HASH_LENGTH;
+                    int previousOffset = offset - BreachedPasswordHashStore.HASH_LENGTH;
+                    if (i > 0 && compare(hashes, previousOffset, hashes, offset) == 0) {
+                        continue;
+                    }
+                    int partition = getPartition(hashes, offset, prefixBits);
+                    while (nextPartition <= partition) {
+                        partitionOffsets[nextPartition++] = hashCount;
+                    }
+                    if (output.remaining() < BreachedPasswordHashStore.HASH_LENGTH) {
+                        position += flush(channel, output, position);
+                    }
+                    output.put(hashes, offset + prefixBytes, BreachedPasswordHashStore.HASH_LENGTH - prefixBytes);
+                    hashCount++;
+                }
+            }
+            flush(channel, output, position);
+            while (nextPartition <= partitionCount) {
+                partitionOffsets[nextPartition++] = hashCount;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(BreachedPasswordHashStore.HEADER_SIZE);
+            header.putInt(BreachedPasswordHashStore.MAGIC);
+            header.putInt(BreachedPasswordHashStore.VERSION);
+            header.putInt(prefixBits);
+            header.putLong(hashCount);
+            position = flush(channel, header, 0);
+            for (long partitionOffset : partitionOffsets) {
+                if (output.remaining() < Long.BYTES) {
+                    position += flush(channel, output, position);
+                }
+                output.putLong(partitionOffset);
+            }
+            flush(channel, output, position);
+        }
+        return hashCount;
+    }
+
+    // Writes the buffered bytes at the given position, and returns the number of bytes written.
+    private static int flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+        buffer.flip();
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    private static boolean parseHash(String line, byte[] hash) {
+
+        int end = line.indexOf(':');
+        if ((end < 0 ? line.length() : end) != BreachedPasswordHashStore.HASH_LENGTH * 2) {
+            return false;
+        }
+        for (int i = 0; i < BreachedPasswordHashStore.HASH_LENGTH; i++) {
+            int high = Character.digit(line.charAt(i * 2), 16);
+            int low = Character.digit(line.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            hash[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    private static int getPartition(byte[] hashes, int offset, int prefixBits) {
+
+        int leadingBits = ((hashes[offset] & 0xFF) << 24) | ((hashes[offset + 1] & 0xFF) << 16)
+                | ((hashes[offset + 2] & 0xFF) << 8) | (hashes[offset + 3] & 0xFF);
+        return leadingBits >>> (32 - prefixBits);
+    }
+
+    private static int compare(byte[] left, int leftOffset, byte[] right, int rightOffset) {
+
+        for (int i = 0; i < BreachedPasswordHashStore.HASH_LENGTH; i++) {
+            int comparison = Integer.compare(left[leftOffset + i] & 0xFF, right[rightOffset + i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private static Path getBucketPath(Path bucketDirectory, int bucket) {
+
+        return bucketDirectory.resolve(String.format("bucket-%03d", bucket));
+    }
+
+    /**
+     * Sorts the fixed length hashes of a byte array in place with a three-way quicksort, which keeps the duplicate
+     * passwords of plaintext corpora from degrading the sort.
+     */
+    private static final class HashSorter {
+
+        private final byte[] hashes;
+        private final byte[] pivot = new byte[BreachedPasswordHashStore.HASH_LENGTH];
+        private final byte[] swapBuffer = new byte[BreachedPasswordHashStore.HASH_LENGTH];
+
+        HashSorter(byte[] hashes) {
+
+            this.hashes = hashes;
+        }
+
+        // Sorts the hashes in [from, to).
+        void sort(int from, int to) {
+
+            while (to - from > INSERTION_SORT_THRESHOLD) {
+                System.arraycopy(hashes, offset((from + to) >>> 1), pivot, 0, pivot.length);
+                int lessThan = from;
+                int greaterThan = to - 1;
+                int i = from;
+                while (i <= greaterThan) {
+                    int comparison = compare(hashes, offset(i), pivot, 0);
+                    if (comparison < 0) {
+                        swap(lessThan++, i++);
+                    } else if (comparison > 0) {
+                        swap(i, greaterThan--);
+                    } else {
+                        i++;
+                    }
+                }
+                // Recurse into the smaller side and loop over the larger one to bound the stack depth.
+                if (lessThan - from < to - greaterThan - 1) {
+                    sort(from, lessThan);
+                    from = greaterThan + 1;
+                } else {
+                    sort(greaterThan + 1, to);
+                    to = lessThan;
+                }
+            }
+            for (int i = from + 1; i < to; i++) {
+                for (int j = i; j > from && compare(hashes, offset(j - 1), hashes, offset(j)) > 0; j--) {
+                    swap(j - 1, j);
+                }
+            }
+        }
+
+        private void swap(int left, int right) {
+
+            System.arraycopy(hashes, offset(left), swapBuffer, 0, swapBuffer.length);
+            System.arraycopy(hashes, offset(right), hashes, offset(left), swapBuffer.length);
+            System.arraycopy(swapBuffer, 0, hashes, offset(right), swapBuffer.length);
+        }
+
+        private static int offset(int index) {
+
+            return index * BreachedPasswordHashStore.HASH_LENGTH;
+        }
+    }
+}
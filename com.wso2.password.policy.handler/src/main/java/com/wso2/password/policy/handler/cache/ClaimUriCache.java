@@ -0,0 +1,82 @@
+package com.wso2.password.policy.handler.cache;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A singleton cache of the claim URIs defined in the tenants, so the claim validation can request only the restricted
+ * claims which exist in the tenant without listing all the claim URIs of the claim manager for each event. The
+ * entries expire after the number of seconds given by the claimUriCacheTimeout system property.
+ */
+public class ClaimUriCache {
+
+    private static final long DEFAULT_CACHE_TIMEOUT = 300;
+    private static final ClaimUriCache claimUriCache = new ClaimUriCache();
+    private final ExpiringCache<String, Set<String>> cache;
+    private final boolean enabled;
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private ClaimUriCache() {
+
+        long cacheTimeout = Long.getLong("claimUriCacheTimeout", DEFAULT_CACHE_TIMEOUT);
+        enabled = cacheTimeout > 0;
+        cache = new ExpiringCache<>(cacheTimeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Retrieve the singleton instance of the ClaimUriCache.
+     *
+     * @return An instance of the ClaimUriCache.
+     */
+    public static ClaimUriCache getInstance() {
+
+        return claimUriCache;
+    }
+
+    /**
+     * Retrieves the cached claim URIs of a tenant.
+     *
+     * @param tenantDomain The tenant domain.
+     * @return The claim URIs, null if they are not cached or if the cache is disabled.
+     */
+    public Set<String> getValueFromCache(String tenantDomain) {
+
+        return enabled ? cache.get(tenantDomain) : null;
+    }
+
+    /**
+     * Retrieves the generation which has to be read before retrieving the claim URIs to be cached.
+     *
+     * @return The current generation of the cache.
+     */
+    public long getGeneration() {
+
+        return cache.getGeneration();
+    }
+
+    /**
+     * Caches the claim URIs of a tenant unless the cache has been invalidated after the given generation.
+     *
+     * @param tenantDomain      The tenant domain.
+     * @param claimUris         The claim URIs, which must not be modified afterwards.
+     * @param loadingGeneration The generation read before retrieving the claim URIs.
+     */
+    public void addToCache(String tenantDomain, Set<String> claimUris, long loadingGeneration) {
+
+        if (enabled) {
+            cache.put(tenantDomain, claimUris, loadingGeneration);
+        }
+    }
+
+    /**
+     * Removes the cached claim URIs of a tenant.
+     *
+     * @param tenantDomain The tenant domain.
+     */
+    public void clearCacheEntry(String tenantDomain) {
+
+        cache.invalidate(tenantDomain);
+    }
+}
@@ -0,0 +1,89 @@
+package com.wso2.password.policy.handler.cache;
+
+import com.wso2.password.policy.handler.dictionary.AbstractCommonPasswordDictionary;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A singleton cache of the tenant specific common password dictionaries which are layered over the common passwords
+ * shared by all the tenants. A dictionary is loaded on the first password update event of its tenant, and is evicted
+ * once it has not been used for the number of seconds given by the commonPasswordOverlayIdleTimeout system property,
+ * so only the dictionaries of the active tenants are kept in memory.
+ */
+public class CommonPasswordOverlayCache {
+
+    private static final long DEFAULT_IDLE_TIMEOUT = 1800;
+    private static final CommonPasswordOverlayCache commonPasswordOverlayCache = new CommonPasswordOverlayCache();
+    private final ExpiringCache<String, AbstractCommonPasswordDictionary> cache;
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private CommonPasswordOverlayCache() {
+
+        long idleTimeout = Long.getLong("commonPasswordOverlayIdleTimeout", DEFAULT_IDLE_TIMEOUT);
+        cache = new ExpiringCache<>(Math.max(idleTimeout, 1), TimeUnit.SECONDS, true);
+    }
+
+    /**
+     * Retrieve the singleton instance of the CommonPasswordOverlayCache.
+     *
+     * @return An instance of the CommonPasswordOverlayCache.
+     */
+    public static CommonPasswordOverlayCache getInstance() {
+
+        return commonPasswordOverlayCache;
+    }
+
+    /**
+     * Retrieves the cached common password dictionary of a tenant and marks it as used.
+     *
+     * @param tenantDomain The tenant domain.
+     * @return The common password dictionary of the tenant, null if it is not cached.
+     */
+    public AbstractCommonPasswordDictionary getValueFromCache(String tenantDomain) {
+
+        return cache.get(tenantDomain);
+    }
+
+    /**
+     * Retrieves the generation which has to be read before loading the common password dictionary to be cached.
+     *
+     * @return The current generation of the cache.
+     */
+    public long getGeneration() {
+
+        return cache.getGeneration();
+    }
+
+    /**
+     * Caches the common password dictionary of a tenant unless the cache has been invalidated after the given
+     * generation.
+     *
+     * @param tenantDomain      The tenant domain.
+     * @param dictionary        The common password dictionary of the tenant.
+     * @param loadingGeneration The generation read before loading the common password dictionary.
+     */
+    public void addToCache(String tenantDomain, AbstractCommonPasswordDictionary dictionary, long loadingGeneration) {
+
+        cache.put(tenantDomain, dictionary, loadingGeneration);
+    }
+
+    /**
+     * Removes the cached common password dictionary of a tenant, so it is loaded again on the next event.
+     *
+     * @param tenantDomain The tenant domain.
+     */
+    public void clearCacheEntry(String tenantDomain) {
+
+        cache.invalidate(tenantDomain);
+    }
+
+    /**
+     * Removes the cached common password dictionaries of all the tenants.
+     */
+    public void clearCache() {
+
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,173 @@
+package com.wso2.password.policy.handler.cache;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A singleton cache of the outcomes of the validations against the common passwords shared by all the tenants, so
+ * the credentials which are tried over and over, such as the weak candidates of password reset storms, are not
+ * matched against the common passwords each time. The credentials are never stored: the entries are keyed by an
+ * HMAC-SHA256 of the credential with a random key which is generated on each node and never leaves its memory.
+ * <p>
+ * The entries expire after the number of seconds given by the commonPasswordResultCacheTimeout system property, at
+ * most commonPasswordResultCacheSize entries are kept, and the cache is invalidated whenever the common passwords
+ * change.
+ */
+public class CommonPasswordResultCache {
+
+    public static final String CACHE_NAME = "CommonPasswordResultCache";
+
+    private static final long DEFAULT_CACHE_TIMEOUT = 60;
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HMAC_KEY_LENGTH = 32;
+    private static final CommonPasswordResultCache commonPasswordResultCache = new CommonPasswordResultCache();
+    private final ExpiringCache<Key, Boolean> cache;
+    private final boolean enabled;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private CommonPasswordResultCache() {
+
+        long cacheTimeout = Long.getLong("commonPasswordResultCacheTimeout", DEFAULT_CACHE_TIMEOUT);
+        int cacheSize = Integer.getInteger("commonPasswordResultCacheSize", DEFAULT_CACHE_SIZE);
+        enabled = cacheTimeout > 0 && cacheSize > 0;
+        cache = new ExpiringCache<>(cacheTimeout, TimeUnit.SECONDS, false, Math.max(cacheSize, 0));
+
+        byte[] keyBytes = new byte[HMAC_KEY_LENGTH];
+        new SecureRandom().nextBytes(keyBytes);
+        SecretKeySpec secretKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        Arrays.fill(keyBytes, (byte) 0);
+        macs = new ThreadLocal<Mac>() {
+            @Override
+            protected Mac initialValue() {
+
+                try {
+                    Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                    mac.init(secretKey);
+                    return mac;
+                } catch (GeneralSecurityException exception) {
+                    throw new IllegalStateException("The " + HMAC_ALGORITHM + " algorithm is not available.",
+                            exception);
+                }
+            }
+        };
+    }
+
+    /**
+     * Retrieve the singleton instance of the CommonPasswordResultCache.
+     *
+     * @return An instance of the CommonPasswordResultCache.
+     */
+    public static CommonPasswordResultCache getInstance() {
+
+        return commonPasswordResultCache;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Computes the key of the outcome of the validation of a credential by a validator. The characters of the
+     * credential are fed to the HMAC directly, without creating a string or a byte array from it.
+     *
+     * @param validatorName Name of the validator.
+     * @param credential    The normalized credential.
+     * @return The key of the outcome.
+     */
+    public Key getKey(String validatorName, CharSequence credential) {
+
+        Mac mac = macs.get();
+        for (int i = 0; i < credential.length(); i++) {
+            char c = credential.charAt(i);
+            mac.update((byte) (c >>> 8));
+            mac.update((byte) c);
+        }
+        return new Key(validatorName, mac.doFinal());
+    }
+
+    /**
+     * Retrieves the cached outcome of a validation.
+     *
+     * @param key The key of the outcome.
+     * @return True if the credential was accepted, false if it was rejected, null if the outcome is not cached.
+     */
+    public Boolean getValueFromCache(Key key) {
+
+        return cache.get(key);
+    }
+
+    /**
+     * Retrieves the generation which has to be read before validating the credential of which the outcome is to be
+     * cached.
+     *
+     * @return The current generation of the cache.
+     */
+    public long getGeneration() {
+
+        return cache.getGeneration();
+    }
+
+    /**
+     * Caches the outcome of a validation unless the cache has been invalidated after the given generation.
+     *
+     * @param key               The key of the outcome.
+     * @param accepted          Whether the credential was accepted.
+     * @param loadingGeneration The generation read before validating the credential.
+     */
+    public void addToCache(Key key, boolean accepted, long loadingGeneration) {
+
+        cache.put(key, accepted, loadingGeneration);
+    }
+
+    /**
+     * Removes all the cached outcomes. This has to be called after the common passwords have changed, so the outcomes
+     * of the validations which were running against the previous common passwords are not cached either.
+     */
+    public void clearCache() {
+
+        cache.invalidateAll();
+    }
+
+    /**
+     * The key of the outcome of a validation, which holds the HMAC of the credential instead of the credential.
+     */
+    public static final class Key {
+
+        private final String validatorName;
+        private final byte[] credentialMac;
+
+        private Key(String validatorName, byte[] credentialMac) {
+
+            this.validatorName = validatorName;
+            this.credentialMac = credentialMac;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) object;
+            return validatorName.equals(key.validatorName) && Arrays.equals(credentialMac, key.credentialMac);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Arrays.hashCode(credentialMac);
+        }
+    }
+}
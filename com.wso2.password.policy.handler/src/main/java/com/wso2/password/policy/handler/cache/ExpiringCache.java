@@ -0,0 +1,205 @@
+package com.wso2.password.policy.handler.cache;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe cache whose entries expire after a fixed time to live, counted either from when they are put or from
+ * when they are last looked up. Expired entries are removed when they are looked up, and the whole cache is swept for
+ * expired entries at most once per time to live, so the entries which are no longer looked up do not stay in memory.
+ * <p>
+ * A cache can be bounded to a maximum number of entries, in which case the entries which have been put first are
+ * evicted when a put exceeds the bound.
+ * <p>
+ * Each invalidation increments a generation, so a value which has been loaded before an invalidation can be put with
+ * the generation read before loading it and does not overwrite the invalidation.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentMap<K, CacheEntry<V>> entries = new ConcurrentHashMap<>();
+    // The entries in the order they have been put, only maintained for a bounded cache.
+    private final Queue<Map.Entry<K, CacheEntry<V>>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong nextSweepTime;
+    private final long timeToLiveNanos;
+    private final boolean expireAfterAccess;
+    private final int maximumSize;
+
+    /**
+     * Creates a cache whose entries expire after the time to live from when they are put.
+     *
+     * @param timeToLive Time to live of the entries.
+     * @param timeUnit   Unit of the time to live.
+     */
+    public ExpiringCache(long timeToLive, TimeUnit timeUnit) {
+
+        this(timeToLive, timeUnit, false);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param timeToLive        Time to live of the entries.
+     * @param timeUnit          Unit of the time to live.
+     * @param expireAfterAccess True if the time to live is counted from the last lookup of an entry, false if it is
+     *                          counted from when the entry is put.
+     */
+    public ExpiringCache(long timeToLive, TimeUnit timeUnit, boolean expireAfterAccess) {
+
+        this(timeToLive, timeUnit, expireAfterAccess, 0);
+    }
+
+    /**
+     * Creates a bounded cache.
+     *
+     * @param timeToLive        Time to live of the entries.
+     * @param timeUnit          Unit of the time to live.
+     * @param expireAfterAccess True if the time to live is counted from the last lookup of an entry, false if it is
+     *                          counted from when the entry is put.
+     * @param maximumSize       Maximum number of entries, 0 if the number of entries is not bounded.
+     */
+    public ExpiringCache(long timeToLive, TimeUnit timeUnit, boolean expireAfterAccess, int maximumSize) {
+
+        this.timeToLiveNanos = timeUnit.toNanos(timeToLive);
+        this.expireAfterAccess = expireAfterAccess;
+        this.maximumSize = maximumSize;
+        this.nextSweepTime = new AtomicLong(System.nanoTime() + timeToLiveNanos);
+    }
+
+    /**
+     * Retrieves the value of a key.
+     *
+     * @param key The key.
+     * @return The value, null if there is no value or if the value has expired.
+     */
+    public V get(K key) {
+
+        long currentTime = System.nanoTime();
+        sweep(currentTime);
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (currentTime - entry.expiryTime >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        if (expireAfterAccess) {
+            entry.expiryTime = currentTime + timeToLiveNanos;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Retrieves the current generation of the cache, which has to be read before loading a value to be put.
+     *
+     * @return The current generation.
+     */
+    public long getGeneration() {
+
+        return generation.get();
+    }
+
+    /**
+     * Puts the value of a key unless the cache has been invalidated after the given generation.
+     *
+     * @param key               The key.
+     * @param value             The value.
+     * @param loadingGeneration The generation read before loading the value.
+     */
+    public void put(K key, V value, long loadingGeneration) {
+
+        CacheEntry<V> entry = new CacheEntry<>(value, System.nanoTime() + timeToLiveNanos);
+        entries.put(key, entry);
+        if (generation.get() != loadingGeneration) {
+            entries.remove(key, entry);
+            return;
+        }
+        if (maximumSize > 0) {
+            insertionOrder.add(new AbstractMap.SimpleImmutableEntry<>(key, entry));
+            evictOverflow();
+        }
+    }
+
+    /**
+     * Removes the value of a key.
+     *
+     * @param key The key.
+     */
+    public void invalidate(K key) {
+
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void invalidateAll() {
+
+        generation.incrementAndGet();
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    /**
+     * Retrieves the number of entries, including the expired entries which have not been looked up yet.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+
+        return entries.size();
+    }
+
+    // Removes the expired entries if the time to live has passed since the previous sweep.
+    private void sweep(long currentTime) {
+
+        long sweepTime = nextSweepTime.get();
+        if (currentTime - sweepTime < 0 || !nextSweepTime.compareAndSet(sweepTime, currentTime + timeToLiveNanos)) {
+            return;
+        }
+        for (Map.Entry<K, CacheEntry<V>> entry : entries.entrySet()) {
+            if (currentTime - entry.getValue().expiryTime >= 0) {
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (maximumSize > 0) {
+            // Drop the insertion order of the entries which have expired, been replaced or been invalidated.
+            insertionOrder.removeIf(entry -> entries.get(entry.getKey()) != entry.getValue());
+        }
+    }
+
+    // Evicts the entries which have been put first until the cache is within its bound.
+    private void evictOverflow() {
+
+        while (entries.size() > maximumSize) {
+            Map.Entry<K, CacheEntry<V>> eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            entries.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private static class CacheEntry<V> {
+
+        private final V value;
+        private volatile long expiryTime;
+
+        CacheEntry(V value, long expiryTime) {
+
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.wso2.password.policy.handler.cache;
+
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A singleton cache of the password policy configurations of the tenants, so the password update events do not have
+ * to retrieve and parse the connector properties from the identity governance service each time. The entries expire
+ * after the number of seconds given by the passwordPolicyConfigCacheTimeout system property, and are invalidated
+ * when the resident identity provider of the tenant is updated.
+ */
+public class PasswordPolicyConfigCache {
+
+    private static final long DEFAULT_CACHE_TIMEOUT = 300;
+    private static final PasswordPolicyConfigCache passwordPolicyConfigCache = new PasswordPolicyConfigCache();
+    private final ExpiringCache<String, PasswordPolicyConfig> cache;
+    private final boolean enabled;
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private PasswordPolicyConfigCache() {
+
+        long cacheTimeout = Long.getLong("passwordPolicyConfigCacheTimeout", DEFAULT_CACHE_TIMEOUT);
+        enabled = cacheTimeout > 0;
+        cache = new ExpiringCache<>(cacheTimeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Retrieve the singleton instance of the PasswordPolicyConfigCache.
+     *
+     * @return An instance of the PasswordPolicyConfigCache.
+     */
+    public static PasswordPolicyConfigCache getInstance() {
+
+        return passwordPolicyConfigCache;
+    }
+
+    /**
+     * Retrieves the cached configuration of a tenant.
+     *
+     * @param tenantDomain The tenant domain.
+     * @return The configuration, null if it is not cached or if the cache is disabled.
+     */
+    public PasswordPolicyConfig getValueFromCache(String tenantDomain) {
+
+        return enabled ? cache.get(tenantDomain) : null;
+    }
+
+    /**
+     * Retrieves the generation which has to be read before retrieving a configuration to be cached.
+     *
+     * @return The current generation of the cache.
+     */
+    public long getGeneration() {
+
+        return cache.getGeneration();
+    }
+
+    /**
+     * Caches the configuration of a tenant unless the cache has been invalidated after the given generation.
+     *
+     * @param tenantDomain      The tenant domain.
+     * @param config            The configuration.
+     * @param loadingGeneration The generation read before retrieving the configuration.
+     */
+    public void addToCache(String tenantDomain, PasswordPolicyConfig config, long loadingGeneration) {
+
+        if (enabled) {
+            cache.put(tenantDomain, config, loadingGeneration);
+        }
+    }
+
+    /**
+     * Removes the cached configuration of a tenant.
+     *
+     * @param tenantDomain The tenant domain.
+     */
+    public void clearCacheEntry(String tenantDomain) {
+
+        cache.invalidate(tenantDomain);
+    }
+
+    /**
+     * Removes the cached configurations of all the tenants.
+     */
+    public void clear() {
+
+        cache.invalidateAll();
+    }
+}
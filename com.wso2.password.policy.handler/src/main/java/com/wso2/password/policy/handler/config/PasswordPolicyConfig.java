@@ -0,0 +1,96 @@
+package com.wso2.password.policy.handler.config;
+
+import com.wso2.common.constant.Constants;
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.common.model.Property;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The parsed, immutable password policy configuration of a tenant.
+ */
+public final class PasswordPolicyConfig {
+
+    private final boolean commonPasswordRestrictionEnabled;
+    private final boolean claimBasedPasswordRestrictionEnabled;
+    private final boolean breachedPasswordRestrictionEnabled;
+    private final Set<String> restrictedClaims;
+
+    private PasswordPolicyConfig(boolean commonPasswordRestrictionEnabled,
+                                 boolean claimBasedPasswordRestrictionEnabled,
+                                 boolean breachedPasswordRestrictionEnabled, Set<String> restrictedClaims) {
+
+        this.commonPasswordRestrictionEnabled = commonPasswordRestrictionEnabled;
+        this.claimBasedPasswordRestrictionEnabled = claimBasedPasswordRestrictionEnabled;
+        this.breachedPasswordRestrictionEnabled = breachedPasswordRestrictionEnabled;
+        this.restrictedClaims = Collections.unmodifiableSet(restrictedClaims);
+    }
+
+    /**
+     * Parses the password policy configuration from the connector properties of a tenant.
+     *
+     * @param identityProperties The connector properties retrieved from the identity governance service.
+     * @return The password policy configuration.
+     */
+    public static PasswordPolicyConfig fromProperties(Property[] identityProperties) {
+
+        boolean isCommonPasswordRestrictionEnabled =
+                Constants.CONFIG_ENABLE_COMMON_PASSWORD_RESTRICTION_DEFAULT_VALUE;
+        boolean isClaimBasedPasswordRestrictionEnabled =
+                Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION_DEFAULT_VALUE;
+        boolean isBreachedPasswordRestrictionEnabled =
+                Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION_DEFAULT_VALUE;
+        Set<String> restrictedClaims = new LinkedHashSet<>();
+        for (Property property : identityProperties) {
+            if (property.getName().equals(
+                    Constants.CONFIG_ENABLE_COMMON_PASSWORD_RESTRICTION)) {
+                String value = property.getValue();
+                isCommonPasswordRestrictionEnabled = StringUtils.isBlank(value) ? isCommonPasswordRestrictionEnabled :
+                        Boolean.parseBoolean(value);
+            }
+            if (property.getName().equals(
+                    Constants.CONFIG_ENABLE_CLAIM_BASED_PASSWORD_RESTRICTION)) {
+                String value = property.getValue();
+                isClaimBasedPasswordRestrictionEnabled = StringUtils.isBlank(value) ?
+                        isClaimBasedPasswordRestrictionEnabled : Boolean.parseBoolean(value);
+            }
+            if (property.getName().equals(
+                    Constants.CONFIG_ENABLE_BREACHED_PASSWORD_RESTRICTION)) {
+                String value = property.getValue();
+                isBreachedPasswordRestrictionEnabled = StringUtils.isBlank(value) ?
+                        isBreachedPasswordRestrictionEnabled : Boolean.parseBoolean(value);
+            }
+            if (property.getName().equals(Constants.CONFIG_RESTRICTED_CLAIMS)) {
+                String value = property.getValue().replaceAll("[\\[\\]]", "");
+                if (StringUtils.isNotBlank(value)) {
+                    restrictedClaims = new LinkedHashSet<>(Arrays.asList(value.split(", ")));
+                }
+            }
+        }
+        return new PasswordPolicyConfig(isCommonPasswordRestrictionEnabled, isClaimBasedPasswordRestrictionEnabled,
+                isBreachedPasswordRestrictionEnabled, restrictedClaims);
+    }
+
+    public boolean isCommonPasswordRestrictionEnabled() {
+
+        return commonPasswordRestrictionEnabled;
+    }
+
+    public boolean isClaimBasedPasswordRestrictionEnabled() {
+
+        return claimBasedPasswordRestrictionEnabled;
+    }
+
+    public boolean isBreachedPasswordRestrictionEnabled() {
+
+        return breachedPasswordRestrictionEnabled;
+    }
+
+    public Set<String> getRestrictedClaims() {
+
+        return restrictedClaims;
+    }
+}
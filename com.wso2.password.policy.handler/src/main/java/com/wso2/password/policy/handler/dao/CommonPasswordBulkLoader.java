@@ -0,0 +1,626 @@
+package com.wso2.password.policy.handler.dao;
+
+import com.wso2.common.constant.Constants;
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.dictionary.impl.MappedCommonPasswordDictionary;
+import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Streams a common password file into the common password store in chunks. Each chunk is committed in its own
+ * transaction together with the number of lines loaded so far, so an interrupted load resumes from the last committed
+ * chunk instead of starting over, and neither the driver nor the database has to hold the whole file at once.
+ * <p>
+ * The SHA-256 hash of the loaded file is recorded with the progress, so a reload of an unchanged file does not touch
+ * the store and a changed file is applied as a diff against the stored common passwords, which is committed in chunks
+ * as well.
+ */
+public class CommonPasswordBulkLoader {
+
+    private static final Log log = LogFactory.getLog(CommonPasswordBulkLoader.class);
+    private static final String COMPLETED = "Y";
+    private static final String NOT_COMPLETED = "N";
+    private static final String SYNCHRONIZING = "S";
+    private static final int MAX_FETCH_SIZE = 1000;
+    private static final int DEFAULT_SORT_RUN_SIZE = 200000;
+
+    private final int chunkSize;
+    private final boolean nGramLookupEnabled;
+
+    /**
+     * Creates a loader.
+     *
+     * @param chunkSize          Number of lines committed per transaction.
+     * @param nGramLookupEnabled Whether the n-gram side table has to be populated as well.
+     */
+    public CommonPasswordBulkLoader(int chunkSize, boolean nGramLookupEnabled) {
+
+        this.chunkSize = Math.max(1, chunkSize);
+        this.nGramLookupEnabled = nGramLookupEnabled;
+    }
+
+    /**
+     * Checks whether a previous load or synchronization of the given file has not been completed.
+     *
+     * @param source Path of the common password file.
+     * @return True if there is a load to be resumed, false if else.
+     * @throws WSO2Exception If an error occurs while reading the load state.
+     */
+    public boolean hasPendingLoad(Path source) throws WSO2Exception {
+
+        LoadState loadState = readLoadState(getSourceName(source));
+        return loadState != null && !COMPLETED.equals(loadState.status);
+    }
+
+    /**
+     * Synchronizes the store with the given file. Nothing is written if the content of the file has not changed since
+     * the last completed load and an interrupted load is resumed. Otherwise only the common passwords which have been
+     * added to or removed from the file are inserted to or deleted from the store, which also applies to a store
+     * populated without a recorded load, such as by an earlier version of this component.
+     *
+     * @param source Path of the common password file, either a text file or a compiled dictionary.
+     * @return Number of common passwords or lines of the file which have been written to the store.
+     * @throws WSO2Exception If an error occurs while reading the file or while writing to the store.
+     */
+    public int sync(Path source) throws WSO2Exception {
+
+        String sourceName = getSourceName(source);
+        String fingerprint = getFingerprint(source);
+        LoadState loadState = readLoadState(sourceName);
+        if (loadState == null ? isStoreEmpty() :
+                NOT_COMPLETED.equals(loadState.status) && fingerprint.equals(loadState.fingerprint)) {
+            return load(source, fingerprint);
+        }
+        if (loadState != null && COMPLETED.equals(loadState.status) && fingerprint.equals(loadState.fingerprint)) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("The common password file %s has not changed since the last load.",
+                        sourceName));
+            }
+            return 0;
+        }
+        // The store holds the common passwords of another version of the file, completely or partially loaded, so it
+        // is synchronized with the file by their differences.
+        return applyChanges(source, fingerprint, loadState);
+    }
+
+    /**
+     * Loads the common passwords of the given file to the store. If a previous load of the same, unchanged file has
+     * been interrupted, the load continues after the last committed chunk. If the store has been loaded from another
+     * version of the file, the common passwords of that version are removed first, so none of them is left in the
+     * store once the load of this version is completed.
+     *
+     * @param source Path of the common password file, either a text file or a compiled dictionary.
+     * @return Number of lines of the file which have been loaded in this invocation.
+     * @throws WSO2Exception If an error occurs while reading the file or while writing to the store.
+     */
+    public int load(Path source) throws WSO2Exception {
+
+        return load(source, getFingerprint(source));
+    }
+
+    private int load(Path source, String fingerprint) throws WSO2Exception {
+
+        String sourceName = getSourceName(source);
+        Connection connection = null;
+        try (CommonPasswordSource commonPasswords = CommonPasswordSource.open(source)) {
+            connection = CommonPasswordDBUtils.getDBConnection(true);
+            SQLDialect dialect = SQLDialect.fromConnection(connection);
+            LoadState loadState = getLoadState(connection, sourceName);
+            int skippedLines = 0;
+            if (loadState != null && NOT_COMPLETED.equals(loadState.status) &&
+                    fingerprint.equals(loadState.fingerprint)) {
+                skippedLines = loadState.loadedLines;
+                log.info(String.format("Resuming the common password load of %s after %d lines.", sourceName,
+                        skippedLines));
+            } else if (loadState != null && (SYNCHRONIZING.equals(loadState.status) ||
+                    !fingerprint.equals(loadState.fingerprint))) {
+                clearStore(connection, sourceName, fingerprint);
+            }
+            for (int i = 0; i < skippedLines && commonPasswords.next() != null; i++) {
+                // Skip the lines which have already been committed.
+            }
+
+            int loadedLines = skippedLines;
+            try (PreparedStatement prepStmtIns = connection.prepareStatement(
+                    dialect.getInsertIgnoreQuery(Constants.TABLE_NAME, "PASSWORD"));
+                 PreparedStatement prepStmtNGramIns = nGramLookupEnabled ? connection.prepareStatement(
+                         dialect.getInsertIgnoreQuery(Constants.NGRAM_TABLE_NAME, "NGRAM", "PASSWORD")) : null) {
+                int chunkLines = 0;
+                String password;
+                while ((password = commonPasswords.next()) != null) {
+                    loadedLines++;
+                    chunkLines++;
+                    if (StringUtils.isNotBlank(password)) {
+                        addToBatch(prepStmtIns, prepStmtNGramIns, password);
+                    }
+                    if (chunkLines == chunkSize) {
+                        commitChunk(connection, prepStmtIns, prepStmtNGramIns, sourceName, fingerprint, loadedLines,
+                                NOT_COMPLETED);
+                        log.info(String.format("Loaded %d lines of the common password file %s.", loadedLines,
+                                sourceName));
+                        chunkLines = 0;
+                    }
+                }
+                if (chunkLines > 0) {
+                    commitChunk(connection, prepStmtIns, prepStmtNGramIns, sourceName, fingerprint, loadedLines,
+                            NOT_COMPLETED);
+                }
+            }
+            saveLoadState(connection, sourceName, fingerprint, loadedLines, COMPLETED);
+            IdentityDatabaseUtil.commitTransaction(connection);
+            return loadedLines - skippedLines;
+        } catch (SQLException exception) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getCode(),
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getMessage(),
+                    exception
+            );
+        } catch (IOException exception) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getCode(),
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getMessage(),
+                    exception
+            );
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Removes the common passwords loaded from another version of the file, and records the load of the new version
+     * from its first line in the same transaction, so an interrupted load of the new version is resumed instead of
+     * clearing the store again.
+     */
+    private void clearStore(Connection connection, String sourceName, String fingerprint) throws SQLException {
+
+        try (PreparedStatement prepStmtDel = connection.prepareStatement(Constants.DELETE_ALL_COMMON_PASSWORDS)) {
+            prepStmtDel.executeUpdate();
+        }
+        if (nGramLookupEnabled) {
+            try (PreparedStatement prepStmtNGramDel = connection.prepareStatement(
+                    Constants.DELETE_ALL_COMMON_PASSWORD_NGRAMS)) {
+                prepStmtNGramDel.executeUpdate();
+            }
+        }
+        saveLoadState(connection, sourceName, fingerprint, 0, NOT_COMPLETED);
+        IdentityDatabaseUtil.commitTransaction(connection);
+        log.info(String.format("Removed the common passwords of a previous version of %s before loading it.",
+                sourceName));
+    }
+
+    /**
+     * Inserts the common passwords which are in the file but not in the store, and deletes the ones which are in the
+     * store but not in the file. The sorted common passwords of the file are merged with the stored ones read in the
+     * same order, and the changes are committed in chunks together with the number of changes applied so far, so
+     * neither side is held in memory and the store is not locked for the whole synchronization. The n-gram side table
+     * is synchronized the same way with the normalized common passwords of the file.
+     * <p>
+     * A synchronization does not have to be resumed from a position, since the changes committed before an
+     * interruption are no longer differences when the file and the store are merged again. If the database does not
+     * return the stored common passwords in the order of the file, the store is cleared and loaded instead.
+     */
+    private int applyChanges(Path source, String fingerprint, LoadState loadState) throws WSO2Exception {
+
+        String sourceName = getSourceName(source);
+        int appliedChanges = 0;
+        if (loadState != null && SYNCHRONIZING.equals(loadState.status) && fingerprint.equals(loadState.fingerprint)) {
+            appliedChanges = loadState.loadedLines;
+            log.info(String.format("Resuming the synchronization of the common password store with %s after %d "
+                    + "changes.", sourceName, appliedChanges));
+        }
+        Connection connection = null;
+        Connection cursorConnection = null;
+        try {
+            connection = CommonPasswordDBUtils.getDBConnection(true);
+            // The stored common passwords are read through a connection of their own, since some drivers do not allow
+            // other statements on a connection while a result set is streamed, and PostgreSQL streams the rows only
+            // outside of the auto commit mode.
+            cursorConnection = CommonPasswordDBUtils.getDBConnection(true);
+            SQLDialect dialect = SQLDialect.fromConnection(connection);
+            int changes;
+            try (PreparedStatement prepStmtIns = connection.prepareStatement(
+                    dialect.getInsertIgnoreQuery(Constants.TABLE_NAME, "PASSWORD"));
+                 PreparedStatement prepStmtDel = connection.prepareStatement(Constants.DELETE_COMMON_PASSWORD)) {
+                changes = mergeChanges(source, false, connection, cursorConnection, dialect, Constants.TABLE_NAME,
+                        prepStmtIns, prepStmtDel, sourceName, fingerprint, appliedChanges);
+            }
+            if (nGramLookupEnabled) {
+                try (PreparedStatement prepStmtNGramIns = connection.prepareStatement(
+                        dialect.getInsertIgnoreQuery(Constants.NGRAM_TABLE_NAME, "NGRAM", "PASSWORD"));
+                     PreparedStatement prepStmtNGramDel = connection.prepareStatement(
+                             Constants.DELETE_COMMON_PASSWORD_NGRAMS)) {
+                    changes = mergeChanges(source, true, connection, cursorConnection, dialect,
+                            Constants.NGRAM_TABLE_NAME, prepStmtNGramIns, prepStmtNGramDel, sourceName, fingerprint,
+                            changes);
+                }
+            }
+            saveLoadState(connection, sourceName, fingerprint, changes, COMPLETED);
+            IdentityDatabaseUtil.commitTransaction(connection);
+            log.info(String.format("Synchronized the common password store with %s: %d changes applied.",
+                    sourceName, changes - appliedChanges));
+            return changes - appliedChanges;
+        } catch (StoreOrderException exception) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            log.warn(String.format("The database does not return the common passwords in the order of the file, so "
+                    + "the common password store is cleared and loaded from %s instead.", sourceName));
+        } catch (SQLException exception) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getCode(),
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getMessage(),
+                    exception
+            );
+        } catch (IOException exception) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getCode(),
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getMessage(),
+                    exception
+            );
+        } finally {
+            IdentityDatabaseUtil.rollbackTransaction(cursorConnection);
+            IdentityDatabaseUtil.closeConnection(cursorConnection);
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+        // The load state of a synchronization makes the load clear the store first.
+        try {
+            connection = CommonPasswordDBUtils.getDBConnection(true);
+            saveLoadState(connection, sourceName, fingerprint, 0, SYNCHRONIZING);
+            IdentityDatabaseUtil.commitTransaction(connection);
+        } catch (SQLException exception) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getCode(),
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getMessage(),
+                    exception
+            );
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+        return load(source, fingerprint);
+    }
+
+    /**
+     * Merges the sorted common passwords of the file, normalized if required, with the distinct values of the
+     * PASSWORD column of a table, and inserts the missing ones and deletes the removed ones through the given
+     * statements, committing every chunkSize changes.
+     *
+     * @return The number of changes applied so far, including the given ones.
+     */
+    private int mergeChanges(Path source, boolean normalized, Connection connection, Connection cursorConnection,
+                             SQLDialect dialect, String tableName, PreparedStatement prepStmtIns,
+                             PreparedStatement prepStmtDel, String sourceName, String fingerprint, int appliedChanges)
+            throws SQLException, IOException, StoreOrderException {
+
+        int changes = appliedChanges;
+        try (CommonPasswordSorter filePasswords = sortCommonPasswords(source, normalized);
+             PreparedStatement prepStmtSel = cursorConnection.prepareStatement(
+                     dialect.getSelectInBinaryOrderQuery(tableName, "PASSWORD"))) {
+            prepStmtSel.setFetchSize(dialect.getStreamingFetchSize(Math.min(chunkSize, MAX_FETCH_SIZE)));
+            try (ResultSet resultSet = prepStmtSel.executeQuery()) {
+                String filePassword = filePasswords.next();
+                String storedPassword = nextStoredPassword(resultSet, null);
+                int chunkChanges = 0;
+                while (filePassword != null || storedPassword != null) {
+                    int comparison = filePassword == null ? 1 :
+                            storedPassword == null ? -1 : filePassword.compareTo(storedPassword);
+                    if (comparison < 0) {
+                        if (normalized) {
+                            addNGramsToBatch(prepStmtIns, filePassword);
+                        } else {
+                            prepStmtIns.setString(1, filePassword);
+                            prepStmtIns.addBatch();
+                        }
+                        filePassword = filePasswords.next();
+                    } else if (comparison > 0) {
+                        prepStmtDel.setString(1, storedPassword);
+                        prepStmtDel.addBatch();
+                        storedPassword = nextStoredPassword(resultSet, storedPassword);
+                    } else {
+                        filePassword = filePasswords.next();
+                        storedPassword = nextStoredPassword(resultSet, storedPassword);
+                        continue;
+                    }
+                    changes++;
+                    if (++chunkChanges == chunkSize) {
+                        commitChunk(connection, prepStmtIns, prepStmtDel, sourceName, fingerprint, changes,
+                                SYNCHRONIZING);
+                        log.info(String.format("Applied %d changes of the common password file %s.", changes,
+                                sourceName));
+                        chunkChanges = 0;
+                    }
+                }
+                if (chunkChanges > 0) {
+                    commitChunk(connection, prepStmtIns, prepStmtDel, sourceName, fingerprint, changes,
+                            SYNCHRONIZING);
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Reads the next stored common password, and checks that it follows the previous one in the order of the file.
+     */
+    private static String nextStoredPassword(ResultSet resultSet, String previousPassword)
+            throws SQLException, StoreOrderException {
+
+        if (!resultSet.next()) {
+            return null;
+        }
+        String password = resultSet.getString(1);
+        if (previousPassword != null && password.compareTo(previousPassword) <= 0) {
+            throw new StoreOrderException();
+        }
+        return password;
+    }
+
+    /**
+     * Sorts the distinct, non blank common passwords of a file, normalized if required, holding at most
+     * commonPasswordSyncSortRunSize of them in memory.
+     */
+    private static CommonPasswordSorter sortCommonPasswords(Path source, boolean normalized) throws IOException {
+
+        CommonPasswordSorter sorter = new CommonPasswordSorter(Integer.getInteger("commonPasswordSyncSortRunSize",
+                DEFAULT_SORT_RUN_SIZE));
+        try (CommonPasswordSource commonPasswords = CommonPasswordSource.open(source)) {
+            String password;
+            while ((password = commonPasswords.next()) != null) {
+                if (StringUtils.isNotBlank(password)) {
+                    sorter.add(normalized ? PasswordPolicyHandlerUtils.normalizeCredential(password) : password);
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            sorter.close();
+            throw exception;
+        }
+        return sorter;
+    }
+
+    private boolean isStoreEmpty() throws WSO2Exception {
+
+        Connection connection = null;
+        try {
+            connection = CommonPasswordDBUtils.getDBConnection(false);
+            try (PreparedStatement prepStmtSel = connection.prepareStatement(Constants.SELECT_ALL_COMMON_PASSWORDS)) {
+                prepStmtSel.setMaxRows(1);
+                try (ResultSet resultSet = prepStmtSel.executeQuery()) {
+                    return !resultSet.next();
+                }
+            }
+        } catch (SQLException exception) {
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getCode(),
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getMessage(),
+                    exception
+            );
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    private static void executeBatches(PreparedStatement prepStmt, PreparedStatement nGramPrepStmt)
+            throws SQLException {
+
+        prepStmt.executeBatch();
+        if (nGramPrepStmt != null) {
+            nGramPrepStmt.executeBatch();
+        }
+    }
+
+    /**
+     * Execute the batches of a chunk and commit them together with the progress of the load or synchronization.
+     */
+    private static void commitChunk(Connection connection, PreparedStatement prepStmt, PreparedStatement nGramPrepStmt,
+                                    String sourceName, String fingerprint, int progress, String status)
+            throws SQLException {
+
+        executeBatches(prepStmt, nGramPrepStmt);
+        saveLoadState(connection, sourceName, fingerprint, progress, status);
+        IdentityDatabaseUtil.commitTransaction(connection);
+    }
+
+    /**
+     * Add a common password, and its n-grams if the n-gram lookup is enabled, to the insert batches.
+     */
+    private void addToBatch(PreparedStatement prepStmtIns, PreparedStatement prepStmtNGramIns, String password)
+            throws SQLException {
+
+        prepStmtIns.setString(1, password);
+        prepStmtIns.addBatch();
+        if (prepStmtNGramIns != null) {
+            addNGramsToBatch(prepStmtNGramIns, PasswordPolicyHandlerUtils.normalizeCredential(password));
+        }
+    }
+
+    /**
+     * Add the n-grams of a normalized common password to the n-gram insert batch.
+     */
+    private static void addNGramsToBatch(PreparedStatement prepStmtNGramIns, String processedPassword)
+            throws SQLException {
+
+        for (String nGram : PasswordPolicyHandlerUtils.getNGrams(processedPassword, Constants.NGRAM_LENGTH,
+                Integer.MAX_VALUE)) {
+            prepStmtNGramIns.setString(1, nGram);
+            prepStmtNGramIns.setString(2, processedPassword);
+            prepStmtNGramIns.addBatch();
+        }
+    }
+
+    private static LoadState readLoadState(String sourceName) throws WSO2Exception {
+
+        Connection connection = null;
+        try {
+            connection = CommonPasswordDBUtils.getDBConnection(false);
+            return getLoadState(connection, sourceName);
+        } catch (SQLException exception) {
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getCode(),
+                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getMessage(),
+                    exception
+            );
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    private static LoadState getLoadState(Connection connection, String sourceName) throws SQLException {
+
+        try (PreparedStatement prepStmtSel = connection.prepareStatement(Constants.SELECT_LOAD_STATE)) {
+            prepStmtSel.setString(1, sourceName);
+            try (ResultSet resultSet = prepStmtSel.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return new LoadState(resultSet.getString(1), resultSet.getInt(2), resultSet.getString(3));
+            }
+        }
+    }
+
+    private static void saveLoadState(Connection connection, String sourceName, String fingerprint, int loadedLines,
+                                      String status) throws SQLException {
+
+        try (PreparedStatement prepStmtUpd = connection.prepareStatement(Constants.UPDATE_LOAD_STATE)) {
+            setLoadState(prepStmtUpd, sourceName, fingerprint, loadedLines, status);
+            if (prepStmtUpd.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement prepStmtIns = connection.prepareStatement(Constants.INSERT_LOAD_STATE)) {
+            setLoadState(prepStmtIns, sourceName, fingerprint, loadedLines, status);
+            prepStmtIns.executeUpdate();
+        }
+    }
+
+    private static void setLoadState(PreparedStatement prepStmt, String sourceName, String fingerprint,
+                                     int loadedLines, String status) throws SQLException {
+
+        prepStmt.setString(1, fingerprint);
+        prepStmt.setInt(2, loadedLines);
+        prepStmt.setString(3, status);
+        prepStmt.setString(4, sourceName);
+    }
+
+    private static String getSourceName(Path source) {
+
+        return source.getFileName().toString();
+    }
+
+    // Identifies the content of the file, so that a changed file is neither resumed nor skipped.
+    private static String getFingerprint(Path source) throws WSO2Exception {
+
+        try (InputStream inputStream = Files.newInputStream(source)) {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+            StringBuilder fingerprint = new StringBuilder();
+            for (byte digestByte : messageDigest.digest()) {
+                fingerprint.append(Character.forDigit((digestByte >> 4) & 0xF, 16))
+                        .append(Character.forDigit(digestByte & 0xF, 16));
+            }
+            return fingerprint.toString();
+        } catch (IOException | NoSuchAlgorithmException exception) {
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getCode(),
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getMessage(),
+                    exception
+            );
+        }
+    }
+
+    /**
+     * The persisted progress of loading a common password file, which is the number of lines loaded so far, or the
+     * number of changes applied so far while the store is synchronized with the file.
+     */
+    private static class LoadState {
+
+        private final String fingerprint;
+        private final int loadedLines;
+        private final String status;
+
+        LoadState(String fingerprint, int loadedLines, String status) {
+
+            this.fingerprint = fingerprint;
+            this.loadedLines = loadedLines;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Signals that the stored common passwords are not returned in the order of the sorted common passwords of the
+     * file, as the collation of the column does not order them by their characters.
+     */
+    private static class StoreOrderException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Streams the common passwords of a text file line by line, or of a compiled dictionary entry by entry.
+     */
+    private static class CommonPasswordSource implements Closeable {
+
+        private final BufferedReader bufferedReader;
+        private final Iterator<String> entries;
+
+        private CommonPasswordSource(BufferedReader bufferedReader, Iterator<String> entries) {
+
+            this.bufferedReader = bufferedReader;
+            this.entries = entries;
+        }
+
+        static CommonPasswordSource open(Path source) throws IOException {
+
+            if (MappedCommonPasswordDictionary.isCompiledDictionary(source)) {
+                return new CommonPasswordSource(null,
+                        MappedCommonPasswordDictionary.open(source).getEntries().iterator());
+            }
+            return new CommonPasswordSource(Files.newBufferedReader(source, StandardCharsets.UTF_8), null);
+        }
+
+        /**
+         * Reads the next common password.
+         *
+         * @return The next common password, null if the end of the source has been reached.
+         * @throws IOException If an error occurs while reading the source.
+         */
+        String next() throws IOException {
+
+            if (entries != null) {
+                return entries.hasNext() ? entries.next() : null;
+            }
+            return bufferedReader.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            if (bufferedReader != null) {
+                bufferedReader.close();
+            }
+        }
+    }
+}
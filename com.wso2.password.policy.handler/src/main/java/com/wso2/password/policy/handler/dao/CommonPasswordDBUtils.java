@@ -0,0 +1,107 @@
+package com.wso2.password.policy.handler.dao;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+/**
+ * Provides the DB connections of the common password store. The connections are taken from the identity database
+ * unless the common password store has a data source of its own, bound to the JNDI name given by the
+ * commonPasswordDataSource system property.
+ */
+public class CommonPasswordDBUtils {
+
+    // The data sources bound to the JNDI names of the commonPasswordDataSource and commonPasswordLookupDataSource
+    // system properties, which are looked up once instead of for each connection.
+    private static volatile DataSource storeDataSource;
+    private static volatile DataSource lookupDataSource;
+
+    private CommonPasswordDBUtils() {
+
+    }
+
+    /**
+     * Retrieves a DB connection of the common password store.
+     *
+     * @param shouldApplyTransaction Whether the auto commit of the connection has to be disabled.
+     * @return A DB connection.
+     * @throws SQLException If the connection cannot be retrieved.
+     */
+    public static Connection getDBConnection(boolean shouldApplyTransaction) throws SQLException {
+
+        DataSource currentDataSource = getStoreDataSource();
+        if (currentDataSource == null) {
+            try {
+                return IdentityDatabaseUtil.getDBConnection(shouldApplyTransaction);
+            } catch (IdentityRuntimeException exception) {
+                throw new SQLException("An error occurred while retrieving a connection of the identity database.",
+                        exception);
+            }
+        }
+        Connection connection = currentDataSource.getConnection();
+        try {
+            // The auto commit mode is only set if it differs, since setting it is a round trip on some drivers.
+            if (connection.getAutoCommit() == shouldApplyTransaction) {
+                connection.setAutoCommit(!shouldApplyTransaction);
+            }
+        } catch (SQLException exception) {
+            IdentityDatabaseUtil.closeConnection(connection);
+            throw exception;
+        }
+        return connection;
+    }
+
+    /**
+     * Retrieves the dedicated data source of the common password store, which is bound to the JNDI name given by the
+     * commonPasswordDataSource system property.
+     *
+     * @return The data source, or null if the common password store is kept in the identity database.
+     * @throws SQLException If no data source is bound to the JNDI name.
+     */
+    private static DataSource getStoreDataSource() throws SQLException {
+
+        DataSource currentDataSource = storeDataSource;
+        String storeDataSourceName = System.getProperty("commonPasswordDataSource");
+        if (currentDataSource == null && StringUtils.isNotBlank(storeDataSourceName)) {
+            currentDataSource = lookUpDataSource(storeDataSourceName);
+            storeDataSource = currentDataSource;
+        }
+        return currentDataSource;
+    }
+
+    /**
+     * Retrieves the dedicated data source of the common password lookups, which is the data source bound to the JNDI
+     * name given by the commonPasswordLookupDataSource system property, such as a read replica, or else the dedicated
+     * data source of the common password store, so the lookups do not compete with the authentication traffic for the
+     * connections of the identity database.
+     *
+     * @return The data source, or null if the lookups use the identity database.
+     * @throws SQLException If no data source is bound to the JNDI name.
+     */
+    static DataSource getLookupDataSource() throws SQLException {
+
+        DataSource currentDataSource = lookupDataSource;
+        String lookupDataSourceName = System.getProperty("commonPasswordLookupDataSource");
+        if (currentDataSource == null && StringUtils.isNotBlank(lookupDataSourceName)) {
+            currentDataSource = lookUpDataSource(lookupDataSourceName);
+            lookupDataSource = currentDataSource;
+        }
+        return currentDataSource != null ? currentDataSource : getStoreDataSource();
+    }
+
+    private static DataSource lookUpDataSource(String dataSourceName) throws SQLException {
+
+        try {
+            return (DataSource) InitialContext.doLookup(dataSourceName);
+        } catch (NamingException exception) {
+            throw new SQLException("The common password data source " + dataSourceName + " could not be found.",
+                    exception);
+        }
+    }
+}
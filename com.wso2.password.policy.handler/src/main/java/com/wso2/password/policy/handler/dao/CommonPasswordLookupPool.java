@@ -0,0 +1,271 @@
+package com.wso2.password.policy.handler.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+/**
+ * A singleton pool of the read-only auto commit DB connections which look up the common passwords, each with its
+ * prepared statements cached, so a lookup neither takes a connection from the pool of the data source nor prepares a
+ * statement. The connections are only pooled when the lookups have a dedicated data source, since the idle
+ * connections of the identity database would be held away from the authentication traffic. Without one, each lookup
+ * takes a connection of the identity database and closes it right away.
+ * <p>
+ * At most the number of connections given by the commonPasswordLookupPoolSize system property are opened on the
+ * dedicated data source, and the lookups wait for the database for at most the number of seconds given by the
+ * commonPasswordLookupTimeout system property. When all the connections are borrowed, a lookup fails if no connection
+ * is released within the same timeout, or waits until one is released if the commonPasswordLookupPoolExhaustedAction
+ * system property is set to queue. A saturated pool never takes connections of the identity database.
+ * <p>
+ * A connection is borrowed and released by the same thread:
+ * <pre>
+ * CommonPasswordLookupPool.LookupConnection connection = null;
+ * try {
+ *     connection = lookupPool.getConnection();
+ *     ...
+ * } catch (SQLException exception) {
+ *     lookupPool.discardConnection(connection);
+ *     connection = null;
+ * } finally {
+ *     lookupPool.releaseConnection(connection);
+ * }
+ * </pre>
+ */
+public class CommonPasswordLookupPool {
+
+    private static final Log log = LogFactory.getLog(CommonPasswordLookupPool.class);
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int DEFAULT_LOOKUP_TIMEOUT = 2;
+    private static final String QUEUE_WHEN_EXHAUSTED = "queue";
+    // The idle connections are validated before being reused, since the database may have closed them meanwhile.
+    private static final long VALIDATION_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+    private static final CommonPasswordLookupPool commonPasswordLookupPool = new CommonPasswordLookupPool();
+
+    private final int lookupTimeout;
+    private final boolean queueWhenExhausted;
+    private final Semaphore availableConnections;
+    // The most recently released connection is reused first, since it is the least likely to have been closed.
+    private final ConcurrentLinkedDeque<LookupConnection> idleConnections = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private CommonPasswordLookupPool() {
+
+        lookupTimeout = Math.max(0, Integer.getInteger("commonPasswordLookupTimeout", DEFAULT_LOOKUP_TIMEOUT));
+        queueWhenExhausted = QUEUE_WHEN_EXHAUSTED.equalsIgnoreCase(
+                System.getProperty("commonPasswordLookupPoolExhaustedAction"));
+        availableConnections = new Semaphore(Math.max(1, Integer.getInteger("commonPasswordLookupPoolSize",
+                DEFAULT_POOL_SIZE)));
+    }
+
+    /**
+     * Retrieve the singleton instance of the CommonPasswordLookupPool.
+     *
+     * @return An instance of the CommonPasswordLookupPool.
+     */
+    public static CommonPasswordLookupPool getInstance() {
+
+        return commonPasswordLookupPool;
+    }
+
+    /**
+     * Borrows a connection of the pool, opening a new one if none of the idle connections can be reused, or opens a
+     * connection of the identity database if the lookups do not have a dedicated data source. The connections of the
+     * identity database are used as they are, since marking them read-only costs round trips to the database on each
+     * lookup instead of once per pooled connection.
+     *
+     * @return A connection, which has to be released or discarded by the calling thread.
+     * @throws SQLException If a connection cannot be opened, or if all the pooled connections are borrowed and none is
+     *                      released within the lookup timeout.
+     */
+    public LookupConnection getConnection() throws SQLException {
+
+        DataSource lookupDataSource = CommonPasswordDBUtils.getLookupDataSource();
+        if (lookupDataSource == null) {
+            return new LookupConnection(CommonPasswordDBUtils.getDBConnection(false), lookupTimeout, false, false);
+        }
+        try {
+            if (queueWhenExhausted) {
+                availableConnections.acquire();
+            } else if (!availableConnections.tryAcquire(lookupTimeout, TimeUnit.SECONDS)) {
+                throw new SQLTransientConnectionException("None of the common password lookup connections has been "
+                        + "released within " + lookupTimeout + " seconds.");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a common password lookup "
+                    + "connection.", exception);
+        }
+
+        try {
+            LookupConnection connection;
+            while ((connection = idleConnections.pollFirst()) != null) {
+                if (connection.isReusable()) {
+                    return connection;
+                }
+                connection.close();
+            }
+            return openReadOnlyConnection(lookupDataSource);
+        } catch (SQLException | RuntimeException exception) {
+            availableConnections.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * Opens a pooled read-only auto commit connection of the dedicated data source. The state of the connection is
+     * only changed if it differs, since each change is a round trip to the database on some drivers.
+     */
+    private LookupConnection openReadOnlyConnection(DataSource lookupDataSource) throws SQLException {
+
+        Connection connection = lookupDataSource.getConnection();
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.setAutoCommit(true);
+            }
+            boolean readOnlyApplied = !connection.isReadOnly();
+            if (readOnlyApplied) {
+                connection.setReadOnly(true);
+            }
+            return new LookupConnection(connection, lookupTimeout, true, readOnlyApplied);
+        } catch (SQLException exception) {
+            IdentityDatabaseUtil.closeConnection(connection);
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns a healthy connection to the pool, or closes it if it is not pooled.
+     *
+     * @param connection The connection, or null if no connection has been borrowed.
+     */
+    public void releaseConnection(LookupConnection connection) {
+
+        if (connection == null) {
+            return;
+        }
+        if (!connection.pooled) {
+            connection.close();
+            return;
+        }
+        connection.lastUsedTime = System.nanoTime();
+        idleConnections.offerFirst(connection);
+        availableConnections.release();
+    }
+
+    /**
+     * Closes a connection which may be broken instead of returning it to the pool.
+     *
+     * @param connection The connection, or null if no connection has been borrowed.
+     */
+    public void discardConnection(LookupConnection connection) {
+
+        if (connection != null) {
+            connection.close();
+            if (connection.pooled) {
+                availableConnections.release();
+            }
+        }
+    }
+
+    /**
+     * Closes the idle connections, which returns them to the pool of their data source. The connections which are
+     * borrowed at the moment are returned to this pool and reused.
+     */
+    public void closeIdleConnections() {
+
+        LookupConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * A DB connection with the prepared statements of the lookups, which have to be used by the thread which borrowed
+     * the connection only.
+     */
+    public static final class LookupConnection {
+
+        private final Connection connection;
+        private final int queryTimeout;
+        private final boolean pooled;
+        // Whether the connection has been marked read-only by this pool, and has to be unmarked when it is closed.
+        private final boolean readOnlyApplied;
+        private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+        private long lastUsedTime = System.nanoTime();
+
+        private LookupConnection(Connection connection, int queryTimeout, boolean pooled, boolean readOnlyApplied) {
+
+            this.connection = connection;
+            this.queryTimeout = queryTimeout;
+            this.pooled = pooled;
+            this.readOnlyApplied = readOnlyApplied;
+        }
+
+        /**
+         * Retrieves the prepared statement of a query, preparing it on the first use of the query with this
+         * connection. The statement must not be closed.
+         *
+         * @param sql The SQL query.
+         * @return The prepared statement.
+         * @throws SQLException If the statement cannot be prepared.
+         */
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+
+            PreparedStatement preparedStatement = preparedStatements.get(sql);
+            if (preparedStatement == null) {
+                preparedStatement = connection.prepareStatement(sql);
+                preparedStatement.setQueryTimeout(queryTimeout);
+                preparedStatements.put(sql, preparedStatement);
+            }
+            return preparedStatement;
+        }
+
+        private boolean isReusable() {
+
+            if (System.nanoTime() - lastUsedTime < VALIDATION_INTERVAL) {
+                return true;
+            }
+            try {
+                return connection.isValid(queryTimeout);
+            } catch (SQLException exception) {
+                return false;
+            }
+        }
+
+        private void close() {
+
+            for (PreparedStatement preparedStatement : preparedStatements.values()) {
+                try {
+                    preparedStatement.close();
+                } catch (SQLException exception) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("An error occurred while closing a common password lookup statement.", exception);
+                    }
+                }
+            }
+            preparedStatements.clear();
+            if (readOnlyApplied) {
+                // The connection is returned to the pool of its data source in the state it has been taken in.
+                try {
+                    connection.setReadOnly(false);
+                } catch (SQLException exception) {
+                    // The connection is closed anyway.
+                }
+            }
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+}
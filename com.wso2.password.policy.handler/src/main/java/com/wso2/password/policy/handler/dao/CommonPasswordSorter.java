@@ -0,0 +1,203 @@
+package com.wso2.password.policy.handler.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts common passwords which do not have to fit in memory. The common passwords are collected in runs of a bounded
+ * size, and each full run is sorted and written to a temporary file. The runs are then merged, so the common passwords
+ * are read back in the natural order of the strings without duplicates while only one run is held in memory.
+ */
+final class CommonPasswordSorter implements Closeable {
+
+    private final int runSize;
+    private final List<Path> runFiles = new ArrayList<>();
+    private final List<RunReader> runReaders = new ArrayList<>();
+    private List<String> run = new ArrayList<>();
+    private Iterator<String> inMemoryRun;
+    private PriorityQueue<RunReader> runHeads;
+    private String previous;
+
+    /**
+     * Creates a sorter.
+     *
+     * @param runSize Maximum number of common passwords held in memory.
+     */
+    CommonPasswordSorter(int runSize) {
+
+        this.runSize = Math.max(1, runSize);
+    }
+
+    /**
+     * Adds a common password. All the common passwords have to be added before the first one is read.
+     *
+     * @param password The common password.
+     * @throws IOException If the full run cannot be written to a temporary file.
+     */
+    void add(String password) throws IOException {
+
+        if (inMemoryRun != null || runHeads != null) {
+            throw new IllegalStateException("The common passwords are already being read.");
+        }
+        run.add(password);
+        if (run.size() == runSize) {
+            writeRun();
+        }
+    }
+
+    /**
+     * Reads the next common password in ascending order, skipping the duplicates.
+     *
+     * @return The next common password, null if all of them have been read.
+     * @throws IOException If an error occurs while reading a temporary file.
+     */
+    String next() throws IOException {
+
+        if (inMemoryRun == null && runHeads == null) {
+            startReading();
+        }
+        String password;
+        do {
+            password = readNext();
+        } while (password != null && password.equals(previous));
+        previous = password;
+        return password;
+    }
+
+    private void startReading() throws IOException {
+
+        if (runFiles.isEmpty()) {
+            Collections.sort(run);
+            inMemoryRun = run.iterator();
+            return;
+        }
+        if (!run.isEmpty()) {
+            writeRun();
+        }
+        runHeads = new PriorityQueue<>(runFiles.size(), Comparator.comparing(RunReader::getHead));
+        for (Path runFile : runFiles) {
+            RunReader runReader = new RunReader(runFile);
+            runReaders.add(runReader);
+            if (runReader.advance()) {
+                runHeads.add(runReader);
+            }
+        }
+    }
+
+    private String readNext() throws IOException {
+
+        if (inMemoryRun != null) {
+            return inMemoryRun.hasNext() ? inMemoryRun.next() : null;
+        }
+        RunReader runReader = runHeads.poll();
+        if (runReader == null) {
+            return null;
+        }
+        String password = runReader.getHead();
+        if (runReader.advance()) {
+            runHeads.add(runReader);
+        }
+        return password;
+    }
+
+    private void writeRun() throws IOException {
+
+        Collections.sort(run);
+        Path runFile = Files.createTempFile("common-passwords-", ".run");
+        runFiles.add(runFile);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(runFile)))) {
+            String previousPassword = null;
+            for (String password : run) {
+                if (!password.equals(previousPassword)) {
+                    byte[] encodedPassword = password.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(encodedPassword.length);
+                    output.write(encodedPassword);
+                    previousPassword = password;
+                }
+            }
+            // The length -1 marks the end of the run.
+            output.writeInt(-1);
+        }
+        run = new ArrayList<>();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        IOException closeException = null;
+        for (RunReader runReader : runReaders) {
+            try {
+                runReader.close();
+            } catch (IOException exception) {
+                closeException = exception;
+            }
+        }
+        for (Path runFile : runFiles) {
+            try {
+                Files.deleteIfExists(runFile);
+            } catch (IOException exception) {
+                closeException = exception;
+            }
+        }
+        if (closeException != null) {
+            throw closeException;
+        }
+    }
+
+    /**
+     * Reads the sorted common passwords of a run file one by one.
+     */
+    private static class RunReader implements Closeable {
+
+        private final DataInputStream input;
+        private String head;
+
+        RunReader(Path runFile) throws IOException {
+
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFile)));
+        }
+
+        String getHead() {
+
+            return head;
+        }
+
+        /**
+         * Reads the next common password of the run into the head.
+         *
+         * @return True if a common password has been read, false if the end of the run has been reached.
+         * @throws IOException If an error occurs while reading the run file.
+         */
+        boolean advance() throws IOException {
+
+            int length = input.readInt();
+            if (length < 0) {
+                head = null;
+                return false;
+            }
+            byte[] encodedPassword = new byte[length];
+            input.readFully(encodedPassword);
+            head = new String(encodedPassword, StandardCharsets.UTF_8);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.wso2.password.policy.handler.dao;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The SQL dialects supported by the common password store, which provide the DDL statements and the statements that
+ * insert a row only if it does not exist yet.
+ */
+public enum SQLDialect {
+
+    H2(true, true) {
+        @Override
+        public String getInsertIgnoreQuery(String tableName, String... columns) {
+
+            String columnList = StringUtils.join(columns, ", ");
+            return "MERGE INTO " + tableName + " (" + columnList + ") KEY (" + columnList + ") VALUES ("
+                    + getPlaceholders(columns.length) + ")";
+        }
+    },
+    MYSQL(true, true) {
+        @Override
+        public String getInsertIgnoreQuery(String tableName, String... columns) {
+
+            return "INSERT INTO " + tableName + " (" + StringUtils.join(columns, ", ") + ") VALUES ("
+                    + getPlaceholders(columns.length) + ") ON DUPLICATE KEY UPDATE " + columns[0] + " = "
+                    + columns[0];
+        }
+
+        @Override
+        protected String getBinaryOrderExpression(String column) {
+
+            return "CAST(" + column + " AS BINARY)";
+        }
+
+        @Override
+        public int getStreamingFetchSize(int fetchSize) {
+
+            // Connector/J reads the whole result set into memory unless the fetch size is Integer.MIN_VALUE.
+            return Integer.MIN_VALUE;
+        }
+    },
+    POSTGRESQL(true, true) {
+        @Override
+        public String getInsertIgnoreQuery(String tableName, String... columns) {
+
+            return "INSERT INTO " + tableName + " (" + StringUtils.join(columns, ", ") + ") VALUES ("
+                    + getPlaceholders(columns.length) + ") ON CONFLICT DO NOTHING";
+        }
+
+        @Override
+        protected String getBinaryOrderExpression(String column) {
+
+            return column + " COLLATE \"C\"";
+        }
+    },
+    ORACLE(false, false) {
+        @Override
+        public String getInsertIgnoreQuery(String tableName, String... columns) {
+
+            List<String> selections = new ArrayList<>();
+            for (String column : columns) {
+                selections.add("? AS " + column);
+            }
+            return "MERGE INTO " + tableName + " D USING (SELECT " + StringUtils.join(selections, ", ")
+                    + " FROM DUAL) S ON (" + getMatchCondition(columns) + ") WHEN NOT MATCHED THEN INSERT ("
+                    + StringUtils.join(columns, ", ") + ") VALUES (" + getSourceColumns(columns) + ")";
+        }
+
+        @Override
+        protected String getBinaryOrderExpression(String column) {
+
+            return "NLSSORT(" + column + ", 'NLS_SORT=BINARY')";
+        }
+    },
+    MSSQL(false, true) {
+        @Override
+        public String getInsertIgnoreQuery(String tableName, String... columns) {
+
+            List<String> selections = new ArrayList<>();
+            for (String column : columns) {
+                selections.add("? AS " + column);
+            }
+            // A MERGE statement has to be terminated with a semicolon in SQL Server.
+            return "MERGE INTO " + tableName + " WITH (HOLDLOCK) AS D USING (SELECT "
+                    + StringUtils.join(selections, ", ") + ") AS S ON (" + getMatchCondition(columns)
+                    + ") WHEN NOT MATCHED THEN INSERT (" + StringUtils.join(columns, ", ") + ") VALUES ("
+                    + getSourceColumns(columns) + ");";
+        }
+
+        @Override
+        protected String getBinaryOrderExpression(String column) {
+
+            return column + " COLLATE Latin1_General_BIN2";
+        }
+    },
+    DB2(false, false) {
+        @Override
+        public String getInsertIgnoreQuery(String tableName, String... columns) {
+
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < columns.length; i++) {
+                values.add("CAST(? AS VARCHAR(255))");
+            }
+            return "MERGE INTO " + tableName + " AS D USING (VALUES (" + StringUtils.join(values, ", ")
+                    + ")) AS S (" + StringUtils.join(columns, ", ") + ") ON (" + getMatchCondition(columns)
+                    + ") WHEN NOT MATCHED THEN INSERT (" + StringUtils.join(columns, ", ") + ") VALUES ("
+                    + getSourceColumns(columns) + ")";
+        }
+    };
+
+    private final boolean createIfNotExistsSupported;
+    private final boolean dropIfExistsSupported;
+
+    SQLDialect(boolean createIfNotExistsSupported, boolean dropIfExistsSupported) {
+
+        this.createIfNotExistsSupported = createIfNotExistsSupported;
+        this.dropIfExistsSupported = dropIfExistsSupported;
+    }
+
+    /**
+     * Builds a statement which inserts a row only if a row with the same key does not exist. The key of the table
+     * must consist of the given columns, and all the columns are bound as parameters in the given order.
+     *
+     * @param tableName Name of the table.
+     * @param columns   Names of the columns.
+     * @return The insert statement.
+     */
+    public abstract String getInsertIgnoreQuery(String tableName, String... columns);
+
+    /**
+     * Builds a query which selects the distinct values of a column ordered by their characters instead of by the
+     * collation of the column, which is the order in which the values can be merged with the values of a file sorted
+     * as strings.
+     *
+     * @param tableName Name of the table.
+     * @param column    Name of the column.
+     * @return The select query.
+     */
+    public String getSelectInBinaryOrderQuery(String tableName, String column) {
+
+        return "SELECT " + column + " FROM " + tableName + " GROUP BY " + column + " ORDER BY "
+                + getBinaryOrderExpression(column);
+    }
+
+    /**
+     * Resolves the fetch size which makes the driver stream the rows of a query instead of reading all of them into
+     * memory.
+     *
+     * @param fetchSize The number of rows to be fetched at once.
+     * @return The fetch size to be set on the statement.
+     */
+    public int getStreamingFetchSize(int fetchSize) {
+
+        return fetchSize;
+    }
+
+    /**
+     * Builds an expression which orders the values of a column by their characters. The binary collations of H2 and
+     * DB2 are used by default.
+     *
+     * @param column Name of the column.
+     * @return The order expression.
+     */
+    protected String getBinaryOrderExpression(String column) {
+
+        return column;
+    }
+
+    /**
+     * Builds a statement which creates a table. Dialects which do not support IF NOT EXISTS get a plain CREATE
+     * TABLE statement, and the caller is expected to check whether the table exists before executing it.
+     *
+     * @param tableName         Name of the table.
+     * @param columnDefinitions Column and constraint definitions of the table.
+     * @return The create statement.
+     */
+    public String getCreateTableQuery(String tableName, String columnDefinitions) {
+
+        return "CREATE TABLE " + (createIfNotExistsSupported ? "IF NOT EXISTS " : "") + tableName + " ("
+                + columnDefinitions + ")";
+    }
+
+    /**
+     * Builds a statement which drops a table. Dialects which do not support IF EXISTS get a plain DROP TABLE
+     * statement, and the caller is expected to check whether the table exists before executing it.
+     *
+     * @param tableName Name of the table.
+     * @return The drop statement.
+     */
+    public String getDropTableQuery(String tableName) {
+
+        return "DROP TABLE " + (dropIfExistsSupported ? "IF EXISTS " : "") + tableName;
+    }
+
+    /**
+     * Creates a table if it does not exist.
+     *
+     * @param connection        The DB connection.
+     * @param tableName         Name of the table.
+     * @param columnDefinitions Column and constraint definitions of the table.
+     * @throws SQLException If an error occurs while creating the table.
+     */
+    public void createTableIfNotExists(Connection connection, String tableName, String columnDefinitions)
+            throws SQLException {
+
+        if (createIfNotExistsSupported || !isTableExists(connection, tableName)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(getCreateTableQuery(tableName, columnDefinitions));
+            }
+        }
+    }
+
+    /**
+     * Drops a table if it exists.
+     *
+     * @param connection The DB connection.
+     * @param tableName  Name of the table.
+     * @throws SQLException If an error occurs while dropping the table.
+     */
+    public void dropTableIfExists(Connection connection, String tableName) throws SQLException {
+
+        if (dropIfExistsSupported || isTableExists(connection, tableName)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(getDropTableQuery(tableName));
+            }
+        }
+    }
+
+    /**
+     * Resolves the dialect of the database of a connection.
+     *
+     * @param connection The DB connection.
+     * @return The dialect of the database.
+     * @throws SQLException If the database product is not supported or cannot be read.
+     */
+    public static SQLDialect fromConnection(Connection connection) throws SQLException {
+
+        String productName = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        if (productName.contains("h2")) {
+            return H2;
+        } else if (productName.contains("mysql") || productName.contains("mariadb")) {
+            return MYSQL;
+        } else if (productName.contains("postgresql")) {
+            return POSTGRESQL;
+        } else if (productName.contains("oracle")) {
+            return ORACLE;
+        } else if (productName.contains("microsoft")) {
+            return MSSQL;
+        } else if (productName.contains("db2")) {
+            return DB2;
+        }
+        throw new SQLException("Unsupported database for the common password store: " + productName);
+    }
+
+    /**
+     * Checks whether a table exists, taking the case in which the database stores unquoted identifiers into account.
+     *
+     * @param connection The DB connection.
+     * @param tableName  Name of the table.
+     * @return True if the table exists, false if else.
+     * @throws SQLException If an error occurs while reading the DB metadata.
+     */
+    public static boolean isTableExists(Connection connection, String tableName) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        String storedTableName = metaData.storesLowerCaseIdentifiers() ? tableName.toLowerCase(Locale.ROOT) :
+                tableName;
+        try (ResultSet resultSet = metaData.getTables(null, null, storedTableName, null)) {
+            return resultSet.next();
+        }
+    }
+
+    private static String getPlaceholders(int count) {
+
+        return StringUtils.join(Collections.nCopies(count, "?"), ", ");
+    }
+
+    private static String getMatchCondition(String[] columns) {
+
+        List<String> conditions = new ArrayList<>();
+        for (String column : columns) {
+            conditions.add("D." + column + " = S." + column);
+        }
+        return StringUtils.join(conditions, " AND ");
+    }
+
+    private static String getSourceColumns(String[] columns) {
+
+        List<String> sourceColumns = new ArrayList<>();
+        for (String column : columns) {
+            sourceColumns.add("S." + column);
+        }
+        return StringUtils.join(sourceColumns, ", ");
+    }
+}
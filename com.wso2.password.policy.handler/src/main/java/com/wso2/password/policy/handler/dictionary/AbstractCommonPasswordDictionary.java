@@ -0,0 +1,40 @@
+package com.wso2.password.policy.handler.dictionary;
+
+import java.util.List;
+
+/**
+ * CommonPasswordDictionary abstract class which helps to build several representations of the common passwords. All
+ * the representations are immutable once built so that they can be shared among the request threads without locking.
+ */
+public abstract class AbstractCommonPasswordDictionary {
+
+    /**
+     * Checks whether the given credential contains any of the common passwords.
+     *
+     * @param credential The normalized credential.
+     * @return True if a common password occurs in the credential, false if else.
+     */
+    public abstract boolean containsCommonPassword(CharSequence credential);
+
+    /**
+     * Checks whether the given credential is a part of any of the common passwords.
+     *
+     * @param credential The normalized credential.
+     * @return True if a common password contains the credential, false if else.
+     */
+    public abstract boolean isContainedInCommonPassword(CharSequence credential);
+
+    /**
+     * Retrieves the normalized common passwords in sorted order.
+     *
+     * @return An unmodifiable list of the normalized common passwords.
+     */
+    public abstract List<String> getEntries();
+
+    /**
+     * Retrieves the number of unique common passwords in the dictionary.
+     *
+     * @return Number of unique common passwords.
+     */
+    public abstract int size();
+}
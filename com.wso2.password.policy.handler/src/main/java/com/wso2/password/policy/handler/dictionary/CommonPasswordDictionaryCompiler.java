@@ -0,0 +1,48 @@
+package com.wso2.password.policy.handler.dictionary;
+
+import com.wso2.password.policy.handler.dictionary.impl.InMemoryCommonPasswordDictionary;
+import com.wso2.password.policy.handler.dictionary.impl.MappedCommonPasswordDictionary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Offline tool which compiles a common passwords text file into the binary dictionary format that is memory mapped by
+ * the MappedCommonPasswordDictionary.
+ * <p>
+ * Usage: CommonPasswordDictionaryCompiler &lt;common passwords text file&gt; &lt;compiled dictionary file&gt;
+ */
+public class CommonPasswordDictionaryCompiler {
+
+    private CommonPasswordDictionaryCompiler() {
+
+    }
+
+    /**
+     * Compiles a common passwords text file into a compiled dictionary file.
+     *
+     * @param source Path of the common passwords text file.
+     * @param target Path of the compiled dictionary file.
+     * @return Number of unique common passwords written to the compiled dictionary.
+     * @throws IOException If an error occurs while reading or writing the files.
+     */
+    public static int compile(Path source, Path target) throws IOException {
+
+        InMemoryCommonPasswordDictionary dictionary =
+                InMemoryCommonPasswordDictionary.load(source, Runtime.getRuntime().availableProcessors());
+        MappedCommonPasswordDictionary.compile(dictionary, target);
+        return dictionary.size();
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 2) {
+            System.err.println("Usage: CommonPasswordDictionaryCompiler <common passwords text file> "
+                    + "<compiled dictionary file>");
+            System.exit(1);
+        }
+        int size = compile(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(String.format("Compiled %d unique common passwords into %s.", size, args[1]));
+    }
+}
@@ -0,0 +1,154 @@
+package com.wso2.password.policy.handler.dictionary.impl;
+
+import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Prepares the entries of the heap based common password dictionaries: the raw common passwords are normalized the
+ * same way as the credentials, and sorted with the blank and duplicate entries dropped.
+ */
+final class CommonPasswordEntries {
+
+    private static final int LINE_CHUNK_SIZE = 1 << 20;
+
+    private CommonPasswordEntries() {
+
+    }
+
+    /**
+     * Normalizes the given raw common passwords.
+     *
+     * @param commonPasswords The raw common passwords.
+     * @return The sorted unique normalized common passwords.
+     */
+    static String[] normalize(Collection<String> commonPasswords) {
+
+        String[] normalized = new String[commonPasswords.size()];
+        int count = 0;
+        for (String commonPassword : commonPasswords) {
+            String processedCommonPassword = PasswordPolicyHandlerUtils.normalizeCredential(commonPassword);
+            if (!processedCommonPassword.isEmpty()) {
+                normalized[count++] = processedCommonPassword;
+            }
+        }
+        return sortUnique(normalized, count);
+    }
+
+    /**
+     * Reads the common passwords of a text file with one common password per line and builds a dictionary of them
+     * in a fork-join pool of the given number of threads. The file is split into chunks at line boundaries which are
+     * decoded and normalized in parallel, and the entries are sorted in parallel before they are passed to the
+     * dictionary factory, which runs in the pool as well.
+     *
+     * @param commonPasswordFilePath Path of the common passwords text file.
+     * @param parallelism            Number of threads used to build the dictionary.
+     * @param dictionaryFactory      Builds the dictionary of the sorted unique normalized common passwords.
+     * @param <D>                    Type of the dictionary.
+     * @return The dictionary of the common passwords of the file.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    static <D> D load(Path commonPasswordFilePath, int parallelism, final Function<String[], D> dictionaryFactory)
+            throws IOException {
+
+        final byte[] content = Files.readAllBytes(commonPasswordFilePath);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new RecursiveTask<D>() {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected D compute() {
+
+                    List<String> normalized = new LineNormalizationTask(content, 0, content.length).invoke();
+                    return dictionaryFactory.apply(sortUnique(normalized.toArray(new String[0]),
+                            normalized.size()));
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Sorts and de-duplicates the normalized entries, in parallel if called by a task of a fork-join pool.
+    private static String[] sortUnique(String[] normalized, int count) {
+
+        if (ForkJoinTask.inForkJoinPool()) {
+            Arrays.parallelSort(normalized, 0, count);
+        } else {
+            Arrays.sort(normalized, 0, count);
+        }
+
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || !normalized[i].equals(normalized[unique - 1])) {
+                normalized[unique++] = normalized[i];
+            }
+        }
+        return Arrays.copyOf(normalized, unique);
+    }
+
+    /**
+     * Decodes and normalizes the lines in a range of a UTF-8 encoded file, splitting large ranges at line boundaries.
+     * A line feed byte never occurs inside a multi-byte UTF-8 sequence, so each chunk can be decoded on its own.
+     */
+    private static final class LineNormalizationTask extends RecursiveTask<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] content;
+        private final int from;
+        private final int to;
+
+        LineNormalizationTask(byte[] content, int from, int to) {
+
+            this.content = content;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<String> compute() {
+
+            if (to - from > LINE_CHUNK_SIZE) {
+                int split = from + (to - from) / 2;
+                while (split < to && content[split - 1] != '\n') {
+                    split++;
+                }
+                if (split < to) {
+                    LineNormalizationTask tail = new LineNormalizationTask(content, split, to);
+                    tail.fork();
+                    List<String> lines = new LineNormalizationTask(content, from, split).compute();
+                    lines.addAll(tail.join());
+                    return lines;
+                }
+            }
+
+            List<String> lines = new ArrayList<>();
+            int lineStart = from;
+            for (int i = from; i <= to; i++) {
+                if (i == to || content[i] == '\n') {
+                    String commonPassword = PasswordPolicyHandlerUtils.normalizeCredential(
+                            new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                    if (!commonPassword.isEmpty()) {
+                        lines.add(commonPassword);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.wso2.password.policy.handler.dictionary.impl;
+
+import com.wso2.password.policy.handler.dictionary.AbstractCommonPasswordDictionary;
+import com.wso2.password.policy.handler.matcher.MinimalDawg;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable, heap based snapshot of the common passwords which keeps them only as minimal automata instead of as
+ * strings, for breached password corpora with tens of millions of entries. The automaton of the common passwords
+ * answers whether a credential contains a common password, and the automaton of all the suffixes of the common
+ * passwords, the factor automaton, answers whether a credential is contained in a common password. Common passwords
+ * share their prefixes and suffixes in the automata, so they take far less memory than the strings and the indexes of
+ * the InMemoryCommonPasswordDictionary.
+ * <p>
+ * The strings of the common passwords are only held while the dictionary is being built. The automata are built one
+ * after the other, and the suffixes are sorted for the factor automaton in batches instead of in a suffix array, so
+ * the peak heap usage of a load stays close to the strings and the automata themselves.
+ */
+public final class DawgCommonPasswordDictionary extends AbstractCommonPasswordDictionary {
+
+    private final MinimalDawg commonPasswords;
+    private final MinimalDawg factors;
+
+    private DawgCommonPasswordDictionary(MinimalDawg commonPasswords, MinimalDawg factors) {
+
+        this.commonPasswords = commonPasswords;
+        this.factors = factors;
+    }
+
+    /**
+     * Builds a dictionary from the given raw common passwords. Each entry is normalized the same way as the
+     * credentials, and blank or duplicate entries are dropped.
+     *
+     * @param commonPasswords The raw common passwords.
+     * @return A dictionary built from the given common passwords.
+     */
+    public static DawgCommonPasswordDictionary build(Collection<String> commonPasswords) {
+
+        return fromEntries(CommonPasswordEntries.normalize(commonPasswords));
+    }
+
+    /**
+     * Loads a dictionary from a common passwords text file with one common password per line, using the given number
+     * of threads to read, sort and index the common passwords.
+     *
+     * @param commonPasswordFilePath Path of the common passwords text file.
+     * @param parallelism            Number of threads used to build the dictionary.
+     * @return A dictionary built from the common passwords of the file.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public static DawgCommonPasswordDictionary load(Path commonPasswordFilePath, int parallelism) throws IOException {
+
+        return CommonPasswordEntries.load(commonPasswordFilePath, parallelism,
+                DawgCommonPasswordDictionary::fromEntries);
+    }
+
+    // Builds the automata of the sorted unique entries, sorting the suffixes in parallel if called by a task of a
+    // fork-join pool.
+    private static DawgCommonPasswordDictionary fromEntries(String[] entries) {
+
+        MinimalDawg commonPasswords = MinimalDawg.build(entries);
+        return new DawgCommonPasswordDictionary(commonPasswords, MinimalDawg.buildFactorAutomaton(entries));
+    }
+
+    @Override
+    public boolean containsCommonPassword(CharSequence credential) {
+
+        return commonPasswords.containsAnyWord(credential);
+    }
+
+    @Override
+    public boolean isContainedInCommonPassword(CharSequence credential) {
+
+        return factors.isPrefixOfAnyWord(credential);
+    }
+
+    /**
+     * Retrieves the common passwords, which are materialized from the automaton on each call.
+     *
+     * @return The sorted common passwords.
+     */
+    @Override
+    public List<String> getEntries() {
+
+        return commonPasswords.getWords();
+    }
+
+    @Override
+    public int size() {
+
+        return commonPasswords.getWordCount();
+    }
+}
@@ -0,0 +1,115 @@
+package com.wso2.password.policy.handler.dictionary.impl;
+
+import com.wso2.password.policy.handler.dictionary.AbstractCommonPasswordDictionary;
+import com.wso2.password.policy.handler.matcher.AhoCorasickMatcher;
+import com.wso2.password.policy.handler.matcher.SuffixArrayIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An immutable, heap based snapshot of the common passwords. The entries are normalized, de-duplicated and sorted once
+ * when the dictionary is built, so the dictionary can be shared among any number of request threads without locking
+ * and without allocating per validation.
+ */
+public final class InMemoryCommonPasswordDictionary extends AbstractCommonPasswordDictionary {
+
+    public static final InMemoryCommonPasswordDictionary EMPTY = build(Collections.<String>emptyList());
+
+    private final String[] entries;
+    private final AhoCorasickMatcher matcher;
+    private final SuffixArrayIndex reverseIndex;
+
+    private InMemoryCommonPasswordDictionary(String[] entries, AhoCorasickMatcher matcher,
+                                             SuffixArrayIndex reverseIndex) {
+
+        this.entries = entries;
+        this.matcher = matcher;
+        this.reverseIndex = reverseIndex;
+    }
+
+    /**
+     * Builds a dictionary from the given raw common passwords. Each entry is normalized the same way as the
+     * credentials, and blank or duplicate entries are dropped.
+     *
+     * @param commonPasswords The raw common passwords.
+     * @return A dictionary built from the given common passwords.
+     */
+    public static InMemoryCommonPasswordDictionary build(Collection<String> commonPasswords) {
+
+        return fromEntries(CommonPasswordEntries.normalize(commonPasswords));
+    }
+
+    /**
+     * Loads a dictionary from a common passwords text file with one common password per line, using the given number
+     * of threads. The file is split into chunks at line boundaries which are decoded and normalized in parallel, the
+     * entries are sorted in parallel, and the automaton and the suffix array are built concurrently.
+     *
+     * @param commonPasswordFilePath Path of the common passwords text file.
+     * @param parallelism            Number of threads used to build the dictionary.
+     * @return A dictionary built from the common passwords of the file.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public static InMemoryCommonPasswordDictionary load(Path commonPasswordFilePath, int parallelism)
+            throws IOException {
+
+        return CommonPasswordEntries.load(commonPasswordFilePath, parallelism,
+                InMemoryCommonPasswordDictionary::fromEntries);
+    }
+
+    // Builds the indexes of the sorted unique entries, concurrently if called by a task of a fork-join pool.
+    private static InMemoryCommonPasswordDictionary fromEntries(final String[] entries) {
+
+        if (!ForkJoinTask.inForkJoinPool()) {
+            return new InMemoryCommonPasswordDictionary(entries, AhoCorasickMatcher.build(Arrays.asList(entries)),
+                    SuffixArrayIndex.build(entries));
+        }
+        ForkJoinTask<AhoCorasickMatcher> matcherTask = new RecursiveTask<AhoCorasickMatcher>() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected AhoCorasickMatcher compute() {
+
+                return AhoCorasickMatcher.build(Arrays.asList(entries));
+            }
+        }.fork();
+        SuffixArrayIndex reverseIndex = SuffixArrayIndex.build(entries);
+        return new InMemoryCommonPasswordDictionary(entries, matcherTask.join(), reverseIndex);
+    }
+
+    @Override
+    public boolean containsCommonPassword(CharSequence credential) {
+
+        return matcher.containsAny(credential);
+    }
+
+    @Override
+    public boolean isContainedInCommonPassword(CharSequence credential) {
+
+        return reverseIndex.containsSubstring(credential);
+    }
+
+    @Override
+    public List<String> getEntries() {
+
+        return Collections.unmodifiableList(Arrays.asList(entries));
+    }
+
+    @Override
+    public int size() {
+
+        return entries.length;
+    }
+
+    SuffixArrayIndex getReverseIndex() {
+
+        return reverseIndex;
+    }
+}
@@ -0,0 +1,313 @@
+package com.wso2.password.policy.handler.dictionary.impl;
+
+import com.wso2.password.policy.handler.dictionary.AbstractCommonPasswordDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A common password dictionary which is queried directly from a memory mapped, compiled dictionary file, so the common
+ * passwords never materialize on the heap and opening the dictionary does not depend on its size.
+ * <p>
+ * The compiled file consists of a header (magic number, format version and entry count), the char offsets of the
+ * sorted and normalized entries, and a suffix array over the entries (see SuffixArrayIndex#writeTo). All the values
+ * are stored in big-endian order.
+ */
+public final class MappedCommonPasswordDictionary extends AbstractCommonPasswordDictionary {
+
+    public static final int MAGIC = 0x43505744;
+    public static final int VERSION = 1;
+
+    private static final char SEPARATOR = '\n';
+    private static final int HEADER_SIZE = 12;
+
+    private final int entryCount;
+    private final IntBuffer entryOffsets;
+    private final CharBuffer text;
+    private final IntBuffer suffixes;
+
+    private MappedCommonPasswordDictionary(int entryCount, IntBuffer entryOffsets, CharBuffer text,
+                                           IntBuffer suffixes) {
+
+        this.entryCount = entryCount;
+        this.entryOffsets = entryOffsets;
+        this.text = text;
+        this.suffixes = suffixes;
+    }
+
+    /**
+     * Opens a compiled dictionary file.
+     *
+     * @param path Path of the compiled dictionary file.
+     * @return A dictionary backed by the mapped file.
+     * @throws IOException If the file cannot be mapped or is not a compiled dictionary.
+     */
+    public static MappedCommonPasswordDictionary open(Path path) throws IOException {
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // A single mapping cannot exceed 2GB, and the offsets of the dictionary are ints.
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The compiled common password dictionary " + path + " exceeds 2GB.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        long size = buffer.capacity();
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("The file " + path + " is not a compiled common password dictionary.");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported common password dictionary version: " + buffer.getInt(4));
+        }
+
+        // The sections are checked with long arithmetic against the size of the file, so a corrupted or truncated
+        // file is reported as such instead of failing with an overflow or an out of bounds slice.
+        int entryCount = buffer.getInt(8);
+        long offsetsSize = (entryCount + 1L) * 4;
+        if (entryCount < 0 || HEADER_SIZE + offsetsSize + 8 > size) {
+            throw new IOException("The compiled common password dictionary " + path + " is truncated.");
+        }
+        int position = HEADER_SIZE;
+        IntBuffer entryOffsets = slice(buffer, position, (int) offsetsSize).asIntBuffer();
+        position += (int) offsetsSize;
+        int textLength = buffer.getInt(position);
+        int suffixCount = buffer.getInt(position + 4);
+        position += 8;
+        if (textLength < 0 || suffixCount < 0 || position + textLength * 2L + suffixCount * 4L != size) {
+            throw new IOException("The compiled common password dictionary " + path + " is corrupted.");
+        }
+        CharBuffer text = slice(buffer, position, textLength * 2).asCharBuffer();
+        position += textLength * 2;
+        IntBuffer suffixes = slice(buffer, position, suffixCount * 4).asIntBuffer();
+        return new MappedCommonPasswordDictionary(entryCount, entryOffsets, text, suffixes);
+    }
+
+    /**
+     * Checks whether the given file is a compiled dictionary by looking at its magic number.
+     *
+     * @param path Path of the file.
+     * @return True if the file is a compiled dictionary, false if else.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public static boolean isCompiledDictionary(Path path) throws IOException {
+
+        try (InputStream inputStream = Files.newInputStream(path);
+             DataInputStream dataInputStream = new DataInputStream(inputStream)) {
+            return dataInputStream.readInt() == MAGIC;
+        } catch (EOFException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the given dictionary to a file in the compiled dictionary format. The dictionary is written to a temporary
+     * file next to the target, which then replaces the target atomically, since the target is usually the dictionary
+     * which is mapped by the running validator and truncating a mapped file fails the lookups on its mapping.
+     *
+     * @param dictionary The dictionary to be compiled.
+     * @param target     Path of the compiled dictionary file.
+     * @throws IOException If an error occurs while writing the file.
+     */
+    public static void compile(InMemoryCommonPasswordDictionary dictionary, Path target) throws IOException {
+
+        Path absoluteTarget = target.toAbsolutePath();
+        Path temporaryFile = Files.createTempFile(absoluteTarget.getParent(), absoluteTarget.getFileName() + ".",
+                ".tmp");
+        try {
+            write(dictionary, temporaryFile);
+            Files.move(temporaryFile, absoluteTarget, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void write(InMemoryCommonPasswordDictionary dictionary, Path target) throws IOException {
+
+        List<String> entries = dictionary.getEntries();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(entries.size());
+            int offset = 0;
+            for (String entry : entries) {
+                output.writeInt(offset);
+                offset += entry.length() + 1;
+            }
+            output.writeInt(offset);
+            dictionary.getReverseIndex().writeTo(output);
+        }
+    }
+
+    @Override
+    public boolean containsCommonPassword(CharSequence credential) {
+
+        int credentialLength = credential.length();
+        for (int start = 0; start < credentialLength; start++) {
+            // The entries in [low, high) all start with the credential characters in [start, start + depth).
+            int low = 0;
+            int high = entryCount;
+            for (int depth = 0; start + depth < credentialLength; depth++) {
+                char c = credential.charAt(start + depth);
+                low = lowerBound(low, high, depth, c);
+                high = upperBound(low, high, depth, c);
+                if (low >= high) {
+                    break;
+                }
+                // Shorter entries sort first, so an entry ending here is the first one in the range.
+                if (entryLength(low) == depth + 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isContainedInCommonPassword(CharSequence credential) {
+
+        int patternLength = credential.length();
+        int suffixCount = suffixes.limit();
+        if (suffixCount == 0) {
+            return false;
+        }
+        if (patternLength == 0) {
+            return true;
+        }
+
+        int low = 0;
+        int high = suffixCount - 1;
+        int lowPrefix = commonPrefix(credential, suffixes.get(low), 0);
+        int highPrefix = commonPrefix(credential, suffixes.get(high), 0);
+        if (lowPrefix == patternLength || highPrefix == patternLength) {
+            return true;
+        }
+        if (compare(credential, suffixes.get(low), lowPrefix) < 0 ||
+                compare(credential, suffixes.get(high), highPrefix) > 0) {
+            return false;
+        }
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            int middlePrefix = commonPrefix(credential, suffixes.get(middle), Math.min(lowPrefix, highPrefix));
+            if (middlePrefix == patternLength) {
+                return true;
+            }
+            if (compare(credential, suffixes.get(middle), middlePrefix) < 0) {
+                high = middle;
+                highPrefix = middlePrefix;
+            } else {
+                low = middle;
+                lowPrefix = middlePrefix;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<String> getEntries() {
+
+        return new AbstractList<String>() {
+
+            @Override
+            public String get(int index) {
+
+                if (index < 0 || index >= entryCount) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + entryCount);
+                }
+                int offset = entryOffsets.get(index);
+                return text.subSequence(offset, offset + entryLength(index)).toString();
+            }
+
+            @Override
+            public int size() {
+
+                return entryCount;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+
+        return entryCount;
+    }
+
+    private int entryLength(int index) {
+
+        return entryOffsets.get(index + 1) - entryOffsets.get(index) - 1;
+    }
+
+    // Key of the entry at the given depth, where an entry which has already ended sorts before any character.
+    private int key(int index, int depth) {
+
+        return depth < entryLength(index) ? text.get(entryOffsets.get(index) + depth) : -1;
+    }
+
+    private int lowerBound(int low, int high, int depth, char c) {
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle, depth) < c) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(int low, int high, int depth, char c) {
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle, depth) <= c) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int commonPrefix(CharSequence pattern, int suffix, int offset) {
+
+        int patternLength = pattern.length();
+        int i = offset;
+        while (i < patternLength && text.get(suffix + i) != SEPARATOR && text.get(suffix + i) == pattern.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private int compare(CharSequence pattern, int suffix, int commonPrefix) {
+
+        char suffixChar = text.get(suffix + commonPrefix);
+        if (suffixChar == SEPARATOR) {
+            return 1;
+        }
+        return pattern.charAt(commonPrefix) < suffixChar ? -1 : 1;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+}
@@ -1,8 +1,19 @@
 package com.wso2.password.policy.handler.internal;
 
 import com.wso2.password.policy.handler.PasswordPolicyHandler;
+import com.wso2.password.policy.handler.batch.PasswordPolicyBatchValidationService;
+import com.wso2.password.policy.handler.listener.PasswordPolicyConfigListener;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyMetrics;
+import com.wso2.password.policy.handler.reload.CommonPasswordFileWatcher;
+import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
+import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
+import com.wso2.password.policy.handler.validator.CommonPasswordLoadExecutor;
+import com.wso2.password.policy.handler.validator.PasswordValidatorChain;
+import com.wso2.password.policy.handler.validator.PasswordValidatorExecutor;
+import com.wso2.password.policy.handler.validator.impl.BreachedPasswordValidator;
+import com.wso2.password.policy.handler.validator.impl.ClaimBasedPasswordValidator;
 import com.wso2.password.policy.handler.validator.impl.DBBasedCommonPasswordValidator;
-import com.wso2.password.policy.handler.validator.impl.FileBasedCommonPasswordValidator;
+import com.wso2.password.policy.handler.warmup.PasswordPolicyWarmupService;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.framework.BundleContext;
@@ -15,6 +26,9 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
 import org.wso2.carbon.identity.governance.IdentityGovernanceService;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
+
+import java.nio.file.Paths;
 
 /**
  * OSGi service component which registers the password policy event handler and sets the bundle context.
@@ -25,6 +39,9 @@ import org.wso2.carbon.identity.governance.IdentityGovernanceService;
 public class WSO2PasswordPolicyHandlerMgtComponent {
 
     private static final Log log = LogFactory.getLog(WSO2PasswordPolicyHandlerMgtComponent.class);
+    private static final long DEFAULT_HOT_RELOAD_QUIET_PERIOD = 2000;
+    private CommonPasswordFileWatcher commonPasswordFileWatcher;
+    private PasswordPolicyBatchValidationService batchValidationService;
 
     @Activate
     protected void activate(ComponentContext context) {
@@ -32,15 +49,41 @@ public class WSO2PasswordPolicyHandlerMgtComponent {
         try {
             BundleContext bundleContext = context.getBundleContext();
             WSO2PasswordPolicyHandlerMgtDataHolder.getInstance().setBundleContext(bundleContext);
+            PasswordPolicyHandler passwordPolicyHandler = new PasswordPolicyHandler();
             context.getBundleContext().registerService(AbstractEventHandler.class.getName(),
-                    new PasswordPolicyHandler(), null);
-
-            if (Boolean.parseBoolean(System.getProperty("enableDBBasedCommonPasswordValidator"))) {
-                // Initialize the common password data DB repository.
-                DBBasedCommonPasswordValidator.getInstance().initializeData();
-            } else {
-                // Initialize the common password data using a file as storage.
-                FileBasedCommonPasswordValidator.getInstance().initializeData();
+                    passwordPolicyHandler, null);
+            // Validate the credentials of bulk user imports and password resets in batches.
+            batchValidationService = new PasswordPolicyBatchValidationService(passwordPolicyHandler);
+            context.getBundleContext().registerService(PasswordPolicyBatchValidationService.class.getName(),
+                    batchValidationService, null);
+            // Invalidate the cached password policy configurations when they are updated.
+            context.getBundleContext().registerService(IdentityProviderMgtListener.class.getName(),
+                    new PasswordPolicyConfigListener(), null);
+
+            // Initialize the common password data ahead of the first event on demand.
+            context.getBundleContext().registerService(PasswordPolicyWarmupService.class.getName(),
+                    new PasswordPolicyWarmupService(), null);
+
+            AbstractPasswordValidator commonPasswordValidator = PasswordPolicyHandlerUtils.getCommonPasswordValidator();
+            // Register the built-in validators, which are added to the validator chain along with the validators
+            // registered by other bundles.
+            context.getBundleContext().registerService(AbstractPasswordValidator.class.getName(),
+                    commonPasswordValidator, null);
+            context.getBundleContext().registerService(AbstractPasswordValidator.class.getName(),
+                    ClaimBasedPasswordValidator.getInstance(), null);
+            context.getBundleContext().registerService(AbstractPasswordValidator.class.getName(),
+                    BreachedPasswordValidator.getInstance(), null);
+            if (!Boolean.parseBoolean(System.getProperty("enableLazyCommonPasswordInitialization"))) {
+                // Initialize the common password data, either in the DB repository or using a file as storage.
+                commonPasswordValidator.initializeDataIfRequired();
+            }
+
+            if (Boolean.parseBoolean(System.getProperty("enableCommonPasswordHotReload"))) {
+                // Reload the common password data when the common password file changes.
+                commonPasswordFileWatcher = new CommonPasswordFileWatcher(
+                        Paths.get(PasswordPolicyHandlerUtils.getCommonPasswordFilePath()), commonPasswordValidator,
+                        Long.getLong("commonPasswordHotReloadQuietPeriod", DEFAULT_HOT_RELOAD_QUIET_PERIOD));
+                commonPasswordFileWatcher.start();
             }
             if (log.isDebugEnabled()) {
                 log.debug("The password policy handler mgt component is enabled.");
@@ -53,6 +96,17 @@ public class WSO2PasswordPolicyHandlerMgtComponent {
     @Deactivate
     protected void deactivate(ComponentContext context) {
 
+        if (commonPasswordFileWatcher != null) {
+            commonPasswordFileWatcher.stop();
+            commonPasswordFileWatcher = null;
+        }
+        if (batchValidationService != null) {
+            batchValidationService.shutdown();
+            batchValidationService = null;
+        }
+        PasswordValidatorExecutor.getInstance().shutdown();
+        CommonPasswordLoadExecutor.getInstance().shutdown();
+
         if (Boolean.parseBoolean(System.getProperty("enableDBBasedCommonPasswordValidator"))) {
             try {
                 // Destroy the common password data repository.
@@ -62,6 +116,7 @@ public class WSO2PasswordPolicyHandlerMgtComponent {
             }
         }
 
+        PasswordPolicyMetrics.getInstance().unregisterAll();
         if (log.isDebugEnabled()) {
             log.debug("The password policy handler mgt component is de-activated.");
         }
@@ -88,4 +143,26 @@ public class WSO2PasswordPolicyHandlerMgtComponent {
         }
         WSO2PasswordPolicyHandlerMgtDataHolder.getInstance().setIdentityGovernanceService(null);
     }
+
+    @Reference(
+            name = "PasswordValidator",
+            service = AbstractPasswordValidator.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "removePasswordValidator")
+    protected void addPasswordValidator(AbstractPasswordValidator passwordValidator) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Adding the password validator: " + passwordValidator.getName());
+        }
+        PasswordValidatorChain.getInstance().addValidator(passwordValidator);
+    }
+
+    protected void removePasswordValidator(AbstractPasswordValidator passwordValidator) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Removing the password validator: " + passwordValidator.getName());
+        }
+        PasswordValidatorChain.getInstance().removeValidator(passwordValidator);
+    }
 }
@@ -0,0 +1,55 @@
+package com.wso2.password.policy.handler.listener;
+
+import com.wso2.password.policy.handler.cache.ClaimUriCache;
+import com.wso2.password.policy.handler.cache.CommonPasswordOverlayCache;
+import com.wso2.password.policy.handler.cache.PasswordPolicyConfigCache;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+import org.wso2.carbon.idp.mgt.listener.AbstractIdentityProviderMgtListener;
+
+/**
+ * Invalidates the cached password policy configuration of a tenant when the connector configurations of the tenant,
+ * which are stored as properties of the resident identity provider, are updated.
+ */
+public class PasswordPolicyConfigListener extends AbstractIdentityProviderMgtListener {
+
+    private static final Log log = LogFactory.getLog(PasswordPolicyConfigListener.class);
+
+    /**
+     * Retrieves the default order of the listener.
+     *
+     * @return Default order of the listener.
+     */
+    @Override
+    public int getDefaultOrderId() {
+
+        return 50;
+    }
+
+    /**
+     * Clears the cached password policy configuration, claim URIs and common passwords of the tenant whose resident
+     * identity provider was updated.
+     *
+     * @param identityProvider The updated resident identity provider.
+     * @param tenantDomain     The tenant domain.
+     * @return True to continue with the other listeners.
+     * @throws IdentityProviderManagementException Not thrown by this listener.
+     */
+    @Override
+    public boolean doPostUpdateResidentIdP(IdentityProvider identityProvider, String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        PasswordPolicyConfigCache.getInstance().clearCacheEntry(tenantDomain);
+        // The restricted claims may refer to claims which have been added after the claim URIs were cached.
+        ClaimUriCache.getInstance().clearCacheEntry(tenantDomain);
+        // Reload the common password file of the tenant on the next event, in case it has been changed.
+        CommonPasswordOverlayCache.getInstance().clearCacheEntry(tenantDomain);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Cleared the cached password policy configuration of the tenant: %s.",
+                    tenantDomain));
+        }
+        return true;
+    }
+}
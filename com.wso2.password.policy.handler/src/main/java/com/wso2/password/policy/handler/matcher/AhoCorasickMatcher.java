@@ -0,0 +1,225 @@
+package com.wso2.password.policy.handler.matcher;
+
+import java.util.Arrays;
+
+/**
+ * An immutable Aho-Corasick automaton which answers whether a given text contains any of the patterns it was built
+ * from in a single pass over the text. The automaton is stored in a compact array based layout: the outgoing
+ * transitions of each state are kept sorted in a shared label/target array pair, which keeps the memory overhead
+ * per state down to a few integers even for dictionaries with millions of patterns.
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NO_STATE = -1;
+
+    // Transitions of the state i are in the range [childOffsets[i], childOffsets[i + 1]), sorted by label.
+    private final int[] childOffsets;
+    private final char[] childLabels;
+    private final int[] childTargets;
+    private final int[] failureLinks;
+    // A state is terminal if a pattern ends at it or at any state in its failure chain.
+    private final boolean[] terminals;
+    private final int patternCount;
+
+    private AhoCorasickMatcher(int[] childOffsets, char[] childLabels, int[] childTargets, int[] failureLinks,
+                               boolean[] terminals, int patternCount) {
+
+        this.childOffsets = childOffsets;
+        this.childLabels = childLabels;
+        this.childTargets = childTargets;
+        this.failureLinks = failureLinks;
+        this.terminals = terminals;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * Builds an automaton from the given patterns. Empty patterns are ignored since they would match any text.
+     *
+     * @param patterns The patterns to be matched.
+     * @return An automaton matching the given patterns.
+     */
+    public static AhoCorasickMatcher build(Iterable<String> patterns) {
+
+        TrieBuilder trie = new TrieBuilder();
+        int patternCount = 0;
+        for (String pattern : patterns) {
+            if (pattern != null && !pattern.isEmpty()) {
+                trie.insert(pattern);
+                patternCount++;
+            }
+        }
+        return trie.compile(patternCount);
+    }
+
+    /**
+     * Checks whether the given text contains any of the patterns of this automaton.
+     *
+     * @param text The text to be scanned.
+     * @return True if at least one pattern occurs in the text, false if else.
+     */
+    public boolean containsAny(CharSequence text) {
+
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char label = text.charAt(i);
+            int next = transition(state, label);
+            while (next == NO_STATE && state != ROOT) {
+                state = failureLinks[state];
+                next = transition(state, label);
+            }
+            state = next == NO_STATE ? ROOT : next;
+            if (terminals[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the number of patterns this automaton was built from.
+     *
+     * @return Number of patterns.
+     */
+    public int getPatternCount() {
+
+        return patternCount;
+    }
+
+    /**
+     * Retrieves the number of states of this automaton.
+     *
+     * @return Number of states.
+     */
+    public int getStateCount() {
+
+        return failureLinks.length;
+    }
+
+    private int transition(int state, char label) {
+
+        int low = childOffsets[state];
+        int high = childOffsets[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleLabel = childLabels[middle];
+            if (middleLabel < label) {
+                low = middle + 1;
+            } else if (middleLabel > label) {
+                high = middle - 1;
+            } else {
+                return childTargets[middle];
+            }
+        }
+        return NO_STATE;
+    }
+
+    /**
+     * A growable trie using first-child/next-sibling links which is compiled into the immutable automaton.
+     */
+    private static final class TrieBuilder {
+
+        private int[] firstChild = new int[1024];
+        private int[] nextSibling = new int[1024];
+        private char[] labels = new char[1024];
+        private boolean[] ends = new boolean[1024];
+        private int size;
+
+        TrieBuilder() {
+
+            firstChild[ROOT] = NO_STATE;
+            nextSibling[ROOT] = NO_STATE;
+            size = 1;
+        }
+
+        void insert(String pattern) {
+
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char label = pattern.charAt(i);
+                int child = firstChild[node];
+                while (child != NO_STATE && labels[child] != label) {
+                    child = nextSibling[child];
+                }
+                if (child == NO_STATE) {
+                    child = newNode(label);
+                    nextSibling[child] = firstChild[node];
+                    firstChild[node] = child;
+                }
+                node = child;
+            }
+            ends[node] = true;
+        }
+
+        private int newNode(char label) {
+
+            if (size == labels.length) {
+                int capacity = size + (size >> 1);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+            firstChild[size] = NO_STATE;
+            nextSibling[size] = NO_STATE;
+            labels[size] = label;
+            return size++;
+        }
+
+        AhoCorasickMatcher compile(int patternCount) {
+
+            // Renumber the nodes in breadth first order so that the children of every state are contiguous and
+            // every failure link points to a state which has already been processed.
+            int[] order = new int[size];
+            int[] childOffsets = new int[size + 1];
+            char[] childLabels = new char[size - 1];
+            int[] childTargets = new int[size - 1];
+            boolean[] terminals = new boolean[size];
+            long[] children = new long[16];
+
+            int tail = 1;
+            int edge = 0;
+            for (int state = 0; state < size; state++) {
+                int node = order[state];
+                terminals[state] = ends[node];
+                int childCount = 0;
+                for (int child = firstChild[node]; child != NO_STATE; child = nextSibling[child]) {
+                    if (childCount == children.length) {
+                        children = Arrays.copyOf(children, childCount * 2);
+                    }
+                    children[childCount++] = ((long) labels[child] << 32) | child;
+                }
+                Arrays.sort(children, 0, childCount);
+                for (int i = 0; i < childCount; i++) {
+                    childLabels[edge] = (char) (children[i] >>> 32);
+                    childTargets[edge] = tail;
+                    order[tail++] = (int) children[i];
+                    edge++;
+                }
+                childOffsets[state + 1] = edge;
+            }
+
+            int[] failureLinks = new int[size];
+            AhoCorasickMatcher matcher = new AhoCorasickMatcher(childOffsets, childLabels, childTargets,
+                    failureLinks, terminals, patternCount);
+            for (int state = 0; state < size; state++) {
+                for (int i = childOffsets[state]; i < childOffsets[state + 1]; i++) {
+                    int target = childTargets[i];
+                    int failure = ROOT;
+                    if (state != ROOT) {
+                        int candidate = failureLinks[state];
+                        int next = matcher.transition(candidate, childLabels[i]);
+                        while (next == NO_STATE && candidate != ROOT) {
+                            candidate = failureLinks[candidate];
+                            next = matcher.transition(candidate, childLabels[i]);
+                        }
+                        failure = next == NO_STATE ? ROOT : next;
+                    }
+                    failureLinks[target] = failure;
+                    terminals[target] |= terminals[failure];
+                }
+            }
+            return matcher;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.wso2.password.policy.handler.matcher;
+
+/**
+ * A Bloom filter over char sequences which is backed by a long array. Values can be added and queried as a range of a
+ * char sequence so that no substring has to be allocated. The filter is not thread safe while it is being populated,
+ * but it can be shared among threads for reading once it has been safely published.
+ */
+public final class BloomFilter {
+
+    private static final double LN_2 = Math.log(2);
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a Bloom filter sized for the given number of insertions and false positive probability.
+     *
+     * @param expectedInsertions        Number of values expected to be added.
+     * @param falsePositiveProbability The expected false positive probability at the expected number of insertions.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+
+        long insertions = Math.max(1, expectedInsertions);
+        long requiredBits = (long) Math.ceil(-insertions * Math.log(falsePositiveProbability) / (LN_2 * LN_2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (requiredBits + 63) >>> 6));
+        this.bits = new long[words];
+        this.bitCount = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * LN_2));
+    }
+
+    /**
+     * Adds the characters in the range [from, to) of the given value to the filter.
+     *
+     * @param value The value to be added.
+     * @param from  Start index of the range, inclusive.
+     * @param to    End index of the range, exclusive.
+     */
+    public void put(CharSequence value, int from, int to) {
+
+        long hash = hash(value, from, to);
+        long first = hash;
+        long second = mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((first + i * second) & Long.MAX_VALUE) % bitCount;
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    /**
+     * Checks whether the characters in the range [from, to) of the given value might have been added to the filter.
+     *
+     * @param value The value to be checked.
+     * @param from  Start index of the range, inclusive.
+     * @param to    End index of the range, exclusive.
+     * @return False if the value has definitely not been added, true if it might have been added.
+     */
+    public boolean mightContain(CharSequence value, int from, int to) {
+
+        long hash = hash(value, from, to);
+        long first = hash;
+        long second = mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((first + i * second) & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the size of the filter in bits.
+     *
+     * @return Size of the filter in bits.
+     */
+    public long getBitCount() {
+
+        return bitCount;
+    }
+
+    private static long hash(CharSequence value, int from, int to) {
+
+        long hash = 0xCBF29CE484222325L;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash ^ (to - from));
+    }
+
+    // Finalization step of the 64 bit MurmurHash3 which spreads the FNV-1a hash over all the bits.
+    private static long mix(long hash) {
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85EC9L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,78 @@
+package com.wso2.password.policy.handler.matcher;
+
+/**
+ * Builds the factor automaton of a set of words, the minimal automaton of all their suffixes, without a suffix array.
+ * The words are concatenated the same way as for the SuffixArrayIndex, and the suffixes are added to a
+ * MinimalDawg.Builder in sorted order in batches. Each batch holds the start positions of the suffixes starting with a
+ * range of characters, which are collected by a pass over the text and sorted with the multikey quicksort of the
+ * SuffixArrayIndex, so only the positions of one batch, a fraction of the suffixes, are held at any time.
+ */
+final class FactorAutomatonBuilder {
+
+    // The suffixes are added in at least this many batches, unless the suffixes starting with a single character
+    // exceed a batch.
+    private static final int MIN_BATCH_COUNT = 16;
+    private static final int CHARACTER_COUNT = Character.MAX_VALUE + 1;
+
+    private FactorAutomatonBuilder() {
+
+    }
+
+    /**
+     * Builds the factor automaton of the given words. The batches are sorted in parallel if the automaton is built by
+     * a task of a fork-join pool.
+     *
+     * @param words The words, in any order, which must not contain the line feed character.
+     * @return The minimal automaton accepting the distinct suffixes of the words.
+     */
+    static MinimalDawg build(String[] words) {
+
+        char[] text = SuffixArrayIndex.concatenate(words);
+        int[] suffixCounts = new int[CHARACTER_COUNT];
+        for (char c : text) {
+            suffixCounts[c]++;
+        }
+        suffixCounts[SuffixArrayIndex.SEPARATOR] = 0;
+        int batchCapacity = (text.length - words.length + MIN_BATCH_COUNT - 1) / MIN_BATCH_COUNT;
+        for (int count : suffixCounts) {
+            batchCapacity = Math.max(batchCapacity, count);
+        }
+
+        int[] batch = new int[batchCapacity];
+        MinimalDawg.Builder builder = new MinimalDawg.Builder();
+        int first = 0;
+        while (first < CHARACTER_COUNT) {
+            int last = first;
+            long batchSize = suffixCounts[first];
+            while (last + 1 < CHARACTER_COUNT && batchSize + suffixCounts[last + 1] <= batchCapacity) {
+                batchSize += suffixCounts[++last];
+            }
+            if (batchSize > 0) {
+                int size = collectSuffixes(text, (char) first, (char) last, batch);
+                SuffixArrayIndex.sort(text, batch, size);
+                for (int i = 0; i < size; i++) {
+                    int end = batch[i];
+                    while (text[end] != SuffixArrayIndex.SEPARATOR) {
+                        end++;
+                    }
+                    builder.add(text, batch[i], end - batch[i]);
+                }
+            }
+            first = last + 1;
+        }
+        return builder.build();
+    }
+
+    // Collects the start positions of the suffixes starting with a character in the range [first, last].
+    private static int collectSuffixes(char[] text, char first, char last, int[] batch) {
+
+        int size = 0;
+        for (int position = 0; position < text.length; position++) {
+            char c = text[position];
+            if (c >= first && c <= last && c != SuffixArrayIndex.SEPARATOR) {
+                batch[size++] = position;
+            }
+        }
+        return size;
+    }
+}
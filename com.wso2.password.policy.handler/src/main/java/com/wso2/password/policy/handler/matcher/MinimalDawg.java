@@ -0,0 +1,421 @@
+package com.wso2.password.policy.handler.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable minimal directed acyclic word graph, the smallest deterministic automaton accepting a set of words.
+ * Words sharing prefixes share the states of the prefixes, and words sharing suffixes share the states of the
+ * suffixes, so large sets of similar words such as breached password corpora take a fraction of the memory of the
+ * words themselves. The automaton is stored in the same array based layout as the AhoCorasickMatcher: the outgoing
+ * transitions of each state are kept sorted in a shared label/target array pair, which costs six bytes per transition
+ * and four bytes per state.
+ * <p>
+ * The automaton is built with the incremental construction for sorted input of Daciuk et al., which keeps only the
+ * states of the last added word mutable and merges every other state into an equivalent registered state as soon as
+ * it cannot change any more.
+ */
+public final class MinimalDawg {
+
+    private static final int NO_STATE = -1;
+
+    // Transitions of the state i are in the range [transitionOffsets[i], transitionOffsets[i + 1]), sorted by label.
+    private final int[] transitionOffsets;
+    private final char[] transitionLabels;
+    private final int[] transitionTargets;
+    private final boolean[] finals;
+    private final int root;
+    private final int wordCount;
+
+    private MinimalDawg(int[] transitionOffsets, char[] transitionLabels, int[] transitionTargets, boolean[] finals,
+                        int root, int wordCount) {
+
+        this.transitionOffsets = transitionOffsets;
+        this.transitionLabels = transitionLabels;
+        this.transitionTargets = transitionTargets;
+        this.finals = finals;
+        this.root = root;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * Builds an automaton from the given words, which must be sorted. Empty and duplicate words are ignored.
+     *
+     * @param words The sorted words.
+     * @return An automaton accepting the given words.
+     */
+    public static MinimalDawg build(String[] words) {
+
+        Builder builder = new Builder();
+        for (String word : words) {
+            builder.add(word.toCharArray(), 0, word.length());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the factor automaton of the given words, the automaton of all their suffixes, which answers whether a
+     * pattern occurs inside any of the words by checking whether the pattern is a prefix of any word of the
+     * automaton. The suffixes are sorted and added in batches, so no suffix array of the words is built.
+     *
+     * @param words The words, in any order.
+     * @return An automaton accepting the distinct suffixes of the given words.
+     */
+    public static MinimalDawg buildFactorAutomaton(String[] words) {
+
+        return FactorAutomatonBuilder.build(words);
+    }
+
+    /**
+     * Checks whether the given text contains any of the words of this automaton.
+     *
+     * @param text The text to be scanned.
+     * @return True if at least one word occurs in the text, false if else.
+     */
+    public boolean containsAnyWord(CharSequence text) {
+
+        int length = text.length();
+        for (int start = 0; start < length; start++) {
+            int state = root;
+            for (int i = start; i < length; i++) {
+                state = transition(state, text.charAt(i));
+                if (state == NO_STATE) {
+                    break;
+                }
+                if (finals[state]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the given text is a prefix of any of the words of this automaton.
+     *
+     * @param text The text to be checked.
+     * @return True if a word starts with the text, false if else.
+     */
+    public boolean isPrefixOfAnyWord(CharSequence text) {
+
+        if (wordCount == 0) {
+            return false;
+        }
+        int state = root;
+        for (int i = 0; i < text.length() && state != NO_STATE; i++) {
+            state = transition(state, text.charAt(i));
+        }
+        return state != NO_STATE;
+    }
+
+    /**
+     * Retrieves the words of this automaton in sorted order. The words are not stored as such, so they are
+     * materialized by traversing the automaton.
+     *
+     * @return The words of this automaton.
+     */
+    public List<String> getWords() {
+
+        List<String> words = new ArrayList<>(wordCount);
+        collectWords(root, new StringBuilder(), words);
+        return words;
+    }
+
+    /**
+     * Retrieves the number of words this automaton accepts.
+     *
+     * @return Number of words.
+     */
+    public int getWordCount() {
+
+        return wordCount;
+    }
+
+    /**
+     * Retrieves the number of states of this automaton.
+     *
+     * @return Number of states.
+     */
+    public int getStateCount() {
+
+        return finals.length;
+    }
+
+    /**
+     * Retrieves the number of transitions of this automaton.
+     *
+     * @return Number of transitions.
+     */
+    public int getTransitionCount() {
+
+        return transitionLabels.length;
+    }
+
+    private void collectWords(int state, StringBuilder prefix, List<String> words) {
+
+        if (finals[state]) {
+            words.add(prefix.toString());
+        }
+        for (int i = transitionOffsets[state]; i < transitionOffsets[state + 1]; i++) {
+            prefix.append(transitionLabels[i]);
+            collectWords(transitionTargets[i], prefix, words);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+
+    private int transition(int state, char label) {
+
+        int low = transitionOffsets[state];
+        int high = transitionOffsets[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleLabel = transitionLabels[middle];
+            if (middleLabel < label) {
+                low = middle + 1;
+            } else if (middleLabel > label) {
+                high = middle - 1;
+            } else {
+                return transitionTargets[middle];
+            }
+        }
+        return NO_STATE;
+    }
+
+    /**
+     * Builds a minimal automaton from words which are added in sorted order. The states on the path of the last added
+     * word are kept as mutable nodes, one per depth, and the registered states are stored directly in the array
+     * layout of the automaton, so the builder does not allocate an object per state.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        // Registered states.
+        private int[] offsets = new int[INITIAL_CAPACITY + 1];
+        private char[] labels = new char[INITIAL_CAPACITY];
+        private int[] targets = new int[INITIAL_CAPACITY];
+        private boolean[] stateFinals = new boolean[INITIAL_CAPACITY];
+        private int stateCount;
+        private int transitionCount;
+        // Open addressing hash table of the registered states, holding the state ids plus one.
+        private int[] register = new int[INITIAL_CAPACITY];
+
+        // Mutable nodes on the path of the last added word, the node at depth i being reached by previousWord[i - 1].
+        private char[][] nodeLabels = new char[16][];
+        private int[][] nodeTargets = new int[16][];
+        private int[] nodeTransitionCounts = new int[16];
+        private boolean[] nodeFinals = new boolean[16];
+        private char[] previousWord = new char[16];
+        private int previousLength;
+        private int wordCount;
+
+        /**
+         * Creates a builder.
+         */
+        public Builder() {
+
+            resetNode(0);
+        }
+
+        /**
+         * Adds a word, which must not be smaller than the previously added word. Empty words and words equal to the
+         * previously added word are ignored.
+         *
+         * @param chars  Characters containing the word.
+         * @param offset Offset of the word in the characters.
+         * @param length Length of the word.
+         */
+        public void add(char[] chars, int offset, int length) {
+
+            if (length == 0) {
+                return;
+            }
+            int prefixLength = 0;
+            int maxPrefixLength = Math.min(length, previousLength);
+            while (prefixLength < maxPrefixLength && previousWord[prefixLength] == chars[offset + prefixLength]) {
+                prefixLength++;
+            }
+            if (wordCount > 0) {
+                if (prefixLength == length) {
+                    // Equal to, or a prefix of, the previous word.
+                    if (length == previousLength) {
+                        return;
+                    }
+                    throw new IllegalArgumentException("The words are not added in sorted order.");
+                }
+                if (prefixLength < previousLength && chars[offset + prefixLength] < previousWord[prefixLength]) {
+                    throw new IllegalArgumentException("The words are not added in sorted order.");
+                }
+            }
+
+            registerPath(prefixLength);
+            ensureDepth(length);
+            for (int depth = prefixLength + 1; depth <= length; depth++) {
+                resetNode(depth);
+            }
+            nodeFinals[length] = true;
+            System.arraycopy(chars, offset + prefixLength, previousWord, prefixLength, length - prefixLength);
+            previousLength = length;
+            wordCount++;
+        }
+
+        /**
+         * Builds the automaton from the added words. The builder cannot be used any more afterwards, since it
+         * releases its arrays as soon as they have been trimmed, so the heap never holds the register and two copies
+         * of the automaton at once.
+         *
+         * @return An automaton accepting the added words.
+         */
+        public MinimalDawg build() {
+
+            registerPath(0);
+            int root = registerNode(0);
+            register = null;
+            int[] transitionTargets = Arrays.copyOf(targets, transitionCount);
+            targets = null;
+            int[] transitionOffsets = Arrays.copyOf(offsets, stateCount + 1);
+            offsets = null;
+            char[] transitionLabels = Arrays.copyOf(labels, transitionCount);
+            labels = null;
+            boolean[] finals = Arrays.copyOf(stateFinals, stateCount);
+            stateFinals = null;
+            return new MinimalDawg(transitionOffsets, transitionLabels, transitionTargets, finals, root, wordCount);
+        }
+
+        // Registers the nodes on the path of the previous word which are deeper than the given depth.
+        private void registerPath(int depth) {
+
+            for (int i = previousLength; i > depth; i--) {
+                int state = registerNode(i);
+                addNodeTransition(i - 1, previousWord[i - 1], state);
+            }
+            previousLength = Math.min(previousLength, depth);
+        }
+
+        // Retrieves the registered state equivalent to a node, registering the node if there is no such state.
+        private int registerNode(int depth) {
+
+            int count = nodeTransitionCounts[depth];
+            char[] candidateLabels = nodeLabels[depth];
+            int[] candidateTargets = nodeTargets[depth];
+            boolean candidateFinal = nodeFinals[depth];
+
+            int hash = candidateFinal ? 1 : 0;
+            for (int i = 0; i < count; i++) {
+                hash = 31 * (31 * hash + candidateLabels[i]) + candidateTargets[i];
+            }
+            int mask = register.length - 1;
+            int slot = mix(hash) & mask;
+            while (register[slot] != 0) {
+                int state = register[slot] - 1;
+                if (isEquivalent(state, candidateLabels, candidateTargets, count, candidateFinal)) {
+                    return state;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int state = newState(candidateLabels, candidateTargets, count, candidateFinal);
+            register[slot] = state + 1;
+            if (stateCount * 2 > register.length) {
+                rehash();
+            }
+            return state;
+        }
+
+        private boolean isEquivalent(int state, char[] candidateLabels, int[] candidateTargets, int count,
+                                     boolean candidateFinal) {
+
+            int start = offsets[state];
+            if (stateFinals[state] != candidateFinal || offsets[state + 1] - start != count) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (labels[start + i] != candidateLabels[i] || targets[start + i] != candidateTargets[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int newState(char[] candidateLabels, int[] candidateTargets, int count, boolean candidateFinal) {
+
+            if (stateCount == stateFinals.length) {
+                stateFinals = Arrays.copyOf(stateFinals, stateCount * 2);
+                offsets = Arrays.copyOf(offsets, stateCount * 2 + 1);
+            }
+            if (transitionCount + count > labels.length) {
+                int capacity = Math.max(labels.length * 2, transitionCount + count);
+                labels = Arrays.copyOf(labels, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+            }
+            System.arraycopy(candidateLabels, 0, labels, transitionCount, count);
+            System.arraycopy(candidateTargets, 0, targets, transitionCount, count);
+            int state = stateCount++;
+            stateFinals[state] = candidateFinal;
+            offsets[state] = transitionCount;
+            transitionCount += count;
+            offsets[stateCount] = transitionCount;
+            return state;
+        }
+
+        private void rehash() {
+
+            int[] rehashed = new int[register.length * 2];
+            int mask = rehashed.length - 1;
+            for (int state = 0; state < stateCount; state++) {
+                int hash = stateFinals[state] ? 1 : 0;
+                for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+                    hash = 31 * (31 * hash + labels[i]) + targets[i];
+                }
+                int slot = mix(hash) & mask;
+                while (rehashed[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                rehashed[slot] = state + 1;
+            }
+            register = rehashed;
+        }
+
+        private void addNodeTransition(int depth, char label, int target) {
+
+            int count = nodeTransitionCounts[depth];
+            if (count == nodeLabels[depth].length) {
+                nodeLabels[depth] = Arrays.copyOf(nodeLabels[depth], count * 2);
+                nodeTargets[depth] = Arrays.copyOf(nodeTargets[depth], count * 2);
+            }
+            nodeLabels[depth][count] = label;
+            nodeTargets[depth][count] = target;
+            nodeTransitionCounts[depth] = count + 1;
+        }
+
+        private void resetNode(int depth) {
+
+            if (nodeLabels[depth] == null) {
+                nodeLabels[depth] = new char[4];
+                nodeTargets[depth] = new int[4];
+            }
+            nodeTransitionCounts[depth] = 0;
+            nodeFinals[depth] = false;
+        }
+
+        private void ensureDepth(int depth) {
+
+            if (depth < nodeFinals.length) {
+                return;
+            }
+            int capacity = Math.max(nodeFinals.length * 2, depth + 1);
+            nodeLabels = Arrays.copyOf(nodeLabels, capacity);
+            nodeTargets = Arrays.copyOf(nodeTargets, capacity);
+            nodeTransitionCounts = Arrays.copyOf(nodeTransitionCounts, capacity);
+            nodeFinals = Arrays.copyOf(nodeFinals, capacity);
+            previousWord = Arrays.copyOf(previousWord, capacity);
+        }
+
+        private static int mix(int hash) {
+
+            int mixed = hash * 0x9E3779B9;
+            return mixed ^ (mixed >>> 16);
+        }
+    }
+}
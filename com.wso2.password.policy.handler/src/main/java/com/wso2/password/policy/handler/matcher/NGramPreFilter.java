@@ -0,0 +1,70 @@
+package com.wso2.password.policy.handler.matcher;
+
+import java.util.Locale;
+
+/**
+ * A probabilistic pre-filter which tells whether a credential might be a part of any of the common passwords. The
+ * filter holds every substring of up to the gram length characters of the common passwords in a Bloom filter. A
+ * credential can only be contained in a common password if all of its grams (or the credential itself, if it is
+ * shorter than a gram) occur in that common password, so a missing gram proves that there is no match.
+ */
+public final class NGramPreFilter {
+
+    private final BloomFilter bloomFilter;
+    private final int gramLength;
+
+    /**
+     * Creates an empty pre-filter.
+     *
+     * @param expectedCommonPasswords  Number of common passwords expected to be added.
+     * @param gramLength               Length of the grams.
+     * @param falsePositiveProbability Expected false positive probability of a single gram lookup.
+     */
+    public NGramPreFilter(long expectedCommonPasswords, int gramLength, double falsePositiveProbability) {
+
+        // Neighbouring common passwords share most of their grams, so twice the gram length is a fair estimate of the
+        // new grams contributed by each common password.
+        this.bloomFilter = new BloomFilter(expectedCommonPasswords * gramLength * 2, falsePositiveProbability);
+        this.gramLength = gramLength;
+    }
+
+    /**
+     * Adds the grams of a common password to the filter. The common password is lower cased since the credentials
+     * are lower cased before they are checked.
+     *
+     * @param commonPassword The common password.
+     */
+    public void add(String commonPassword) {
+
+        String value = commonPassword.toLowerCase(Locale.ROOT);
+        for (int start = 0; start < value.length(); start++) {
+            int end = Math.min(value.length(), start + gramLength);
+            for (int i = start + 1; i <= end; i++) {
+                bloomFilter.put(value, start, i);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given credential might be a part of any of the added common passwords.
+     *
+     * @param credential The normalized credential.
+     * @return False if no common password contains the credential, true if a common password might contain it.
+     */
+    public boolean mightBeContained(CharSequence credential) {
+
+        int length = credential.length();
+        if (length == 0) {
+            return true;
+        }
+        if (length <= gramLength) {
+            return bloomFilter.mightContain(credential, 0, length);
+        }
+        for (int start = 0; start + gramLength <= length; start++) {
+            if (!bloomFilter.mightContain(credential, start, start + gramLength)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
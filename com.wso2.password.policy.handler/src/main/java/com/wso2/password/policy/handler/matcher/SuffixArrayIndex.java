@@ -0,0 +1,324 @@
+package com.wso2.password.policy.handler.matcher;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An immutable suffix array over a set of words which answers whether a given pattern occurs inside any of the words.
+ * The words are concatenated into a single char array using a separator, and the suffix array keeps the sorted start
+ * positions of all suffixes in an int array, so the index costs six bytes per indexed character.
+ * <p>
+ * A lookup is a binary search over the sorted suffixes which skips the prefix already known to be shared with both
+ * ends of the search range, so in practice each character of the pattern is compared only a few times.
+ */
+public final class SuffixArrayIndex {
+
+    static final char SEPARATOR = '\n';
+    private static final int END_OF_WORD = -1;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    private final char[] text;
+    private final int[] suffixes;
+
+    private SuffixArrayIndex(char[] text, int[] suffixes) {
+
+        this.text = text;
+        this.suffixes = suffixes;
+    }
+
+    /**
+     * Builds a suffix array over the given words. The words must not contain the line feed character. The suffixes
+     * are sorted in parallel if the index is built by a task of a fork-join pool.
+     *
+     * @param words The words to be indexed.
+     * @return A suffix array over the given words.
+     */
+    public static SuffixArrayIndex build(String[] words) {
+
+        char[] text = concatenate(words);
+        int[] suffixes = new int[text.length - words.length];
+        int suffix = 0;
+        for (int position = 0; position < text.length; position++) {
+            if (text[position] != SEPARATOR) {
+                suffixes[suffix++] = position;
+            }
+        }
+        sort(text, suffixes, suffixes.length);
+        return new SuffixArrayIndex(text, suffixes);
+    }
+
+    /**
+     * Concatenates words into a single char array, each word followed by the separator.
+     *
+     * @param words The words, which must not contain the line feed character.
+     * @return The concatenated words.
+     */
+    static char[] concatenate(String[] words) {
+
+        int length = 0;
+        for (String word : words) {
+            length += word.length() + 1;
+        }
+        char[] text = new char[length];
+        int position = 0;
+        for (String word : words) {
+            word.getChars(0, word.length(), text, position);
+            position += word.length();
+            text[position++] = SEPARATOR;
+        }
+        return text;
+    }
+
+    /**
+     * Sorts the first suffixes of an array of suffixes of a text, in parallel if called by a task of a fork-join
+     * pool.
+     *
+     * @param text     The concatenated words.
+     * @param suffixes The start positions of the suffixes.
+     * @param size     Number of suffixes to be sorted.
+     */
+    static void sort(char[] text, int[] suffixes, int size) {
+
+        if (ForkJoinTask.inForkJoinPool()) {
+            new SortTask(text, suffixes, 0, size, 0).invoke();
+        } else {
+            sort(text, suffixes, 0, size, 0);
+        }
+    }
+
+    /**
+     * Checks whether the given pattern occurs inside any of the indexed words.
+     *
+     * @param pattern The pattern to be searched.
+     * @return True if any of the words contains the pattern, false if else.
+     */
+    public boolean containsSubstring(CharSequence pattern) {
+
+        int patternLength = pattern.length();
+        if (suffixes.length == 0) {
+            return false;
+        }
+        if (patternLength == 0) {
+            return true;
+        }
+
+        int low = 0;
+        int high = suffixes.length - 1;
+        int lowPrefix = commonPrefix(pattern, suffixes[low], 0);
+        int highPrefix = commonPrefix(pattern, suffixes[high], 0);
+        if (lowPrefix == patternLength || highPrefix == patternLength) {
+            return true;
+        }
+        if (compare(pattern, suffixes[low], lowPrefix) < 0 || compare(pattern, suffixes[high], highPrefix) > 0) {
+            return false;
+        }
+
+        // Invariant: suffix[low] < pattern < suffix[high].
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            int middlePrefix = commonPrefix(pattern, suffixes[middle], Math.min(lowPrefix, highPrefix));
+            if (middlePrefix == patternLength) {
+                return true;
+            }
+            if (compare(pattern, suffixes[middle], middlePrefix) < 0) {
+                high = middle;
+                highPrefix = middlePrefix;
+            } else {
+                low = middle;
+                lowPrefix = middlePrefix;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the number of indexed suffixes, which is the number of indexed characters.
+     *
+     * @return Number of indexed suffixes.
+     */
+    public int getSuffixCount() {
+
+        return suffixes.length;
+    }
+
+    /**
+     * Writes the index in its binary form: the text length and the suffix count as ints, followed by the text as
+     * chars and the sorted suffixes as ints.
+     *
+     * @param output The output to write the index to.
+     * @throws IOException If an error occurs while writing the index.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+
+        output.writeInt(text.length);
+        output.writeInt(suffixes.length);
+        for (char c : text) {
+            output.writeChar(c);
+        }
+        for (int suffix : suffixes) {
+            output.writeInt(suffix);
+        }
+    }
+
+    private int commonPrefix(CharSequence pattern, int suffix, int offset) {
+
+        int patternLength = pattern.length();
+        int i = offset;
+        while (i < patternLength && text[suffix + i] != SEPARATOR && text[suffix + i] == pattern.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // Compares the pattern with the suffix at the first position in which they differ.
+    private int compare(CharSequence pattern, int suffix, int commonPrefix) {
+
+        char suffixChar = text[suffix + commonPrefix];
+        if (suffixChar == SEPARATOR) {
+            return 1;
+        }
+        return pattern.charAt(commonPrefix) < suffixChar ? -1 : 1;
+    }
+
+    private static int key(char[] text, int suffix, int depth) {
+
+        char c = text[suffix + depth];
+        return c == SEPARATOR ? END_OF_WORD : c;
+    }
+
+    /**
+     * Sorts the suffixes in the range [from, to) which share their first depth characters using a multikey
+     * quicksort. Suffixes end at the word separator, so the recursion depth is bounded by the longest word.
+     */
+    private static void sort(char[] text, int[] suffixes, int from, int to, int depth) {
+
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int pivot = medianKey(text, suffixes, from, to, depth);
+            int[] bounds = partition(text, suffixes, from, to, depth, pivot);
+            int lessEnd = bounds[0];
+            int greaterStart = bounds[1];
+            if (pivot != END_OF_WORD) {
+                sort(text, suffixes, lessEnd, greaterStart, depth + 1);
+            }
+            // Recurse into the smaller partition and iterate over the larger one to bound the stack depth.
+            if (lessEnd - from < to - greaterStart) {
+                sort(text, suffixes, from, lessEnd, depth);
+                from = greaterStart;
+            } else {
+                sort(text, suffixes, greaterStart, to, depth);
+                to = lessEnd;
+            }
+        }
+        insertionSort(text, suffixes, from, to, depth);
+    }
+
+    /**
+     * Partitions the suffixes in the range [from, to) by their character at the given depth into the suffixes with a
+     * smaller, an equal and a greater character than the pivot.
+     *
+     * @return The end of the smaller and the start of the greater partition.
+     */
+    private static int[] partition(char[] text, int[] suffixes, int from, int to, int depth, int pivot) {
+
+        int lessEnd = from;
+        int greaterStart = to;
+        int i = from;
+        while (i < greaterStart) {
+            int current = key(text, suffixes[i], depth);
+            if (current < pivot) {
+                swap(suffixes, lessEnd++, i++);
+            } else if (current > pivot) {
+                swap(suffixes, i, --greaterStart);
+            } else {
+                i++;
+            }
+        }
+        return new int[]{lessEnd, greaterStart};
+    }
+
+    private static int medianKey(char[] text, int[] suffixes, int from, int to, int depth) {
+
+        int first = key(text, suffixes[from], depth);
+        int middle = key(text, suffixes[(from + to) >>> 1], depth);
+        int last = key(text, suffixes[to - 1], depth);
+        return Math.max(Math.min(first, middle), Math.min(Math.max(first, middle), last));
+    }
+
+    private static void insertionSort(char[] text, int[] suffixes, int from, int to, int depth) {
+
+        for (int i = from + 1; i < to; i++) {
+            int suffix = suffixes[i];
+            int j = i - 1;
+            while (j >= from && compareSuffixes(text, suffixes[j], suffix, depth) > 0) {
+                suffixes[j + 1] = suffixes[j];
+                j--;
+            }
+            suffixes[j + 1] = suffix;
+        }
+    }
+
+    private static int compareSuffixes(char[] text, int first, int second, int depth) {
+
+        int i = depth;
+        while (true) {
+            int firstKey = key(text, first, i);
+            int secondKey = key(text, second, i);
+            if (firstKey != secondKey || firstKey == END_OF_WORD) {
+                return firstKey - secondKey;
+            }
+            i++;
+        }
+    }
+
+    private static void swap(int[] values, int i, int j) {
+
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    /**
+     * Sorts the suffixes in a range with the multikey quicksort, sorting the three partitions of large ranges in
+     * parallel. The partitions are disjoint ranges of the suffix array, so the tasks never touch the same elements.
+     */
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final char[] text;
+        private final int[] suffixes;
+        private final int from;
+        private final int to;
+        private final int depth;
+
+        SortTask(char[] text, int[] suffixes, int from, int to, int depth) {
+
+            this.text = text;
+            this.suffixes = suffixes;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= PARALLEL_SORT_THRESHOLD) {
+                sort(text, suffixes, from, to, depth);
+                return;
+            }
+            int pivot = medianKey(text, suffixes, from, to, depth);
+            int[] bounds = partition(text, suffixes, from, to, depth, pivot);
+            SortTask less = new SortTask(text, suffixes, from, bounds[0], depth);
+            SortTask greater = new SortTask(text, suffixes, bounds[1], to, depth);
+            if (pivot == END_OF_WORD) {
+                invokeAll(less, greater);
+            } else {
+                invokeAll(less, new SortTask(text, suffixes, bounds[0], bounds[1], depth + 1), greater);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.wso2.password.policy.handler.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies and the outcomes of the lookups of a cache, exposed as a standard MBean.
+ */
+public class CacheStatistics extends LatencyStatistics implements CacheStatisticsMBean {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Records the latency and the outcome of a lookup.
+     *
+     * @param nanos The latency in nanoseconds.
+     * @param hit   Whether the value was found in the cache.
+     */
+    public void record(long nanos, boolean hit) {
+
+        record(nanos);
+        if (hit) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+
+        return missCount.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+
+        long hits = hitCount.sum();
+        long lookups = hits + missCount.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+        hitCount.reset();
+        missCount.reset();
+    }
+}
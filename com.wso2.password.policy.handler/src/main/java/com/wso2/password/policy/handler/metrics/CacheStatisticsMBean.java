@@ -0,0 +1,13 @@
+package com.wso2.password.policy.handler.metrics;
+
+/**
+ * JMX view of the latencies and the outcomes of the lookups of a cache.
+ */
+public interface CacheStatisticsMBean extends LatencyStatisticsMBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+}
@@ -0,0 +1,124 @@
+package com.wso2.password.policy.handler.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of latencies in nanoseconds. Values below 16 are counted exactly, and every larger power of
+ * two range is split into 8 linear buckets, so the percentiles are reported with a relative error below 12.5% using a
+ * fixed number of counters.
+ */
+public class LatencyHistogram {
+
+    private static final int EXACT_BUCKETS = 16;
+    private static final int EXACT_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = EXACT_BUCKETS + (Long.SIZE - 1 - EXACT_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(getBucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            // Retry until the maximum is at least the recorded value.
+        }
+    }
+
+    public long getCount() {
+
+        return count.sum();
+    }
+
+    public long getMax() {
+
+        return max.get();
+    }
+
+    /**
+     * Retrieves the mean of the recorded latencies.
+     *
+     * @return The mean in nanoseconds, 0 if no latency has been recorded.
+     */
+    public double getMean() {
+
+        long currentCount = count.sum();
+        return currentCount == 0 ? 0 : (double) sum.sum() / currentCount;
+    }
+
+    /**
+     * Retrieves a percentile of the recorded latencies, as the upper bound of the bucket which contains it.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The percentile in nanoseconds, 0 if no latency has been recorded.
+     */
+    public long getPercentile(double percentile) {
+
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears the recorded latencies.
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int getBucketIndex(long value) {
+
+        if (value < EXACT_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_BUCKETS + (exponent - EXACT_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long getBucketUpperBound(int index) {
+
+        if (index < EXACT_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - EXACT_BUCKETS) / SUB_BUCKETS + EXACT_BUCKET_BITS;
+        long subBucket = (index - EXACT_BUCKETS) % SUB_BUCKETS;
+        long lowerBound = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
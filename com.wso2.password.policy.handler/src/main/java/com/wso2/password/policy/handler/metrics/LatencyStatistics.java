@@ -0,0 +1,71 @@
+package com.wso2.password.policy.handler.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latencies of a password policy evaluation stage, exposed as a standard MBean.
+ */
+public class LatencyStatistics implements LatencyStatisticsMBean {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+
+        histogram.record(nanos);
+    }
+
+    @Override
+    public long getCount() {
+
+        return histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMillis() {
+
+        return histogram.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+
+        return histogram.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP90Millis() {
+
+        return histogram.getPercentile(90) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+
+        return histogram.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP999Millis() {
+
+        return histogram.getPercentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+
+        return histogram.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+
+        histogram.reset();
+    }
+}
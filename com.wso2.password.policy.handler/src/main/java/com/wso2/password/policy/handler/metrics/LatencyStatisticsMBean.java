@@ -0,0 +1,23 @@
+package com.wso2.password.policy.handler.metrics;
+
+/**
+ * JMX view of the latencies of a password policy evaluation stage.
+ */
+public interface LatencyStatisticsMBean {
+
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,177 @@
+package com.wso2.password.policy.handler.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A singleton registry of the latency histograms and the accept and reject counters of the password policy
+ * evaluation, per stage, per validator and per tenant, and of the hit and miss counters of the caches. Each of them is
+ * registered as an MBean under the com.wso2.password.policy.handler domain when it is first used. The metrics are
+ * collected unless the enablePasswordPolicyMetrics system property is set to false.
+ */
+public class PasswordPolicyMetrics {
+
+    private static final Log log = LogFactory.getLog(PasswordPolicyMetrics.class);
+    private static final String DOMAIN = "com.wso2.password.policy.handler";
+    private static final PasswordPolicyMetrics passwordPolicyMetrics = new PasswordPolicyMetrics();
+
+    private final boolean enabled;
+    private final ConcurrentMap<String, LatencyStatistics> stageStatistics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ValidationStatistics> validatorStatistics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ValidationStatistics> tenantStatistics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CacheStatistics> cacheStatistics = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private PasswordPolicyMetrics() {
+
+        enabled = Boolean.parseBoolean(System.getProperty("enablePasswordPolicyMetrics", "true"));
+    }
+
+    /**
+     * Retrieve the singleton instance of the PasswordPolicyMetrics.
+     *
+     * @return An instance of the PasswordPolicyMetrics.
+     */
+    public static PasswordPolicyMetrics getInstance() {
+
+        return passwordPolicyMetrics;
+    }
+
+    /**
+     * Starts timing a stage or a validation.
+     *
+     * @return The start time to be passed to the record methods, 0 if the metrics are disabled.
+     */
+    public long startTimer() {
+
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the latency of a stage.
+     *
+     * @param stage     The stage.
+     * @param startTime The start time returned by startTimer.
+     */
+    public void recordStage(PasswordPolicyStage stage, long startTime) {
+
+        if (enabled) {
+            getStatistics(stageStatistics, "Stage", stage.getName(), LatencyStatistics::new)
+                    .record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Records the latency and the outcome of a validation by a validator.
+     *
+     * @param validatorName Name of the validator.
+     * @param startTime     The start time returned by startTimer.
+     * @param accepted      Whether the credential was accepted.
+     */
+    public void recordValidator(String validatorName, long startTime, boolean accepted) {
+
+        if (enabled) {
+            getStatistics(validatorStatistics, "Validator", validatorName, ValidationStatistics::new)
+                    .record(System.nanoTime() - startTime, accepted);
+        }
+    }
+
+    /**
+     * Records the latency and the outcome of the handling of a password update event of a tenant.
+     *
+     * @param tenantDomain The tenant domain.
+     * @param startTime    The start time returned by startTimer.
+     * @param accepted     Whether the credential was accepted.
+     */
+    public void recordTenant(String tenantDomain, long startTime, boolean accepted) {
+
+        if (enabled) {
+            getStatistics(tenantStatistics, "Tenant", tenantDomain, ValidationStatistics::new)
+                    .record(System.nanoTime() - startTime, accepted);
+        }
+    }
+
+    /**
+     * Records the latency and the outcome of a lookup of a cache.
+     *
+     * @param cacheName Name of the cache.
+     * @param startTime The start time returned by startTimer.
+     * @param hit       Whether the value was found in the cache.
+     */
+    public void recordCache(String cacheName, long startTime, boolean hit) {
+
+        if (enabled) {
+            getStatistics(cacheStatistics, "Cache", cacheName, CacheStatistics::new)
+                    .record(System.nanoTime() - startTime, hit);
+        }
+    }
+
+    /**
+     * Unregisters all the MBeans of the metrics and clears the collected metrics.
+     */
+    public void unregisterAll() {
+
+        unregister(stageStatistics, "Stage");
+        unregister(validatorStatistics, "Validator");
+        unregister(tenantStatistics, "Tenant");
+        unregister(cacheStatistics, "Cache");
+    }
+
+    private <T extends LatencyStatistics> T getStatistics(ConcurrentMap<String, T> statistics, String type,
+                                                          String name, Supplier<T> statisticsFactory) {
+
+        T existingStatistics = statistics.get(name);
+        if (existingStatistics != null) {
+            return existingStatistics;
+        }
+        T newStatistics = statisticsFactory.get();
+        existingStatistics = statistics.putIfAbsent(name, newStatistics);
+        if (existingStatistics != null) {
+            return existingStatistics;
+        }
+        try {
+            getMBeanServer().registerMBean(newStatistics, getObjectName(type, name));
+        } catch (JMException exception) {
+            log.warn(String.format("The password policy metrics of the %s %s could not be registered as an MBean.",
+                    type, name), exception);
+        }
+        return newStatistics;
+    }
+
+    private static <T extends LatencyStatistics> void unregister(ConcurrentMap<String, T> statistics, String type) {
+
+        for (Map.Entry<String, T> entry : statistics.entrySet()) {
+            try {
+                ObjectName objectName = getObjectName(type, entry.getKey());
+                if (getMBeanServer().isRegistered(objectName)) {
+                    getMBeanServer().unregisterMBean(objectName);
+                }
+            } catch (JMException exception) {
+                log.warn(String.format("The password policy metrics MBean of the %s %s could not be unregistered.",
+                        type, entry.getKey()), exception);
+            }
+        }
+        statistics.clear();
+    }
+
+    private static ObjectName getObjectName(String type, String name) throws JMException {
+
+        return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    private static MBeanServer getMBeanServer() {
+
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+}
@@ -0,0 +1,28 @@
+package com.wso2.password.policy.handler.metrics;
+
+/**
+ * The stages of the evaluation of the password policies which are timed.
+ */
+public enum PasswordPolicyStage {
+
+    // Handling of a whole password update event.
+    HANDLE_EVENT("handleEvent"),
+    // Retrieval of the password policy configuration of the tenant.
+    CONFIG_LOOKUP("configLookup"),
+    // Retrieval of the restricted claims of the user from the user store.
+    CLAIM_RETRIEVAL("claimRetrieval"),
+    // Queries of the common password store.
+    DB_QUERY("dbQuery");
+
+    private final String name;
+
+    PasswordPolicyStage(String name) {
+
+        this.name = name;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+}
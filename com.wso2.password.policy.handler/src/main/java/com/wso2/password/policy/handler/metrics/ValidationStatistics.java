@@ -0,0 +1,48 @@
+package com.wso2.password.policy.handler.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies and the outcomes of the validations of a validator or a tenant, exposed as a standard MBean.
+ */
+public class ValidationStatistics extends LatencyStatistics implements ValidationStatisticsMBean {
+
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Records the latency and the outcome of a validation.
+     *
+     * @param nanos    The latency in nanoseconds.
+     * @param accepted Whether the credential was accepted.
+     */
+    public void record(long nanos, boolean accepted) {
+
+        record(nanos);
+        if (accepted) {
+            acceptedCount.increment();
+        } else {
+            rejectedCount.increment();
+        }
+    }
+
+    @Override
+    public long getAcceptedCount() {
+
+        return acceptedCount.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+        acceptedCount.reset();
+        rejectedCount.reset();
+    }
+}
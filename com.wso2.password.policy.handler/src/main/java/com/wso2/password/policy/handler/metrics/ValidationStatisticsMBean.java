@@ -0,0 +1,11 @@
+package com.wso2.password.policy.handler.metrics;
+
+/**
+ * JMX view of the latencies and the outcomes of the validations of a validator or a tenant.
+ */
+public interface ValidationStatisticsMBean extends LatencyStatisticsMBean {
+
+    long getAcceptedCount();
+
+    long getRejectedCount();
+}
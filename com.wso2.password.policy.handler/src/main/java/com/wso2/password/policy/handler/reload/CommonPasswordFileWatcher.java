@@ -0,0 +1,159 @@
+package com.wso2.password.policy.handler.reload;
+
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the common password file and reloads the data of a validator in a background thread when the file is
+ * created or modified. The validator keeps serving the validations with its previous data until the new data has been
+ * prepared and swapped in, so a reload does not stall the password updates.
+ * <p>
+ * The file is reloaded once no further change of the directory has been seen for a quiet period, so a file which is
+ * being copied is not read half written. Compiled dictionaries are memory mapped and have to be replaced by moving
+ * a new file over them instead of being overwritten in place.
+ */
+public class CommonPasswordFileWatcher implements Runnable {
+
+    private static final Log log = LogFactory.getLog(CommonPasswordFileWatcher.class);
+
+    private final Path commonPasswordFilePath;
+    private final AbstractPasswordValidator validator;
+    private final long quietPeriodMillis;
+    private WatchService watchService;
+    private Thread watcherThread;
+    private String loadedFileVersion;
+
+    /**
+     * Creates a watcher.
+     *
+     * @param commonPasswordFilePath Path of the common password file.
+     * @param validator              The validator whose data is reloaded when the file changes.
+     * @param quietPeriodMillis      Time without changes to wait for before reloading, in milliseconds.
+     */
+    public CommonPasswordFileWatcher(Path commonPasswordFilePath, AbstractPasswordValidator validator,
+                                     long quietPeriodMillis) {
+
+        this.commonPasswordFilePath = commonPasswordFilePath.toAbsolutePath();
+        this.validator = validator;
+        this.quietPeriodMillis = quietPeriodMillis;
+    }
+
+    /**
+     * Starts watching the directory of the common password file.
+     *
+     * @throws IOException If the directory cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+
+        if (watcherThread != null) {
+            return;
+        }
+        Path directory = commonPasswordFilePath.getParent();
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        loadedFileVersion = getFileVersion();
+        watcherThread = new Thread(this, "common-password-file-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        if (log.isDebugEnabled()) {
+            log.debug("Started watching the common password file: " + commonPasswordFilePath);
+        }
+    }
+
+    /**
+     * Stops watching the common password file.
+     */
+    public synchronized void stop() {
+
+        if (watcherThread == null) {
+            return;
+        }
+        watcherThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException exception) {
+            log.error("An error occurred while closing the common password file watcher.", exception);
+        }
+        watcherThread = null;
+    }
+
+    @Override
+    public void run() {
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!isCommonPasswordFileChanged(watchService.take())) {
+                    continue;
+                }
+                // Wait until the file has not been changed for the quiet period.
+                WatchKey watchKey;
+                while ((watchKey = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS)) != null) {
+                    isCommonPasswordFileChanged(watchKey);
+                }
+                reload();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException exception) {
+            // The watcher has been stopped.
+        }
+    }
+
+    private boolean isCommonPasswordFileChanged(WatchKey watchKey) {
+
+        boolean changed = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                    commonPasswordFilePath.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        watchKey.reset();
+        return changed;
+    }
+
+    private void reload() {
+
+        String fileVersion = getFileVersion();
+        if (fileVersion == null) {
+            log.warn("The common password file " + commonPasswordFilePath + " has been removed. The previously "
+                    + "loaded common passwords are kept.");
+            return;
+        }
+        if (fileVersion.equals(loadedFileVersion) || !validator.isDataInitialized()) {
+            // The data which is not initialized yet is read from the changed file once it is initialized.
+            return;
+        }
+        try {
+            validator.reloadData();
+            loadedFileVersion = fileVersion;
+            log.info("Reloaded the common passwords from " + commonPasswordFilePath);
+        } catch (WSO2Exception | RuntimeException exception) {
+            log.error("An error occurred while reloading the common passwords from " + commonPasswordFilePath
+                    + ". The previously loaded common passwords are kept.", exception);
+        }
+    }
+
+    // Identifies the version of the file to skip the events which do not change it.
+    private String getFileVersion() {
+
+        try {
+            return Files.size(commonPasswordFilePath) + "-" +
+                    Files.getLastModifiedTime(commonPasswordFilePath).toMillis();
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.wso2.password.policy.handler.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A reusable char buffer holding a normalized credential, lower cased and without any whitespace, so the credentials
+ * can be normalized and matched without creating strings. The buffers are pooled per thread, and are zeroed when they
+ * are closed so the credentials do not remain in memory after the validation.
+ * <p>
+ * A buffer has to be closed by the thread which created it, and must not be used after it has been closed:
+ * <pre>
+ * try (CredentialBuffer normalizedCredential = CredentialBuffer.normalize(credential)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class CredentialBuffer implements CharSequence, AutoCloseable {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final ThreadLocal<Deque<CredentialBuffer>> pooledBuffers =
+            new ThreadLocal<Deque<CredentialBuffer>>() {
+        @Override
+        protected Deque<CredentialBuffer> initialValue() {
+
+            return new ArrayDeque<>(MAX_POOLED_BUFFERS);
+        }
+    };
+
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private int length;
+
+    private CredentialBuffer() {
+
+    }
+
+    /**
+     * Normalizes a value into a buffer of the pool of the current thread.
+     *
+     * @param value The value to be normalized.
+     * @return A buffer holding the lower cased value without any whitespace, which has to be closed after use.
+     */
+    public static CredentialBuffer normalize(CharSequence value) {
+
+        CredentialBuffer buffer = pooledBuffers.get().poll();
+        if (buffer == null) {
+            buffer = new CredentialBuffer();
+        }
+        buffer.append(value);
+        return buffer;
+    }
+
+    @Override
+    public int length() {
+
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        }
+        return chars[index];
+    }
+
+    /**
+     * Copies a range of the normalized value into a new string.
+     *
+     * @param start Start of the range, inclusive.
+     * @param end   End of the range, exclusive.
+     * @return A string holding the characters of the range.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Length: " + length);
+        }
+        return new String(chars, start, end - start);
+    }
+
+    /**
+     * Copies the normalized value into a new string, which cannot be zeroed, so it should only be used where a string
+     * is required.
+     *
+     * @return A string holding the normalized value.
+     */
+    @Override
+    public String toString() {
+
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Zeroes the buffer and returns it to the pool of the current thread.
+     */
+    @Override
+    public void close() {
+
+        Arrays.fill(chars, 0, length, '\0');
+        length = 0;
+        Deque<CredentialBuffer> pool = pooledBuffers.get();
+        if (pool.size() < MAX_POOLED_BUFFERS) {
+            pool.push(this);
+        }
+    }
+
+    // Appends the value lower cased code point by code point, skipping the whitespace.
+    private void append(CharSequence value) {
+
+        int valueLength = value.length();
+        int i = 0;
+        while (i < valueLength) {
+            int codePoint = Character.codePointAt(value, i);
+            i += Character.charCount(codePoint);
+            if (Character.isWhitespace(codePoint)) {
+                continue;
+            }
+            int lowerCaseCodePoint = Character.toLowerCase(codePoint);
+            ensureCapacity(length + 2);
+            length += Character.toChars(lowerCaseCodePoint, chars, length);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+
+        if (capacity <= chars.length) {
+            return;
+        }
+        char[] grown = Arrays.copyOf(chars, Math.max(chars.length * 2, capacity));
+        Arrays.fill(chars, '\0');
+        chars = grown;
+    }
+}
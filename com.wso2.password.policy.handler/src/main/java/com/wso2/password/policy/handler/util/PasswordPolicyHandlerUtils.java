@@ -1,10 +1,16 @@
 package com.wso2.password.policy.handler.util;
 
 import com.wso2.common.constant.Constants;
+import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
+import com.wso2.password.policy.handler.validator.impl.DBBasedCommonPasswordValidator;
+import com.wso2.password.policy.handler.validator.impl.FileBasedCommonPasswordValidator;
 import org.apache.commons.lang.StringUtils;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.event.IdentityEventException;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * Exposes the utility functions required by the custom password policy handler component.
  */
@@ -33,6 +39,19 @@ public class PasswordPolicyHandlerUtils {
         return IdentityException.error(IdentityEventException.class, error.getCode(), errorDescription);
     }
 
+    /**
+     * Retrieves the common password validator which is configured to be used.
+     *
+     * @return The DB-based common password validator if it is enabled, the file-based one if else.
+     */
+    public static AbstractPasswordValidator getCommonPasswordValidator() {
+
+        if (Boolean.parseBoolean(System.getProperty("enableDBBasedCommonPasswordValidator"))) {
+            return DBBasedCommonPasswordValidator.getInstance();
+        }
+        return FileBasedCommonPasswordValidator.getInstance();
+    }
+
     /**
      * Retrieves the file path for the common password file.
      *
@@ -51,4 +70,92 @@ public class PasswordPolicyHandlerUtils {
 
         return commonPasswordFilePath;
     }
+
+    /**
+     * Retrieves the file path for the breached password hash store.
+     *
+     * @return File path of the breached password hash store.
+     */
+    public static String getBreachedPasswordFilePath() {
+
+        String customBreachedPasswordFileName = System.getProperty("breachedPasswordFileName");
+        if (StringUtils.isBlank(customBreachedPasswordFileName)) {
+            return Constants.BREACHED_PASSWORD_FILE_PATH;
+        }
+        return Constants.PASSWORD_FILE_DIR + customBreachedPasswordFileName;
+    }
+
+    /**
+     * Retrieves the file path for the tenant specific common password file of a tenant.
+     *
+     * @param tenantDomain The tenant domain.
+     * @return File path of the common password file of the tenant, null if the tenant domain cannot be used as a file
+     * name.
+     */
+    public static String getTenantCommonPasswordFilePath(String tenantDomain) {
+
+        if (StringUtils.isBlank(tenantDomain) || tenantDomain.startsWith(".") || tenantDomain.indexOf('/') >= 0
+                || tenantDomain.indexOf('\\') >= 0) {
+            return null;
+        }
+        return Constants.TENANT_PASSWORD_FILE_DIR + tenantDomain + Constants.TENANT_PASSWORD_FILE_EXTENSION;
+    }
+
+    /**
+     * Normalizes a credential or a common password so that they can be compared with each other. The credentials are
+     * normalized the same way into a CredentialBuffer, without creating a string.
+     *
+     * @param value The value to be normalized.
+     * @return The lower cased value without any whitespace.
+     */
+    public static String normalizeCredential(String value) {
+
+        try (CredentialBuffer normalizedValue = CredentialBuffer.normalize(value)) {
+            return normalizedValue.toString();
+        }
+    }
+
+    /**
+     * Checks whether a text contains a pattern, without creating strings from them.
+     *
+     * @param text    The text to be searched.
+     * @param pattern The pattern to be searched for.
+     * @return True if the pattern occurs in the text, false if else.
+     */
+    public static boolean contains(CharSequence text, CharSequence pattern) {
+
+        int patternLength = pattern.length();
+        int lastStart = text.length() - patternLength;
+        for (int start = 0; start <= lastStart; start++) {
+            int i = 0;
+            while (i < patternLength && text.charAt(start + i) == pattern.charAt(i)) {
+                i++;
+            }
+            if (i == patternLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the distinct n-grams of a value. If the number of n-grams is limited, the n-grams are picked evenly
+     * across the value including the first and the last n-gram.
+     *
+     * @param value         The value to be split into n-grams.
+     * @param nGramLength   Length of the n-grams.
+     * @param maximumNGrams Maximum number of n-grams to be retrieved.
+     * @return The distinct n-grams of the value, empty if the value is shorter than an n-gram.
+     */
+    public static Set<String> getNGrams(String value, int nGramLength, int maximumNGrams) {
+
+        Set<String> nGrams = new LinkedHashSet<>();
+        int nGramCount = value.length() - nGramLength + 1;
+        int pickedCount = Math.min(nGramCount, maximumNGrams);
+        for (int i = 0; i < pickedCount; i++) {
+            int start = pickedCount == 1 ? 0 : (int) ((long) i * (nGramCount - 1) / (pickedCount - 1));
+            nGrams.add(value.substring(start, start + nGramLength));
+        }
+        return nGrams;
+    }
 }
@@ -0,0 +1,272 @@
+package com.wso2.password.policy.handler.validator;
+
+import com.wso2.common.constant.Constants;
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.cache.CommonPasswordOverlayCache;
+import com.wso2.password.policy.handler.cache.CommonPasswordResultCache;
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
+import com.wso2.password.policy.handler.dictionary.AbstractCommonPasswordDictionary;
+import com.wso2.password.policy.handler.dictionary.impl.InMemoryCommonPasswordDictionary;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyMetrics;
+import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * CommonPasswordValidator abstract class which layers the tenant specific common passwords over the common passwords
+ * shared by all the tenants. The shared common passwords are checked by the concrete validators, and the common
+ * passwords of a tenant are read from the &lt;tenant domain&gt;.txt file of the tenants directory next to the common
+ * password file when the enableTenantCommonPasswords system property is set. The outcomes of the validations against
+ * the shared common passwords are cached in the CommonPasswordResultCache.
+ */
+public abstract class AbstractCommonPasswordValidator extends AbstractPasswordValidator {
+
+    private static final Log log = LogFactory.getLog(AbstractCommonPasswordValidator.class);
+    // Set while a failed background load waits to be retried, so the password updates do not wait for it.
+    private volatile boolean loadRetryPending;
+
+    /**
+     * Loads the shared common passwords, replacing the previously loaded ones.
+     *
+     * @throws WSO2Exception If an error occurs while loading the common passwords.
+     */
+    protected abstract void loadData() throws WSO2Exception;
+
+    /**
+     * Loads the shared common passwords on the thread of the CommonPasswordLoadExecutor, so neither the component
+     * activation nor the password update which initializes the data waits for large common password lists, unless
+     * the enableBackgroundCommonPasswordLoad system property is set to false. If the load fails before the data is
+     * ready, it is retried by the executor with a growing delay, and the password updates do not wait for the data
+     * meanwhile.
+     *
+     * @throws WSO2Exception If an error occurs while loading the common passwords in the calling thread.
+     */
+    protected void loadDataInBackground() throws WSO2Exception {
+
+        if (!Boolean.parseBoolean(System.getProperty("enableBackgroundCommonPasswordLoad", "true"))) {
+            loadData();
+            return;
+        }
+        CommonPasswordLoadExecutor.getInstance().execute(new BackgroundLoad());
+    }
+
+    @Override
+    protected boolean isDataBeingPrepared() {
+
+        return super.isDataBeingPrepared() && !loadRetryPending;
+    }
+
+    @Override
+    public boolean isEnabled(PasswordPolicyConfig passwordPolicyConfig) {
+
+        return passwordPolicyConfig.isCommonPasswordRestrictionEnabled();
+    }
+
+    @Override
+    public Constants.ErrorMessages getValidationError() {
+
+        return Constants.ErrorMessages.ERROR_CODE_VALIDATING_COMMON_PASSWORD_POLICY;
+    }
+
+    /**
+     * Validates credentials against the shared common passwords, and against the common passwords of the tenant of
+     * the password update event.
+     *
+     * @param credential The password of the user to be validated.
+     * @param context    The data of the password update event.
+     * @return True if the password does not match any of the common passwords, false if else.
+     * @throws WSO2Exception If the shared common passwords are not ready, unless the credentials are accepted while
+     *                       they are being prepared, or if an error occurs while reading the shared common passwords
+     *                       or the common passwords of the tenant.
+     */
+    @Override
+    public boolean validateCredentials(CharSequence credential, PasswordValidationContext context)
+            throws WSO2Exception {
+
+        if (!isDataReady()) {
+            // A credential which has not been validated is not reported as a common password.
+            if (!Boolean.parseBoolean(System.getProperty("enableCommonPasswordFailOpen"))) {
+                throw getDataNotReadyError();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("The common passwords are not ready yet, hence the credential is accepted.");
+            }
+        } else if (!validateCredentialsWithResultCache(credential)) {
+            return false;
+        }
+        if (!Boolean.parseBoolean(System.getProperty("enableTenantCommonPasswords"))) {
+            return true;
+        }
+
+        AbstractCommonPasswordDictionary overlay = getTenantCommonPasswords(context.getTenantDomain());
+        if (overlay.containsCommonPassword(credential) || overlay.isContainedInCommonPassword(credential)) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("There is a match between the credential and a common password of the "
+                        + "tenant: %s.", context.getTenantDomain()));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Validates credentials against the shared common passwords. A credential which cannot be validated, since the
+     * shared common passwords are not ready or cannot be read, is neither accepted nor rejected.
+     *
+     * @param credential The password of the user to be validated.
+     * @return True if the password does not match any of the shared common passwords, false if else.
+     * @throws IllegalStateException If the credential could not be validated against the shared common passwords.
+     */
+    @Override
+    public final boolean validateCredentials(CharSequence credential) {
+
+        try {
+            return validateSharedCommonPasswords(credential);
+        } catch (WSO2Exception exception) {
+            throw new IllegalStateException(exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Validates credentials against the shared common passwords, reporting the errors which leave the outcome
+     * undetermined instead of accepting or rejecting the credential.
+     *
+     * @param credential The password of the user to be validated.
+     * @return True if the password does not match any of the shared common passwords, false if else.
+     * @throws WSO2Exception If the shared common passwords are not ready, or if the credential could not be validated
+     *                       against them.
+     */
+    protected abstract boolean validateSharedCommonPasswords(CharSequence credential) throws WSO2Exception;
+
+    /**
+     * Creates the error reported for the credentials which are validated before the shared common passwords are
+     * ready.
+     *
+     * @return The error.
+     */
+    protected static WSO2Exception getDataNotReadyError() {
+
+        return new WSO2Exception(Constants.ErrorMessages.ERROR_COMMON_PASSWORDS_NOT_AVAILABLE.getCode(),
+                Constants.ErrorMessages.ERROR_COMMON_PASSWORDS_NOT_AVAILABLE.getMessage());
+    }
+
+    /**
+     * Validates credentials against the shared common passwords, unless the outcome of a previous validation of the
+     * same credential is cached. Only the determined outcomes are cached, so a credential which could not be
+     * validated is validated again on the next attempt.
+     *
+     * @param credential The password of the user to be validated.
+     * @return True if the password does not match any of the shared common passwords, false if else.
+     * @throws WSO2Exception If the credential could not be validated against the shared common passwords.
+     */
+    private boolean validateCredentialsWithResultCache(CharSequence credential) throws WSO2Exception {
+
+        CommonPasswordResultCache resultCache = CommonPasswordResultCache.getInstance();
+        if (!resultCache.isEnabled()) {
+            return validateSharedCommonPasswords(credential);
+        }
+
+        PasswordPolicyMetrics passwordPolicyMetrics = PasswordPolicyMetrics.getInstance();
+        long lookupStartTime = passwordPolicyMetrics.startTimer();
+        CommonPasswordResultCache.Key key = resultCache.getKey(getName(), credential);
+        Boolean cachedResult = resultCache.getValueFromCache(key);
+        passwordPolicyMetrics.recordCache(CommonPasswordResultCache.CACHE_NAME, lookupStartTime, cachedResult != null);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        long loadingGeneration = resultCache.getGeneration();
+        boolean isValidCredential = validateSharedCommonPasswords(credential);
+        resultCache.addToCache(key, isValidCredential, loadingGeneration);
+        return isValidCredential;
+    }
+
+    /**
+     * Loads the shared common passwords in the background, and retries the load until it succeeds or the
+     * CommonPasswordLoadExecutor is shut down. Only the first failure is logged with its stack trace.
+     */
+    private final class BackgroundLoad implements Runnable {
+
+        private int failureCount;
+
+        @Override
+        public void run() {
+
+            loadRetryPending = false;
+            if (failureCount > 0 && isDataReady()) {
+                // The data has been loaded by a reload in the meantime.
+                return;
+            }
+            try {
+                loadData();
+            } catch (WSO2Exception | RuntimeException exception) {
+                if (isDataReady()) {
+                    log.error("An error occurred while loading the common passwords in the background.", exception);
+                    return;
+                }
+                failureCount++;
+                long retryDelay = CommonPasswordLoadExecutor.getRetryDelay(failureCount);
+                if (failureCount == 1) {
+                    log.error(String.format("An error occurred while loading the common passwords in the "
+                            + "background. The load is retried in %d ms.", retryDelay), exception);
+                } else {
+                    log.warn(String.format("The common passwords failed to load %d times in a row, and the load is "
+                            + "retried in %d ms. Cause: %s", failureCount, retryDelay, exception.getMessage()));
+                }
+                loadRetryPending = true;
+                notifyDataReadyWaiters();
+                if (!CommonPasswordLoadExecutor.getInstance().scheduleRetry(this, failureCount)) {
+                    // The executor is shut down, so the load is retried on the next password update instead.
+                    loadRetryPending = false;
+                    resetDataInitialized();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the common passwords of a tenant, loading them on the first event of the tenant.
+     *
+     * @param tenantDomain The tenant domain.
+     * @return The common passwords of the tenant, empty if the tenant does not have a common password file.
+     * @throws WSO2Exception If an error occurs while reading the common password file of the tenant.
+     */
+    private static AbstractCommonPasswordDictionary getTenantCommonPasswords(String tenantDomain)
+            throws WSO2Exception {
+
+        CommonPasswordOverlayCache overlayCache = CommonPasswordOverlayCache.getInstance();
+        AbstractCommonPasswordDictionary overlay = overlayCache.getValueFromCache(tenantDomain);
+        if (overlay != null) {
+            return overlay;
+        }
+
+        long loadingGeneration = overlayCache.getGeneration();
+        String filePath = PasswordPolicyHandlerUtils.getTenantCommonPasswordFilePath(tenantDomain);
+        Path tenantCommonPasswordFilePath = filePath == null ? null : Paths.get(filePath);
+        try {
+            if (tenantCommonPasswordFilePath == null || !Files.isRegularFile(tenantCommonPasswordFilePath)) {
+                overlay = InMemoryCommonPasswordDictionary.EMPTY;
+            } else {
+                overlay = InMemoryCommonPasswordDictionary.build(
+                        Files.readAllLines(tenantCommonPasswordFilePath, StandardCharsets.UTF_8));
+            }
+        } catch (IOException exception) {
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getCode(),
+                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getMessage(),
+                    exception
+            );
+        }
+        overlayCache.addToCache(tenantDomain, overlay, loadingGeneration);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Loaded %d common passwords of the tenant: %s.", overlay.size(), tenantDomain));
+        }
+        return overlay;
+    }
+}
@@ -1,13 +1,77 @@
 package com.wso2.password.policy.handler.validator;
 
+import com.wso2.common.constant.Constants;
 import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * PasswordValidator abstract class which helps to build several versions of it. This is an abstract class instead of
- * an interface since it helps to override and overload easily.
+ * an interface since it helps to override and overload easily. The validators registered as OSGi services of this
+ * type are executed by the PasswordValidatorChain.
  */
 public abstract class AbstractPasswordValidator {
 
+    private final String name = getClass().getSimpleName();
+    private volatile boolean dataInitialized;
+    // Notified whenever the data becomes ready or fails to be prepared, to wake up the threads waiting for it.
+    private final Object dataReadyMonitor = new Object();
+
+    /**
+     * Retrieves the name of the validator, which identifies it in the metrics.
+     *
+     * @return Name of the validator.
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * Checks whether the validator is enabled by the password policy configuration of a tenant. The validators which
+     * are not bound to a property of the configuration are enabled for all the tenants.
+     *
+     * @param passwordPolicyConfig The password policy configuration of the tenant.
+     * @return True if the validator is enabled, false if else.
+     */
+    public boolean isEnabled(PasswordPolicyConfig passwordPolicyConfig) {
+
+        return true;
+    }
+
+    /**
+     * Checks whether the validator validates the normalized credential, lower cased and without any whitespace, or the
+     * credential as it was entered.
+     *
+     * @return True if the credential has to be normalized, false if else.
+     */
+    public boolean isNormalizedCredentialRequired() {
+
+        return true;
+    }
+
+    /**
+     * Checks whether the matching code of the validator can be warmed up by validating generated credentials, which
+     * is only worthwhile if they are validated in memory.
+     *
+     * @return True if the validator can be warmed up with generated credentials, false if else.
+     */
+    public boolean isCredentialWarmupSupported() {
+
+        return true;
+    }
+
+    /**
+     * Retrieves the error which is reported when the validator rejects a credential.
+     *
+     * @return The error of the validator.
+     */
+    public Constants.ErrorMessages getValidationError() {
+
+        return Constants.ErrorMessages.ERROR_CODE_VALIDATING_PASSWORD_POLICY;
+    }
+
     /**
      * Initialize the data required for the validator.
      *
@@ -17,12 +81,136 @@ public abstract class AbstractPasswordValidator {
 
     }
 
+    /**
+     * Initialize the data required for the validator unless it has already been initialized. This is called before
+     * each validation, so the data of the validators which are not used by any tenant is never initialized.
+     *
+     * @throws WSO2Exception If an error occurs while initializing the required data, in which case the
+     *                       initialization is retried on the next call.
+     */
+    public void initializeDataIfRequired() throws WSO2Exception {
+
+        if (dataInitialized) {
+            return;
+        }
+        synchronized (this) {
+            if (!dataInitialized) {
+                initializeData();
+                dataInitialized = true;
+            }
+        }
+        notifyDataReadyWaiters();
+    }
+
+    /**
+     * Marks the data of the validator as not initialized after it failed to be prepared in the background, so the
+     * initialization is retried on the next call of initializeDataIfRequired.
+     */
+    protected void resetDataInitialized() {
+
+        synchronized (this) {
+            dataInitialized = false;
+        }
+        notifyDataReadyWaiters();
+    }
+
+    /**
+     * Wakes up the threads waiting for the data to be ready. The validators which prepare their data in the background
+     * call this once the data is ready.
+     */
+    protected void notifyDataReadyWaiters() {
+
+        synchronized (dataReadyMonitor) {
+            dataReadyMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the data of the validator is ready, or until its preparation fails.
+     *
+     * @param timeoutMillis Maximum time to wait, in milliseconds.
+     * @return True if the data is ready, false if it is not ready within the timeout or failed to be prepared.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public boolean awaitDataReady(long timeoutMillis) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (dataReadyMonitor) {
+            while (!isDataReady() && isDataBeingPrepared()) {
+                long remainingTime = deadline - System.nanoTime();
+                if (remainingTime <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(dataReadyMonitor, remainingTime);
+            }
+        }
+        return isDataReady();
+    }
+
+    /**
+     * Checks whether the data of the validator is being prepared, so the threads which need it wait for it. The data
+     * is being prepared from its initialization until it is ready, unless its preparation has failed.
+     *
+     * @return True if the data is being prepared, false if else.
+     */
+    protected boolean isDataBeingPrepared() {
+
+        return isDataInitialized();
+    }
+
+    /**
+     * Checks whether the data of the validator has been initialized.
+     *
+     * @return True if the data has been initialized, false if else.
+     */
+    public boolean isDataInitialized() {
+
+        return dataInitialized;
+    }
+
+    /**
+     * Checks whether the data of the validator is ready to be used for the validations. The validators which prepare
+     * their data in the background are not ready until it has been prepared.
+     *
+     * @return True if the data is ready, false if else.
+     */
+    public boolean isDataReady() {
+
+        return dataInitialized;
+    }
+
+    /**
+     * Reload the data of the validator after its source has changed. The new data has to be prepared without
+     * blocking the validations, which keep using the previous data until it is replaced.
+     *
+     * @throws WSO2Exception If an error occurs while reloading the data, in which case the previous data is kept.
+     */
+    public void reloadData() throws WSO2Exception {
+
+        initializeData();
+    }
+
     /**
      * Validates credentials based on custom criterias.
      *
      * @param credential The password of the user to be validated.
      * @return True if the validation is successful, false if else.
      */
-    public abstract boolean validateCredentials(String credential);
+    public abstract boolean validateCredentials(CharSequence credential);
+
+    /**
+     * Validates credentials based on custom criterias and the data of the password update event. The validators
+     * which do not depend on the event validate the credential alone.
+     *
+     * @param credential The password of the user to be validated.
+     * @param context    The data of the password update event.
+     * @return True if the validation is successful, false if else.
+     * @throws WSO2Exception If an error occurs while retrieving the data required for the validation.
+     */
+    public boolean validateCredentials(CharSequence credential, PasswordValidationContext context)
+            throws WSO2Exception {
+
+        return validateCredentials(credential);
+    }
 
 }
@@ -0,0 +1,107 @@
+package com.wso2.password.policy.handler.validator;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A singleton executor of the background loads of the common passwords. The loads run one at a time on a single
+ * daemon thread, which is created on the first background load and stopped when the component is deactivated. A load
+ * which fails is retried on the same thread after a delay which starts at the commonPasswordLoadRetryDelay system
+ * property and doubles with each consecutive failure, up to the commonPasswordLoadMaxRetryDelay system property.
+ */
+public class CommonPasswordLoadExecutor {
+
+    private static final long DEFAULT_RETRY_DELAY = 5000;
+    private static final long DEFAULT_MAX_RETRY_DELAY = 300000;
+    private static final String LOADER_THREAD_NAME = "common-password-loader";
+    private static final CommonPasswordLoadExecutor commonPasswordLoadExecutor = new CommonPasswordLoadExecutor();
+
+    // Created on the first background load, so the thread is not started when the loads run in the calling thread.
+    private ScheduledThreadPoolExecutor executorService;
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private CommonPasswordLoadExecutor() {
+
+    }
+
+    /**
+     * Retrieve the singleton instance of the CommonPasswordLoadExecutor.
+     *
+     * @return An instance of the CommonPasswordLoadExecutor.
+     */
+    public static CommonPasswordLoadExecutor getInstance() {
+
+        return commonPasswordLoadExecutor;
+    }
+
+    /**
+     * Runs a load in the background, creating the loader thread if required.
+     *
+     * @param load The load.
+     */
+    public synchronized void execute(Runnable load) {
+
+        if (executorService == null) {
+            executorService = new ScheduledThreadPoolExecutor(1, runnable -> {
+                // A daemon thread, so it never blocks the shutdown of the server.
+                Thread thread = new Thread(runnable, LOADER_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+            executorService.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+        executorService.execute(load);
+    }
+
+    /**
+     * Retries a failed load after the delay of its number of consecutive failures. The retries are only scheduled
+     * until the executor is shut down, so a failing load never restarts the loader thread.
+     *
+     * @param load         The load.
+     * @param failureCount The number of consecutive failures of the load.
+     * @return True if the retry is scheduled, false if the executor is shut down.
+     */
+    public synchronized boolean scheduleRetry(Runnable load, int failureCount) {
+
+        if (executorService == null) {
+            return false;
+        }
+        try {
+            executorService.schedule(load, getRetryDelay(failureCount), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Computes the delay before a load is retried.
+     *
+     * @param failureCount The number of consecutive failures of the load.
+     * @return The delay, in milliseconds.
+     */
+    public static long getRetryDelay(int failureCount) {
+
+        long retryDelay = Math.max(1, Long.getLong("commonPasswordLoadRetryDelay", DEFAULT_RETRY_DELAY));
+        long maxRetryDelay = Long.getLong("commonPasswordLoadMaxRetryDelay", DEFAULT_MAX_RETRY_DELAY);
+        for (int i = 1; i < failureCount && retryDelay < maxRetryDelay; i++) {
+            retryDelay *= 2;
+        }
+        return Math.min(retryDelay, maxRetryDelay);
+    }
+
+    /**
+     * Stops the loader thread, and cancels the retries of the failed loads. The loader thread is created again on the
+     * next background load.
+     */
+    public synchronized void shutdown() {
+
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.wso2.password.policy.handler.validator;
+
+import org.wso2.carbon.identity.event.IdentityEventConstants;
+import org.wso2.carbon.user.core.UserStoreManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The immutable data of a single password update event which the validators require in addition to the credential.
+ * A new context is created for each event, so the validators can be shared between the request threads without
+ * holding any per-event state.
+ */
+public final class PasswordValidationContext {
+
+    private final String tenantDomain;
+    private final String userName;
+    private final UserStoreManager userStoreManager;
+    private final Map<String, String> userClaims;
+    private final Set<String> restrictedClaims;
+
+    /**
+     * Creates a context.
+     *
+     * @param tenantDomain     The tenant domain of the user.
+     * @param userName         Username of the user.
+     * @param userStoreManager The user store manager of the user, null if it is not available.
+     * @param userClaims       Claims of the user sent with the event, null if they have to be retrieved from the
+     *                         user store.
+     * @param restrictedClaims Claims which the values are restricted to be used as passwords.
+     */
+    public PasswordValidationContext(String tenantDomain, String userName, UserStoreManager userStoreManager,
+                                     Map<String, String> userClaims, Set<String> restrictedClaims) {
+
+        this.tenantDomain = tenantDomain;
+        this.userName = userName;
+        this.userStoreManager = userStoreManager;
+        this.userClaims = userClaims == null ? null : Collections.unmodifiableMap(new HashMap<>(userClaims));
+        this.restrictedClaims = Collections.unmodifiableSet(new LinkedHashSet<>(restrictedClaims));
+    }
+
+    /**
+     * Creates a context from the properties of a password update event.
+     *
+     * @param tenantDomain     The tenant domain of the user.
+     * @param userName         Username of the user.
+     * @param restrictedClaims Claims which the values are restricted to be used as passwords.
+     * @param eventProperties  Properties belonging to the triggered event.
+     * @return The context of the event.
+     */
+    @SuppressWarnings("unchecked")
+    public static PasswordValidationContext fromEventProperties(String tenantDomain, String userName,
+                                                                Set<String> restrictedClaims,
+                                                                Map<String, Object> eventProperties) {
+
+        return new PasswordValidationContext(tenantDomain, userName,
+                (UserStoreManager) eventProperties.get(IdentityEventConstants.EventProperty.USER_STORE_MANAGER),
+                (Map<String, String>) eventProperties.get(IdentityEventConstants.EventProperty.USER_CLAIMS),
+                restrictedClaims);
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public String getUserName() {
+
+        return userName;
+    }
+
+    public UserStoreManager getUserStoreManager() {
+
+        return userStoreManager;
+    }
+
+    public Map<String, String> getUserClaims() {
+
+        return userClaims;
+    }
+
+    public Set<String> getRestrictedClaims() {
+
+        return restrictedClaims;
+    }
+}
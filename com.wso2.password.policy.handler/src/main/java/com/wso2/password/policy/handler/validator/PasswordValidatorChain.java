@@ -0,0 +1,199 @@
+package com.wso2.password.policy.handler.validator;
+
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A singleton registry of the password validators, which are discovered as OSGi services of the
+ * AbstractPasswordValidator type registered by this bundle or by any other bundle. The validators enabled for a tenant
+ * are executed as a chain which stops at the first validator rejecting the credential.
+ * <p>
+ * The validators are ordered by their expected cost of reaching a rejection, which is their mean latency divided by
+ * their rate of rejections, so the cheap validators which reject often run first and the expensive ones, such as the
+ * user store and the DB lookups, are skipped whenever an earlier validator rejects the credential. The order is
+ * recomputed from the measured latencies and outcomes every REORDER_INTERVAL validations, unless the
+ * enableAdaptiveValidatorOrder system property is set to false, in which case the validators are executed in the
+ * order they have been registered.
+ */
+public class PasswordValidatorChain {
+
+    private static final int REORDER_INTERVAL = 1024;
+    private static final PasswordValidatorChain passwordValidatorChain = new PasswordValidatorChain();
+
+    private final boolean adaptiveOrder;
+    private final AtomicLong validationCount = new AtomicLong();
+    // The registered validators in their execution order. Both lists are replaced as a whole when they change.
+    private volatile List<ChainEntry> entries = Collections.emptyList();
+    private volatile List<AbstractPasswordValidator> validators = Collections.emptyList();
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private PasswordValidatorChain() {
+
+        adaptiveOrder = Boolean.parseBoolean(System.getProperty("enableAdaptiveValidatorOrder", "true"));
+    }
+
+    /**
+     * Retrieve the singleton instance of the PasswordValidatorChain.
+     *
+     * @return An instance of the PasswordValidatorChain.
+     */
+    public static PasswordValidatorChain getInstance() {
+
+        return passwordValidatorChain;
+    }
+
+    /**
+     * Adds a validator to the chain, unless it has already been added.
+     *
+     * @param validator The validator.
+     */
+    public synchronized void addValidator(AbstractPasswordValidator validator) {
+
+        for (ChainEntry entry : entries) {
+            if (entry.validator == validator) {
+                return;
+            }
+        }
+        List<ChainEntry> newEntries = new ArrayList<>(entries);
+        newEntries.add(new ChainEntry(validator, newEntries.size()));
+        setEntries(newEntries);
+    }
+
+    /**
+     * Removes a validator from the chain.
+     *
+     * @param validator The validator.
+     */
+    public synchronized void removeValidator(AbstractPasswordValidator validator) {
+
+        List<ChainEntry> newEntries = new ArrayList<>(entries);
+        newEntries.removeIf(entry -> entry.validator == validator);
+        setEntries(newEntries);
+    }
+
+    /**
+     * Retrieves the registered validators in their execution order. The validators which are not enabled by the
+     * password policy configuration of a tenant have to be skipped.
+     *
+     * @return An unmodifiable list of the validators.
+     */
+    public List<AbstractPasswordValidator> getValidators() {
+
+        return validators;
+    }
+
+    /**
+     * Checks whether any of the registered validators is enabled by the password policy configuration of a tenant.
+     *
+     * @param passwordPolicyConfig The password policy configuration of the tenant.
+     * @return True if a validator is enabled, false if else.
+     */
+    public boolean hasEnabledValidators(PasswordPolicyConfig passwordPolicyConfig) {
+
+        for (AbstractPasswordValidator validator : validators) {
+            if (validator.isEnabled(passwordPolicyConfig)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records the latency and the outcome of a validation, which determine the position of the validator in the
+     * chain.
+     *
+     * @param validator The validator.
+     * @param nanos     The latency in nanoseconds.
+     * @param accepted  Whether the credential was accepted.
+     */
+    public void recordValidation(AbstractPasswordValidator validator, long nanos, boolean accepted) {
+
+        if (!adaptiveOrder) {
+            return;
+        }
+        for (ChainEntry entry : entries) {
+            if (entry.validator == validator) {
+                entry.record(nanos, accepted);
+                break;
+            }
+        }
+        if (validationCount.incrementAndGet() % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+    }
+
+    private synchronized void reorder() {
+
+        setEntries(new ArrayList<>(entries));
+    }
+
+    // Sorts the entries by their expected cost and publishes them, so the readers never see a partially sorted chain.
+    private void setEntries(List<ChainEntry> newEntries) {
+
+        if (adaptiveOrder) {
+            for (ChainEntry entry : newEntries) {
+                entry.updateExpectedCost();
+            }
+            newEntries.sort(Comparator.comparingDouble((ChainEntry entry) -> entry.expectedCost)
+                    .thenComparingInt(entry -> entry.registrationOrder));
+        }
+        List<AbstractPasswordValidator> newValidators = new ArrayList<>(newEntries.size());
+        for (ChainEntry entry : newEntries) {
+            newValidators.add(entry.validator);
+        }
+        entries = Collections.unmodifiableList(newEntries);
+        validators = Collections.unmodifiableList(newValidators);
+    }
+
+    /**
+     * A validator of the chain with the latencies and the outcomes of its validations.
+     */
+    private static final class ChainEntry {
+
+        private final AbstractPasswordValidator validator;
+        private final int registrationOrder;
+        private final LongAdder validations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        // Only updated while the chain is being sorted, so it does not change during a sort.
+        private double expectedCost;
+
+        ChainEntry(AbstractPasswordValidator validator, int registrationOrder) {
+
+            this.validator = validator;
+            this.registrationOrder = registrationOrder;
+        }
+
+        void record(long nanos, boolean accepted) {
+
+            validations.increment();
+            totalNanos.add(nanos);
+            if (!accepted) {
+                rejections.increment();
+            }
+        }
+
+        // The mean latency divided by the rejection rate, which is smoothed so the validators which have not
+        // rejected any credential yet are still ordered by their latency. The validators which have not been
+        // measured yet run first, so they get measured.
+        void updateExpectedCost() {
+
+            long validationCount = validations.sum();
+            if (validationCount == 0) {
+                expectedCost = 0;
+                return;
+            }
+            double meanNanos = (double) totalNanos.sum() / validationCount;
+            double rejectionRate = (rejections.sum() + 1.0) / (validationCount + 2.0);
+            expectedCost = meanNanos / rejectionRate;
+        }
+    }
+}
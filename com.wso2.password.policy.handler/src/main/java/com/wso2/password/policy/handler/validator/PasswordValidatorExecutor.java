@@ -0,0 +1,130 @@
+package com.wso2.password.policy.handler.validator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A singleton executor of the validators which run concurrently for a password update event, when the
+ * enableConcurrentPasswordValidation system property is set to true. The validators are independent of each other, so
+ * the latency of an event approaches the latency of the slowest validator instead of the sum of their latencies.
+ * <p>
+ * On Java 21 and later runtimes each validation runs on a virtual thread, since the validators mostly wait for the
+ * user store and the database. On earlier runtimes they run on a bounded pool of the number of threads given by the
+ * concurrentPasswordValidationParallelism system property, and run in the calling thread when the pool is saturated.
+ */
+public class PasswordValidatorExecutor {
+
+    private static final Log log = LogFactory.getLog(PasswordValidatorExecutor.class);
+    private static final int QUEUED_VALIDATIONS_PER_THREAD = 4;
+    private static final long IDLE_THREAD_TIMEOUT = 60;
+    private static final PasswordValidatorExecutor passwordValidatorExecutor = new PasswordValidatorExecutor();
+
+    private final boolean enabled;
+    // Created on the first concurrent validation, so the threads are not started when the option is not used.
+    private volatile ExecutorService executorService;
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private PasswordValidatorExecutor() {
+
+        enabled = Boolean.parseBoolean(System.getProperty("enableConcurrentPasswordValidation"));
+    }
+
+    /**
+     * Retrieve the singleton instance of the PasswordValidatorExecutor.
+     *
+     * @return An instance of the PasswordValidatorExecutor.
+     */
+    public static PasswordValidatorExecutor getInstance() {
+
+        return passwordValidatorExecutor;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Retrieves the executor service which runs the concurrent validations, creating it if required.
+     *
+     * @return The executor service.
+     */
+    public ExecutorService getExecutorService() {
+
+        ExecutorService currentExecutorService = executorService;
+        if (currentExecutorService == null) {
+            synchronized (this) {
+                currentExecutorService = executorService;
+                if (currentExecutorService == null) {
+                    currentExecutorService = createExecutorService();
+                    executorService = currentExecutorService;
+                }
+            }
+        }
+        return currentExecutorService;
+    }
+
+    /**
+     * Stops the threads which run the concurrent validations. The executor service is created again on the next
+     * concurrent validation.
+     */
+    public synchronized void shutdown() {
+
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+    }
+
+    private static ExecutorService createExecutorService() {
+
+        try {
+            // The bundle targets Java 8, so the virtual thread executor of Java 21 is looked up reflectively.
+            ExecutorService virtualThreadExecutor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            if (log.isDebugEnabled()) {
+                log.debug("Running the concurrent password validations on virtual threads.");
+            }
+            return virtualThreadExecutor;
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            if (log.isDebugEnabled()) {
+                log.debug("Virtual threads are not available. Running the concurrent password validations on a " +
+                        "thread pool.");
+            }
+        }
+
+        int parallelism = Math.max(1, Integer.getInteger("concurrentPasswordValidationParallelism",
+                Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(parallelism, parallelism, IDLE_THREAD_TIMEOUT,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<>(parallelism * QUEUED_VALIDATIONS_PER_THREAD),
+                new ValidatorThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    /**
+     * Creates the daemon threads of the pool, so they never block the shutdown of the server.
+     */
+    private static final class ValidatorThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "PasswordValidator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
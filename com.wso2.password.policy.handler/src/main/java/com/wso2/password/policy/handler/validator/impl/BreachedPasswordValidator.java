@@ -0,0 +1,117 @@
+package com.wso2.password.policy.handler.validator.impl;
+
+import com.wso2.common.constant.Constants;
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.breached.BreachedPasswordHashStore;
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
+import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
+import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * A singleton class to restrict the use of breached passwords based on a local hash store of a breached password
+ * corpus. The credentials are matched exactly by their SHA-1 hash, so they have to be validated as they were entered
+ * instead of normalized.
+ */
+public class BreachedPasswordValidator extends AbstractPasswordValidator {
+
+    private static final Log log = LogFactory.getLog(BreachedPasswordValidator.class);
+    private static final BreachedPasswordValidator breachedPasswordValidator = new BreachedPasswordValidator();
+    // Null until the hash store has been opened for the first time.
+    private volatile BreachedPasswordHashStore breachedPasswordHashStore;
+
+    /**
+     * Private constructor so this class cannot be instantiated by other classes.
+     */
+    private BreachedPasswordValidator() {
+
+    }
+
+    /**
+     * Retrieve the singleton instance of the BreachedPasswordValidator.
+     *
+     * @return An instance of the BreachedPasswordValidator.
+     */
+    public static BreachedPasswordValidator getInstance() {
+
+        return breachedPasswordValidator;
+    }
+
+    @Override
+    public boolean isEnabled(PasswordPolicyConfig passwordPolicyConfig) {
+
+        return passwordPolicyConfig.isBreachedPasswordRestrictionEnabled();
+    }
+
+    /**
+     * The breached password corpora are hashed from the passwords as they were used, so the credential is validated
+     * as it was entered.
+     *
+     * @return False, since the credential must not be normalized.
+     */
+    @Override
+    public boolean isNormalizedCredentialRequired() {
+
+        return false;
+    }
+
+    @Override
+    public Constants.ErrorMessages getValidationError() {
+
+        return Constants.ErrorMessages.ERROR_CODE_VALIDATING_BREACHED_PASSWORD_POLICY;
+    }
+
+    /**
+     * Opens the breached password hash store, which is memory mapped so that opening it does not depend on the size
+     * of the corpus.
+     *
+     * @throws WSO2Exception If there is an error while opening the hash store.
+     */
+    @Override
+    public void initializeData() throws WSO2Exception {
+
+        BreachedPasswordHashStore hashStore;
+        try {
+            hashStore = BreachedPasswordHashStore.open(
+                    Paths.get(PasswordPolicyHandlerUtils.getBreachedPasswordFilePath()));
+        } catch (IOException exception) {
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_READING_BREACHED_PASSWORDS_FILE.getCode(),
+                    Constants.ErrorMessages.ERROR_READING_BREACHED_PASSWORDS_FILE.getMessage(),
+                    exception
+            );
+        }
+
+        breachedPasswordHashStore = hashStore;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Opened the breached password hash store with %d hashes.",
+                    hashStore.getHashCount()));
+        }
+    }
+
+    /**
+     * Checks whether the SHA-1 hash of the user credential is among the hashes of the breached passwords.
+     *
+     * @param credential The password of the user as it was entered.
+     * @return True if the password is not a breached password, false if else.
+     */
+    @Override
+    public boolean validateCredentials(CharSequence credential) {
+
+        BreachedPasswordHashStore hashStore = breachedPasswordHashStore;
+        if (hashStore == null) {
+            return true;
+        }
+        if (hashStore.contains(credential)) {
+            if (log.isDebugEnabled()) {
+                log.debug("There is a match between the credential and a breached password.");
+            }
+            return false;
+        }
+        return true;
+    }
+}
@@ -2,19 +2,26 @@ package com.wso2.password.policy.handler.validator.impl;
 
 import com.wso2.common.constant.Constants;
 import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.cache.ClaimUriCache;
+import com.wso2.password.policy.handler.config.PasswordPolicyConfig;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyMetrics;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyStage;
+import com.wso2.password.policy.handler.util.CredentialBuffer;
+import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
 import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
-import org.apache.commons.lang.StringUtils;
+import com.wso2.password.policy.handler.validator.PasswordValidationContext;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A singleton class to restrict the use of claim based passwords.
@@ -22,8 +29,6 @@ import java.util.Map;
 public class ClaimBasedPasswordValidator extends AbstractPasswordValidator {
 
     private static final Log log = LogFactory.getLog(ClaimBasedPasswordValidator.class);
-    private Map<String, String> userClaims;
-    private List<String> restrictedClaims;
     private static final ClaimBasedPasswordValidator claimBasedPasswordValidator = new ClaimBasedPasswordValidator();
 
     /**
@@ -31,8 +36,6 @@ public class ClaimBasedPasswordValidator extends AbstractPasswordValidator {
      */
     private ClaimBasedPasswordValidator() {
 
-        userClaims = new HashMap<>();
-        restrictedClaims = new ArrayList<>();
     }
 
     /**
@@ -46,20 +49,19 @@ public class ClaimBasedPasswordValidator extends AbstractPasswordValidator {
     }
 
     /**
-     * Initialize the user claims with the provided arguments.
+     * Retrieve the restricted claims of the user, either the ones sent with the event or the ones stored in the user
+     * store. Only the restricted claims which are defined in the tenant are requested from the user store.
      *
-     * @param eventProperties  Properties belonging to the triggered event.
-     * @param restrictedClaims Claims which the values are restricted to be used as passwords.
-     * @param userName         Username of the user.
+     * @param context The data of the password update event.
+     * @return Claims of the user.
      * @throws WSO2Exception If there is a problem while loading claims or if the user store manager is null.
      */
-    public void initializeData(Map<String, Object> eventProperties, List<String> restrictedClaims, String userName)
-            throws WSO2Exception {
+    private Map<String, String> getUserClaims(PasswordValidationContext context) throws WSO2Exception {
 
-        this.restrictedClaims = restrictedClaims;
-        UserStoreManager userStoreManager = eventProperties.get(
-                IdentityEventConstants.EventProperty.USER_STORE_MANAGER) == null ? null :
-                (UserStoreManager) eventProperties.get(IdentityEventConstants.EventProperty.USER_STORE_MANAGER);
+        if (context.getUserClaims() != null) {
+            return context.getUserClaims();
+        }
+        UserStoreManager userStoreManager = context.getUserStoreManager();
         if (userStoreManager == null) {
             throw new WSO2Exception(
                     Constants.ErrorMessages.ERROR_EMPTY_USER_STORE_MANAGER.getCode(),
@@ -67,28 +69,87 @@ public class ClaimBasedPasswordValidator extends AbstractPasswordValidator {
             );
         }
 
-        String[] currentClaims;
-        try {
-            currentClaims = userStoreManager.getClaimManager().getAllClaimUris();
-        } catch (UserStoreException exception) {
-            throw new WSO2Exception(
-                    Constants.ErrorMessages.ERROR_RETRIEVING_CLAIM_URIS.getCode(),
-                    Constants.ErrorMessages.ERROR_RETRIEVING_CLAIM_URIS.getMessage(),
-                    exception
-            );
+        Set<String> claimUris = getClaimUris(context.getTenantDomain(), userStoreManager);
+        List<String> requestedClaims = new ArrayList<>();
+        for (String restrictedClaim : context.getRestrictedClaims()) {
+            if (claimUris.contains(restrictedClaim)) {
+                requestedClaims.add(restrictedClaim);
+            }
+        }
+        if (requestedClaims.isEmpty()) {
+            return Collections.emptyMap();
         }
 
+        long retrievalStartTime = PasswordPolicyMetrics.getInstance().startTimer();
         try {
-            userClaims = eventProperties.get(IdentityEventConstants.EventProperty.USER_CLAIMS) == null ?
-                    userStoreManager.getUserClaimValues(userName, currentClaims, "default") :
-                    (Map<String, String>) eventProperties.get(IdentityEventConstants.EventProperty.USER_CLAIMS);
+            return userStoreManager.getUserClaimValues(context.getUserName(),
+                    requestedClaims.toArray(new String[0]), "default");
         } catch (org.wso2.carbon.user.core.UserStoreException e) {
             throw new WSO2Exception(
                     Constants.ErrorMessages.ERROR_RETRIEVING_USER_CLAIMS.getCode(),
                     Constants.ErrorMessages.ERROR_RETRIEVING_USER_CLAIMS.getMessage(),
                     e
             );
+        } finally {
+            PasswordPolicyMetrics.getInstance().recordStage(PasswordPolicyStage.CLAIM_RETRIEVAL, retrievalStartTime);
+        }
+    }
+
+    /**
+     * Retrieve the claim URIs defined in a tenant from the cache, or from the claim manager if they are not cached.
+     *
+     * @param tenantDomain     The tenant domain.
+     * @param userStoreManager The user store manager of the user.
+     * @return The claim URIs of the tenant.
+     * @throws WSO2Exception If there is a problem while retrieving the claim URIs.
+     */
+    private Set<String> getClaimUris(String tenantDomain, UserStoreManager userStoreManager) throws WSO2Exception {
+
+        ClaimUriCache claimUriCache = ClaimUriCache.getInstance();
+        Set<String> claimUris = claimUriCache.getValueFromCache(tenantDomain);
+        if (claimUris != null) {
+            return claimUris;
+        }
+
+        long loadingGeneration = claimUriCache.getGeneration();
+        try {
+            claimUris = Collections.unmodifiableSet(
+                    new HashSet<>(Arrays.asList(userStoreManager.getClaimManager().getAllClaimUris())));
+        } catch (UserStoreException exception) {
+            throw new WSO2Exception(
+                    Constants.ErrorMessages.ERROR_RETRIEVING_CLAIM_URIS.getCode(),
+                    Constants.ErrorMessages.ERROR_RETRIEVING_CLAIM_URIS.getMessage(),
+                    exception
+            );
         }
+        claimUriCache.addToCache(tenantDomain, claimUris, loadingGeneration);
+        return claimUris;
+    }
+
+    @Override
+    public boolean isEnabled(PasswordPolicyConfig passwordPolicyConfig) {
+
+        return passwordPolicyConfig.isClaimBasedPasswordRestrictionEnabled() &&
+                !passwordPolicyConfig.getRestrictedClaims().isEmpty();
+    }
+
+    @Override
+    public Constants.ErrorMessages getValidationError() {
+
+        return Constants.ErrorMessages.ERROR_CODE_VALIDATING_USER_ATTRIBUTE_PASSWORD_POLICY;
+    }
+
+    /**
+     * The claim values of the user are only available through the context of the password update event, so a
+     * credential cannot be validated on its own.
+     *
+     * @param credential The password of the user.
+     * @return True, since there are no claim values to be matched.
+     */
+    @Override
+    public boolean validateCredentials(CharSequence credential) {
+
+        return true;
     }
 
     /**
@@ -96,21 +157,32 @@ public class ClaimBasedPasswordValidator extends AbstractPasswordValidator {
      * that corresponds to the user.
      *
      * @param credential The password of the user.
+     * @param context    The data of the password update event.
      * @return True if the password does not match any record based on the user
      * claims, false if else.
+     * @throws WSO2Exception If there is a problem while loading the claims of the user.
      */
     @Override
-    public boolean validateCredentials(String credential) {
-
-        for (Map.Entry<String, String> entry : userClaims.entrySet()) {
-            String processedEntryValue = StringUtils.deleteWhitespace(entry.getValue().toLowerCase(Locale.ROOT));
-            if (restrictedClaims.contains(entry.getKey()) &&
-                    (credential.contains(processedEntryValue) || processedEntryValue.contains(credential))) {
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("There is a match between the credential: %s and claim value: %s.",
-                            credential, processedEntryValue));
+    public boolean validateCredentials(CharSequence credential, PasswordValidationContext context)
+            throws WSO2Exception {
+
+        Set<String> restrictedClaims = context.getRestrictedClaims();
+        if (restrictedClaims.isEmpty()) {
+            return true;
+        }
+        for (Map.Entry<String, String> entry : getUserClaims(context).entrySet()) {
+            if (!restrictedClaims.contains(entry.getKey()) || entry.getValue() == null) {
+                continue;
+            }
+            try (CredentialBuffer claimValue = CredentialBuffer.normalize(entry.getValue())) {
+                if (PasswordPolicyHandlerUtils.contains(credential, claimValue)
+                        || PasswordPolicyHandlerUtils.contains(claimValue, credential)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("There is a match between the credential and the claim: %s.",
+                                entry.getKey()));
+                    }
+                    return false;
                 }
-                return false;
             }
         }
         return true;
@@ -2,30 +2,47 @@ package com.wso2.password.policy.handler.validator.impl;
 
 import com.wso2.common.constant.Constants;
 import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.cache.CommonPasswordResultCache;
+import com.wso2.password.policy.handler.dao.CommonPasswordBulkLoader;
+import com.wso2.password.policy.handler.dao.CommonPasswordDBUtils;
+import com.wso2.password.policy.handler.dao.CommonPasswordLookupPool;
+import com.wso2.password.policy.handler.dao.SQLDialect;
+import com.wso2.password.policy.handler.matcher.NGramPreFilter;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyMetrics;
+import com.wso2.password.policy.handler.metrics.PasswordPolicyStage;
 import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
-import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
+import com.wso2.password.policy.handler.validator.AbstractCommonPasswordValidator;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * A singleton class to restrict the use of common passwords based on a DB.
  */
-public class DBBasedCommonPasswordValidator extends AbstractPasswordValidator {
+public class DBBasedCommonPasswordValidator extends AbstractCommonPasswordValidator {
 
     private static final Log log = LogFactory.getLog(DBBasedCommonPasswordValidator.class);
     private static final DBBasedCommonPasswordValidator dbBasedCommonPasswordValidator =
             new DBBasedCommonPasswordValidator();
+    private static final int PRE_FILTER_FETCH_SIZE = 1000;
+    private static final int DEFAULT_INSERT_CHUNK_SIZE = 10000;
+    // Maximum number of n-grams of a credential which are used to look up the candidate common passwords.
+    private static final int MAX_LOOKUP_NGRAMS = 6;
+    // Serializes the loads of the initialization and the reloads, which write to the same tables.
+    private final Object loadLock = new Object();
+    // False until the common passwords have been written to the DB table for the first time.
+    private volatile boolean dataReady;
+    private volatile NGramPreFilter commonPasswordPreFilter;
 
     /**
      * Private constructor so this class cannot be instantiated by other classes.
@@ -46,6 +63,11 @@ public class DBBasedCommonPasswordValidator extends AbstractPasswordValidator {
 
     /**
      * Initialize the repository/database with the common password records.
+     * <p>
+     * Unless the background load is disabled, the tables are created and populated in a background thread so that
+     * neither the component activation nor the password update which initializes the data waits for the load, and
+     * the password updates wait for the load for a bounded time. If the load fails, it is retried in the background
+     * with a growing delay, and continues from the last committed chunk.
      *
      * @throws WSO2Exception If there is an error while creating a table to store the common
      *                       passwords or while adding common passwords to the table.
@@ -53,37 +75,41 @@ public class DBBasedCommonPasswordValidator extends AbstractPasswordValidator {
     @Override
     public void initializeData() throws WSO2Exception {
 
-        boolean tableExists = false;
+        loadDataInBackground();
+    }
 
-        Connection connection = IdentityDatabaseUtil.getDBConnection(true);
-        ResultSet resultSet;
-        try {
-            resultSet = connection.getMetaData().getTables(
-                    null, null, Constants.TABLE_NAME, null
-            );
-            if (resultSet.next()) {
-                tableExists = true;
-            }
-        } catch (SQLException exception) {
-            IdentityDatabaseUtil.rollbackTransaction(connection);
-            throw new WSO2Exception(
-                    Constants.ErrorMessages.ERROR_INITIALIZING_COMMON_PASSWORDS_REPOSITORY.getCode(),
-                    Constants.ErrorMessages.ERROR_INITIALIZING_COMMON_PASSWORDS_REPOSITORY.getMessage(),
-                    exception
-            );
-        }
+    /**
+     * Create the DB tables if they do not exist, populate them with the common passwords unless they are populated
+     * already, and build the pre-filter.
+     *
+     * @throws WSO2Exception If there is an error while creating a table to store the common
+     *                       passwords or while adding common passwords to the table.
+     */
+    @Override
+    protected void loadData() throws WSO2Exception {
 
-        if (Boolean.parseBoolean(System.getProperty("enableCustomPasswordInsert")) || !tableExists) {
-            PreparedStatement prepStmtCrt = null;
+        synchronized (loadLock) {
+            boolean tableExists;
+            boolean nGramTableExists;
 
+            Connection connection = null;
             try {
-                // Create the SQL table if it does not exist.
-                prepStmtCrt = connection.prepareStatement(
-                        Constants.CREATE_COMMON_PASSWORD_STORE
-                );
-                prepStmtCrt.execute();
+                connection = CommonPasswordDBUtils.getDBConnection(true);
+                SQLDialect dialect = SQLDialect.fromConnection(connection);
+                tableExists = SQLDialect.isTableExists(connection, Constants.TABLE_NAME);
+                nGramTableExists = !isNGramLookupEnabled() ||
+                        SQLDialect.isTableExists(connection, Constants.NGRAM_TABLE_NAME);
+
+                // Create the SQL tables if they do not exist.
+                dialect.createTableIfNotExists(connection, Constants.TABLE_NAME,
+                        Constants.COMMON_PASSWORD_STORE_COLUMNS);
+                if (isNGramLookupEnabled()) {
+                    dialect.createTableIfNotExists(connection, Constants.NGRAM_TABLE_NAME,
+                            Constants.COMMON_PASSWORD_NGRAM_STORE_COLUMNS);
+                }
+                dialect.createTableIfNotExists(connection, Constants.LOAD_STATE_TABLE_NAME,
+                        Constants.COMMON_PASSWORD_LOAD_STATE_COLUMNS);
                 IdentityDatabaseUtil.commitTransaction(connection);
-                insertData();
             } catch (SQLException exception) {
                 IdentityDatabaseUtil.rollbackTransaction(connection);
                 throw new WSO2Exception(
@@ -92,92 +118,265 @@ public class DBBasedCommonPasswordValidator extends AbstractPasswordValidator {
                         exception
                 );
             } finally {
-                IdentityDatabaseUtil.closeAllConnections(connection, null, prepStmtCrt);
+                IdentityDatabaseUtil.closeConnection(connection);
+            }
+
+            Path commonPasswordFilePath = Paths.get(PasswordPolicyHandlerUtils.getCommonPasswordFilePath());
+            CommonPasswordBulkLoader bulkLoader = createBulkLoader();
+            if (!tableExists || !nGramTableExists) {
+                int loadedLines = bulkLoader.load(commonPasswordFilePath);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Loaded %d lines of common passwords to the database.", loadedLines));
+                }
+            } else if (Boolean.parseBoolean(System.getProperty("enableCustomPasswordInsert")) ||
+                    bulkLoader.hasPendingLoad(commonPasswordFilePath)) {
+                // Only the changes of the file since the last load are written to the database.
+                int changedRecords = bulkLoader.sync(commonPasswordFilePath);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Synchronized %d common password records with the database.",
+                            changedRecords));
+                }
+            }
+
+            // The credentials are looked up in the database until the pre-filter is built.
+            dataReady = true;
+            notifyDataReadyWaiters();
+            if (Boolean.parseBoolean(System.getProperty("enableDBCommonPasswordPreFilter", "true"))) {
+                buildPreFilter();
+            }
+            CommonPasswordResultCache.getInstance().clearCache();
+        }
+    }
+
+    /**
+     * Synchronize the DB table with the changes of the common password file and rebuild the pre-filter. The
+     * credentials keep being validated against the current records and pre-filter while the changes are applied.
+     *
+     * @throws WSO2Exception If there is an error while reading the common password file or while applying the
+     *                       changes to the DB table.
+     */
+    @Override
+    public void reloadData() throws WSO2Exception {
+
+        synchronized (loadLock) {
+            Path commonPasswordFilePath = Paths.get(PasswordPolicyHandlerUtils.getCommonPasswordFilePath());
+            try {
+                int changedRecords = createBulkLoader().sync(commonPasswordFilePath);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Synchronized %d common password records with the database.",
+                            changedRecords));
+                }
+                if (Boolean.parseBoolean(System.getProperty("enableDBCommonPasswordPreFilter", "true"))) {
+                    buildPreFilter();
+                }
+            } finally {
+                // The chunks committed before a failure change the outcomes as well, and so do the outcomes cached
+                // while the changes were being applied.
+                CommonPasswordResultCache.getInstance().clearCache();
             }
         }
     }
 
+    private static CommonPasswordBulkLoader createBulkLoader() {
+
+        return new CommonPasswordBulkLoader(
+                Integer.getInteger("commonPasswordInsertChunkSize", DEFAULT_INSERT_CHUNK_SIZE), isNGramLookupEnabled());
+    }
+
+    @Override
+    public boolean isDataReady() {
+
+        return dataReady;
+    }
+
     /**
-     * Extract the common passwords from the txt file and append them to the DB table.
+     * The generated credentials which pass the pre-filter would each be looked up in the database, so the validator is
+     * not warmed up with them.
      *
-     * @throws WSO2Exception If there is an error while inserting data to the DB table or if
-     *                       there is an error while reading the commonpasswords txt file.
+     * @return False.
      */
-    private void insertData() throws WSO2Exception {
+    @Override
+    public boolean isCredentialWarmupSupported() {
+
+        return false;
+    }
+
+    /**
+     * Build the in-memory pre-filter from the common passwords stored in the DB table, so the credentials which
+     * cannot match any common password are accepted without querying the database.
+     */
+    private void buildPreFilter() {
+
+        int gramLength = Integer.getInteger("commonPasswordPreFilterGramLength", 4);
+        Connection connection = null;
+        PreparedStatement prepStmtCount = null;
+        PreparedStatement prepStmtSelect = null;
+        ResultSet resultSet = null;
+        try {
+            connection = CommonPasswordDBUtils.getDBConnection(false);
+            prepStmtCount = connection.prepareStatement(Constants.COUNT_COMMON_PASSWORDS);
+            resultSet = prepStmtCount.executeQuery();
+            long commonPasswordCount = resultSet.next() ? resultSet.getLong(1) : 0;
+            resultSet.close();
 
-        Connection connection = IdentityDatabaseUtil.getDBConnection(true);
-        try (PreparedStatement prepStmtIns = connection.prepareStatement(
-                Constants.INSERT_VALUES_TO_COMMON_PASSWORD_STORE);
-             BufferedReader bufferedReader = Files.newBufferedReader(Paths.get(
-                     PasswordPolicyHandlerUtils.getCommonPasswordFilePath()), StandardCharsets.UTF_8)) {
+            NGramPreFilter preFilter = new NGramPreFilter(commonPasswordCount, gramLength, 0.01);
+            prepStmtSelect = connection.prepareStatement(Constants.SELECT_ALL_COMMON_PASSWORDS);
+            prepStmtSelect.setFetchSize(PRE_FILTER_FETCH_SIZE);
+            resultSet = prepStmtSelect.executeQuery();
+            while (resultSet.next()) {
+                preFilter.add(resultSet.getString(1));
+            }
+            commonPasswordPreFilter = preFilter;
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Built the common password pre-filter from %d common passwords.",
+                        commonPasswordCount));
+            }
+        } catch (SQLException exception) {
+            commonPasswordPreFilter = null;
+            log.error("An error occurred while building the common password pre-filter. All the credentials will "
+                    + "be validated against the database.", exception);
+        } finally {
+            IdentityDatabaseUtil.closeStatement(prepStmtCount);
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmtSelect);
+        }
+    }
 
-            // Insert values and replace duplicates.
-            String password;
-            while ((password = bufferedReader.readLine()) != null) {
+    /**
+     * Checks whether the user credential contains any of the common passwords that reside in the repository.
+     *
+     * The JDBC driver only accepts strings, so the credential is copied into a string once it passes the pre-filter.
+     *
+     * @param credential The password of the user.
+     * @return True if the password does not match any record in the common password
+     * repository, false if else.
+     * @throws WSO2Exception If the common passwords are not written to the repository yet, or if an error occurs
+     *                       while querying the common password repository.
+     */
+    @Override
+    protected boolean validateSharedCommonPasswords(CharSequence credential) throws WSO2Exception {
 
-                prepStmtIns.setString(1, password);
-                prepStmtIns.addBatch();
+        if (!dataReady) {
+            throw getDataNotReadyError();
+        }
+        NGramPreFilter preFilter = commonPasswordPreFilter;
+        if (preFilter != null && !preFilter.mightBeContained(credential)) {
+            if (log.isDebugEnabled()) {
+                log.debug("The credential was accepted by the common password pre-filter.");
             }
-            prepStmtIns.executeBatch();
-            IdentityDatabaseUtil.commitTransaction(connection);
+            return true;
+        }
+        try {
+            if (isNGramLookupEnabled() && credential.length() >= Constants.NGRAM_LENGTH) {
+                return validateCredentialsByNGrams(credential.toString());
+            }
+            return validateCredentialsByLikeQuery(credential);
         } catch (SQLException exception) {
-            IdentityDatabaseUtil.rollbackTransaction(connection);
-            throw new WSO2Exception(
-                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getCode(),
-                    Constants.ErrorMessages.ERROR_ADDING_COMMON_PASSWORDS_TO_DB.getMessage(),
-                    exception
-            );
-        } catch (IOException exception) {
             throw new WSO2Exception(
-                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getCode(),
-                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getMessage(),
+                    Constants.ErrorMessages.ERROR_READING_COMMON_PASSWORDS_FROM_DB.getCode(),
+                    Constants.ErrorMessages.ERROR_READING_COMMON_PASSWORDS_FROM_DB.getMessage(),
                     exception
             );
         }
     }
 
     /**
-     * Checks whether the user credential contains any of the common passwords
-     * that reside in the repository.
+     * Checks the user credential against the common passwords using a LIKE query on the common password table.
      *
      * @param credential The password of the user.
      * @return True if the password does not match any record in the common password
      * repository, false if else.
+     * @throws SQLException If an error occurs while querying the common password table.
      */
-    @Override
-    public boolean validateCredentials(String credential) {
+    private boolean validateCredentialsByLikeQuery(CharSequence credential) throws SQLException {
 
-        PreparedStatement prepStmtCheck = null;
-        Connection connection = IdentityDatabaseUtil.getDBConnection(true);
-        ResultSet resultSet = null;
+        CommonPasswordLookupPool lookupPool = CommonPasswordLookupPool.getInstance();
+        CommonPasswordLookupPool.LookupConnection connection = null;
+        long queryStartTime = PasswordPolicyMetrics.getInstance().startTimer();
 
         try {
-            prepStmtCheck = connection.prepareStatement(
-                    Constants.SELECT_COMMON_PASSWORDS_LIKE
-            );
+            connection = lookupPool.getConnection();
+            PreparedStatement prepStmtCheck = connection.prepareStatement(Constants.SELECT_COMMON_PASSWORDS_LIKE);
             prepStmtCheck.setString(1, ("%" + credential + "%"));
 
-            resultSet = prepStmtCheck.executeQuery();
+            boolean matchExists;
+            try (ResultSet resultSet = prepStmtCheck.executeQuery()) {
+                matchExists = resultSet.next();
+            }
             if (log.isDebugEnabled()) {
-                log.debug(String.format("A match exists in the database: %b", !resultSet.next()));
+                log.debug(String.format("A match exists in the database: %b", matchExists));
             }
-
-            return !resultSet.next();
+            return !matchExists;
         } catch (SQLException exception) {
-            IdentityDatabaseUtil.rollbackTransaction(connection);
-            log.error("An error occurred while validating the password against the common passwords repository.",
-                    exception);
+            // The connection may be broken, so it is closed instead of being reused.
+            lookupPool.discardConnection(connection);
+            connection = null;
+            throw exception;
         } finally {
-            IdentityDatabaseUtil.closeAllConnections(connection, null, prepStmtCheck);
-            if (resultSet != null) {
-                try {
-                    resultSet.close();
-                } catch (SQLException exception) {
-                    log.error("An error occurred while closing the result set.", exception);
+            lookupPool.releaseConnection(connection);
+            PasswordPolicyMetrics.getInstance().recordStage(PasswordPolicyStage.DB_QUERY, queryStartTime);
+        }
+    }
+
+    /**
+     * Checks the user credential against the common passwords using the n-gram side table. The candidates sharing a
+     * set of n-grams with the credential are looked up by equality on the indexed n-gram column, and each candidate
+     * is then checked for containing the credential.
+     *
+     * @param credential The password of the user.
+     * @return True if the password does not match any record in the common password
+     * repository, false if else.
+     * @throws SQLException If an error occurs while querying the n-gram side table.
+     */
+    private boolean validateCredentialsByNGrams(String credential) throws SQLException {
+
+        Set<String> nGrams = PasswordPolicyHandlerUtils.getNGrams(credential, Constants.NGRAM_LENGTH,
+                MAX_LOOKUP_NGRAMS);
+        CommonPasswordLookupPool lookupPool = CommonPasswordLookupPool.getInstance();
+        CommonPasswordLookupPool.LookupConnection connection = null;
+        long queryStartTime = PasswordPolicyMetrics.getInstance().startTimer();
+
+        try {
+            connection = lookupPool.getConnection();
+            // There are at most MAX_LOOKUP_NGRAMS variants of the query, each of which is prepared once per connection.
+            PreparedStatement prepStmtCheck = connection.prepareStatement(String.format(
+                    Constants.SELECT_COMMON_PASSWORDS_BY_NGRAMS,
+                    StringUtils.join(Collections.nCopies(nGrams.size(), "?"), ", ")));
+            int parameterIndex = 1;
+            for (String nGram : nGrams) {
+                prepStmtCheck.setString(parameterIndex++, nGram);
+            }
+            prepStmtCheck.setInt(parameterIndex, nGrams.size());
+
+            try (ResultSet resultSet = prepStmtCheck.executeQuery()) {
+                while (resultSet.next()) {
+                    if (resultSet.getString(1).contains(credential)) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("A match exists in the n-gram store of the database.");
+                        }
+                        return false;
+                    }
                 }
             }
+            return true;
+        } catch (SQLException exception) {
+            // The connection may be broken, so it is closed instead of being reused.
+            lookupPool.discardConnection(connection);
+            connection = null;
+            throw exception;
+        } finally {
+            lookupPool.releaseConnection(connection);
+            PasswordPolicyMetrics.getInstance().recordStage(PasswordPolicyStage.DB_QUERY, queryStartTime);
         }
-        return true;
+    }
+
+    /**
+     * Checks whether the n-gram lookup mode is selected instead of the LIKE query based lookup.
+     *
+     * @return True if the n-gram lookup mode is selected, false if else.
+     */
+    private static boolean isNGramLookupEnabled() {
+
+        return "ngram".equalsIgnoreCase(System.getProperty("commonPasswordDBLookupMode"));
     }
 
     /**
@@ -187,14 +386,15 @@ public class DBBasedCommonPasswordValidator extends AbstractPasswordValidator {
      */
     public void destroyData() throws WSO2Exception {
 
+        CommonPasswordLookupPool.getInstance().closeIdleConnections();
         if (Boolean.parseBoolean(System.getProperty("enableCustomPasswordDelete"))) {
-            PreparedStatement prepStmtDes = null;
-            Connection connection = IdentityDatabaseUtil.getDBConnection(true);
+            Connection connection = null;
             try {
-                prepStmtDes = connection.prepareStatement(
-                        Constants.DROP_COMMON_PASSWORD_STORE
-                );
-                prepStmtDes.execute();
+                connection = CommonPasswordDBUtils.getDBConnection(true);
+                SQLDialect dialect = SQLDialect.fromConnection(connection);
+                dialect.dropTableIfExists(connection, Constants.TABLE_NAME);
+                dialect.dropTableIfExists(connection, Constants.NGRAM_TABLE_NAME);
+                dialect.dropTableIfExists(connection, Constants.LOAD_STATE_TABLE_NAME);
                 IdentityDatabaseUtil.commitTransaction(connection);
             } catch (SQLException exception) {
                 IdentityDatabaseUtil.rollbackTransaction(connection);
@@ -204,7 +404,7 @@ public class DBBasedCommonPasswordValidator extends AbstractPasswordValidator {
                         exception
                 );
             } finally {
-                IdentityDatabaseUtil.closeAllConnections(connection, null, prepStmtDes);
+                IdentityDatabaseUtil.closeConnection(connection);
             }
         }
     }
@@ -2,29 +2,34 @@ package com.wso2.password.policy.handler.validator.impl;
 
 import com.wso2.common.constant.Constants;
 import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.cache.CommonPasswordResultCache;
+import com.wso2.password.policy.handler.dictionary.AbstractCommonPasswordDictionary;
+import com.wso2.password.policy.handler.dictionary.impl.DawgCommonPasswordDictionary;
+import com.wso2.password.policy.handler.dictionary.impl.InMemoryCommonPasswordDictionary;
+import com.wso2.password.policy.handler.dictionary.impl.MappedCommonPasswordDictionary;
 import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
-import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
-import org.apache.commons.lang.StringUtils;
+import com.wso2.password.policy.handler.validator.AbstractCommonPasswordValidator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.Locale;
-import java.util.Vector;
 
 /**
  * A singleton class to restrict the use of common passwords based on a file.
  */
-public class FileBasedCommonPasswordValidator extends AbstractPasswordValidator {
+public class FileBasedCommonPasswordValidator extends AbstractCommonPasswordValidator {
 
     private static final Log log = LogFactory.getLog(FileBasedCommonPasswordValidator.class);
+    private static final String DAWG_DICTIONARY_TYPE = "dawg";
     private static final FileBasedCommonPasswordValidator fileBasedCommonPasswordValidator =
             new FileBasedCommonPasswordValidator();
-    private List<String> commonPasswordsList = new Vector<>();
+    // Serializes the loads, so a load which read an older version of the file cannot replace the dictionary of a
+    // load which read a newer one.
+    private final Object loadLock = new Object();
+    // Null until the common passwords have been loaded for the first time.
+    private volatile AbstractCommonPasswordDictionary commonPasswordDictionary;
 
     /**
      * Private constructor so this class cannot be instantiated by other classes.
@@ -44,7 +49,12 @@ public class FileBasedCommonPasswordValidator extends AbstractPasswordValidator
     }
 
     /**
-     * Initialize the repository/database with the common password records.
+     * Initialize the repository/database with the common password records. The common password file can either be a
+     * text file with one common password per line, or a compiled dictionary which is memory mapped.
+     * <p>
+     * Unless the background load is disabled, the common passwords are loaded in a background thread so that the
+     * component activation does not wait for large common password files, and the password updates wait for the load
+     * for a bounded time. If the first load fails, it is retried in the background with a growing delay.
      *
      * @throws WSO2Exception If there is an error while reading the common
      *                       passwords.
@@ -52,39 +62,92 @@ public class FileBasedCommonPasswordValidator extends AbstractPasswordValidator
     @Override
     public void initializeData() throws WSO2Exception {
 
-        try {
-            commonPasswordsList = Files.readAllLines(Paths.get(PasswordPolicyHandlerUtils.getCommonPasswordFilePath()),
-                    StandardCharsets.UTF_8);
-        } catch (IOException exception) {
-            throw new WSO2Exception(
-                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getCode(),
-                    Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getMessage(),
-                    exception
-            );
+        loadDataInBackground();
+    }
+
+    /**
+     * Loads the common passwords from the common password file and replaces the previously loaded ones, which keep
+     * being used for the validations until the new ones are ready.
+     *
+     * @throws WSO2Exception If there is an error while reading the common passwords.
+     */
+    @Override
+    public void reloadData() throws WSO2Exception {
+
+        loadData();
+    }
+
+    /**
+     * Loads the common passwords from the common password file. A load waits for the load in progress, such as the
+     * background load of the initialization, to complete, and then reads the file again.
+     *
+     * @throws WSO2Exception If there is an error while reading the common passwords.
+     */
+    @Override
+    protected void loadData() throws WSO2Exception {
+
+        synchronized (loadLock) {
+            AbstractCommonPasswordDictionary dictionary;
+            Path commonPasswordFilePath = Paths.get(PasswordPolicyHandlerUtils.getCommonPasswordFilePath());
+            long startTime = System.currentTimeMillis();
+            try {
+                if (MappedCommonPasswordDictionary.isCompiledDictionary(commonPasswordFilePath)) {
+                    dictionary = MappedCommonPasswordDictionary.open(commonPasswordFilePath);
+                } else if (DAWG_DICTIONARY_TYPE.equalsIgnoreCase(System.getProperty("commonPasswordDictionaryType"))) {
+                    dictionary = DawgCommonPasswordDictionary.load(commonPasswordFilePath, getLoadParallelism());
+                } else {
+                    dictionary = InMemoryCommonPasswordDictionary.load(commonPasswordFilePath, getLoadParallelism());
+                }
+            } catch (IOException exception) {
+                throw new WSO2Exception(
+                        Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getCode(),
+                        Constants.ErrorMessages.ERROR_READING_FROM_COMMON_PASSWORDS_FILE.getMessage(),
+                        exception
+                );
+            }
+
+            commonPasswordDictionary = dictionary;
+            CommonPasswordResultCache.getInstance().clearCache();
+            notifyDataReadyWaiters();
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Loaded %d unique common passwords in %d ms.", dictionary.size(),
+                        System.currentTimeMillis() - startTime));
+            }
         }
     }
 
+    private static int getLoadParallelism() {
+
+        return Integer.getInteger("commonPasswordLoadParallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public boolean isDataReady() {
+
+        return commonPasswordDictionary != null;
+    }
+
     /**
      * Checks whether the user credential contains any of the common passwords
-     * that reside in the commonPasswordsList.
+     * that reside in the commonPasswordDictionary.
      *
      * @param credential The password of the user.
-     * @return True if the password does not match any record in the commonPasswordsList
+     * @return True if the password does not match any record in the commonPasswordDictionary
      * , false if else.
+     * @throws WSO2Exception If the common passwords are not loaded yet.
      */
     @Override
-    public boolean validateCredentials(String credential) {
-
-        for (String commonPassword : commonPasswordsList) {
-            String processedCommonPassword = StringUtils.deleteWhitespace(commonPassword.toLowerCase(Locale.ROOT));
-            if (credential.contains(processedCommonPassword) || processedCommonPassword.contains(credential)) {
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format(
-                            "There is a match between the credential: %s and a common password: %s.",
-                            credential, processedCommonPassword));
-                }
-                return false;
+    protected boolean validateSharedCommonPasswords(CharSequence credential) throws WSO2Exception {
+
+        AbstractCommonPasswordDictionary dictionary = commonPasswordDictionary;
+        if (dictionary == null) {
+            throw getDataNotReadyError();
+        }
+        if (dictionary.containsCommonPassword(credential) || dictionary.isContainedInCommonPassword(credential)) {
+            if (log.isDebugEnabled()) {
+                log.debug("There is a match between the credential and a common password.");
             }
+            return false;
         }
         return true;
     }
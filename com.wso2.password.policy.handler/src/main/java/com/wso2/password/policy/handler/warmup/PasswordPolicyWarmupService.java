@@ -0,0 +1,83 @@
+package com.wso2.password.policy.handler.warmup;
+
+import com.wso2.common.exception.WSO2Exception;
+import com.wso2.password.policy.handler.util.PasswordPolicyHandlerUtils;
+import com.wso2.password.policy.handler.validator.AbstractPasswordValidator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OSGi service which initializes the data of the common password validator ahead of the first password update event,
+ * and warms up its matching code by validating generated credentials, so the first events after a deployment do not
+ * pay for the initialization and for running interpreted code. The data of the validators is otherwise initialized
+ * lazily on the first event of a tenant which enables them. The data of the DB-based validator is only initialized,
+ * since the generated credentials would be looked up in the database.
+ */
+public class PasswordPolicyWarmupService {
+
+    private static final Log log = LogFactory.getLog(PasswordPolicyWarmupService.class);
+    private static final char[] CREDENTIAL_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789!@#$".toCharArray();
+    private static final int MIN_CREDENTIAL_LENGTH = 6;
+    private static final int MAX_CREDENTIAL_LENGTH = 20;
+
+    /**
+     * Initializes the data of the common password validator, waits until it is ready and validates the given number
+     * of generated credentials with it, unless the validator does not support being warmed up with credentials.
+     *
+     * @param iterations    Number of credentials to be validated, ignored if the credentials are not validated.
+     * @param timeoutMillis Maximum time to wait for the data to be ready, in milliseconds.
+     * @return True if the validator was warmed up, false if its data was not ready within the timeout.
+     * @throws WSO2Exception If an error occurs while initializing the data or validating the credentials.
+     */
+    public boolean warmUp(int iterations, long timeoutMillis) throws WSO2Exception {
+
+        AbstractPasswordValidator validator = PasswordPolicyHandlerUtils.getCommonPasswordValidator();
+        long startTime = System.nanoTime();
+        validator.initializeDataIfRequired();
+        try {
+            if (!validator.awaitDataReady(timeoutMillis)) {
+                log.warn(String.format("The data of the %s was not ready within %d ms, hence it was not warmed up.",
+                        validator.getName(), timeoutMillis));
+                return false;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if (!validator.isCredentialWarmupSupported()) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Initialized the data of the %s in %d ms without validating credentials.",
+                        validator.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+            }
+            return true;
+        }
+        Random random = new Random(iterations);
+        int acceptedCount = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (validator.validateCredentials(generateCredential(random))) {
+                acceptedCount++;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Warmed up the %s with %d credentials, %d of which were accepted, in %d ms.",
+                    validator.getName(), iterations, acceptedCount,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+        }
+        return true;
+    }
+
+    // Generates a credential in its normalized form.
+    private static String generateCredential(Random random) {
+
+        char[] credential = new char[MIN_CREDENTIAL_LENGTH
+                + random.nextInt(MAX_CREDENTIAL_LENGTH - MIN_CREDENTIAL_LENGTH + 1)];
+        for (int i = 0; i < credential.length; i++) {
+            credential[i] = CREDENTIAL_CHARACTERS[random.nextInt(CREDENTIAL_CHARACTERS.length)];
+        }
+        return new String(credential);
+    }
+}
@@ -0,0 +1,278 @@
+package com.wso2.password.policy.handler.breached;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Tests the BreachedPasswordHashStore compiled by the BreachedPasswordHashStoreCompiler, with prefix lengths which
+ * strip whole bytes of the hashes and prefix lengths which split a byte between the partition and the stored record.
+ */
+public class BreachedPasswordHashStoreTest {
+
+    private static final String[] KNOWN_PASSWORDS = {"123456", "password", "Qwerty123!", "p\u00e4ssw\u00f6rd",
+            "key-\uD83D\uDD11"};
+    private static final int RANDOM_HASH_COUNT = 20000;
+    private static final int MISS_COUNT = 20000;
+    private static final int EMPTY_PARTITION_PROBES = 1000;
+    // The hashes starting with 0x00 or 0xFF are left out of the corpus, so the first and the last partitions are
+    // empty whatever the prefix length is.
+    private static final int MIN_FIRST_BYTE = 0x01;
+    private static final int MAX_FIRST_BYTE = 0xFE;
+    private static final Comparator<byte[]> UNSIGNED_ORDER = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] left, byte[] right) {
+
+            for (int i = 0; i < BreachedPasswordHashStore.HASH_LENGTH; i++) {
+                int comparison = Integer.compare(left[i] & 0xFF, right[i] & 0xFF);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        }
+    };
+
+    private Path directory;
+    private Path corpus;
+    private TreeSet<byte[]> hashes;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+
+        directory = Files.createTempDirectory("breached-password-hash-store-test");
+        Random random = new Random(42);
+        hashes = new TreeSet<>(UNSIGNED_ORDER);
+        while (hashes.size() < RANDOM_HASH_COUNT) {
+            byte[] hash = new byte[BreachedPasswordHashStore.HASH_LENGTH];
+            random.nextBytes(hash);
+            hash[0] = (byte) (MIN_FIRST_BYTE + random.nextInt(MAX_FIRST_BYTE - MIN_FIRST_BYTE + 1));
+            hashes.add(hash);
+        }
+        for (String password : KNOWN_PASSWORDS) {
+            hashes.add(sha1(password));
+        }
+
+        // The corpus lists the hashes in random order, some of them twice and some of them with a count, like the
+        // downloadable hash ranges.
+        List<String> lines = new ArrayList<>();
+        for (byte[] hash : hashes) {
+            String line = toHex(hash);
+            lines.add(random.nextBoolean() ? line.toUpperCase() : line + ":" + random.nextInt(1000));
+            if (random.nextInt(10) == 0) {
+                lines.add(line);
+            }
+        }
+        Collections.shuffle(lines, random);
+        corpus = directory.resolve("breached-passwords.txt");
+        try (Writer writer = Files.newBufferedWriter(corpus, StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @DataProvider(name = "prefixBits")
+    public Object[][] getPrefixBits() {
+
+        return new Object[][]{{8}, {16}, {20}, {24}};
+    }
+
+    @Test(dataProvider = "prefixBits")
+    public void testCompiledHashesAreFound(int prefixBits) throws IOException {
+
+        BreachedPasswordHashStore store = compile(prefixBits);
+
+        Assert.assertEquals(store.getPrefixBits(), prefixBits);
+        Assert.assertEquals(store.getHashCount(), hashes.size());
+        for (byte[] hash : hashes) {
+            Assert.assertTrue(store.containsHash(hash), "Missing hash " + toHex(hash));
+        }
+        for (String password : KNOWN_PASSWORDS) {
+            Assert.assertTrue(store.contains(password), "Missing password " + password);
+        }
+    }
+
+    @Test(dataProvider = "prefixBits")
+    public void testOtherHashesAreNotFound(int prefixBits) throws IOException {
+
+        BreachedPasswordHashStore store = compile(prefixBits);
+        Random random = new Random(prefixBits);
+
+        for (int i = 0; i < MISS_COUNT; i++) {
+            byte[] hash = new byte[BreachedPasswordHashStore.HASH_LENGTH];
+            random.nextBytes(hash);
+            Assert.assertEquals(store.containsHash(hash), hashes.contains(hash), toHex(hash));
+        }
+        // The hashes next to the stored ones are the probes most likely to be confused with them.
+        for (byte[] hash : hashes) {
+            for (int delta : new int[]{-1, 1}) {
+                byte[] neighbour = add(hash, delta);
+                Assert.assertEquals(store.containsHash(neighbour), hashes.contains(neighbour), toHex(neighbour));
+            }
+        }
+        Assert.assertFalse(store.contains("not a breached password"));
+    }
+
+    @Test(dataProvider = "prefixBits")
+    public void testPartitionBoundaries(int prefixBits) throws IOException {
+
+        BreachedPasswordHashStore store = compile(prefixBits);
+        // The first and the last hash of each partition, in the order of the partitions.
+        Map<Integer, byte[][]> partitionEnds = new LinkedHashMap<>();
+        for (byte[] hash : hashes) {
+            int partition = BreachedPasswordHashStore.getPartition(hash, prefixBits);
+            byte[][] ends = partitionEnds.get(partition);
+            if (ends == null) {
+                partitionEnds.put(partition, new byte[][]{hash, hash});
+            } else {
+                ends[1] = hash;
+            }
+        }
+        for (Map.Entry<Integer, byte[][]> entry : partitionEnds.entrySet()) {
+            byte[] first = entry.getValue()[0];
+            byte[] last = entry.getValue()[1];
+            Assert.assertTrue(store.containsHash(first), "First hash of partition " + entry.getKey());
+            Assert.assertTrue(store.containsHash(last), "Last hash of partition " + entry.getKey());
+            Assert.assertEquals(store.containsHash(add(first, -1)), hashes.contains(add(first, -1)),
+                    "Hash before partition " + entry.getKey());
+            Assert.assertEquals(store.containsHash(add(last, 1)), hashes.contains(add(last, 1)),
+                    "Hash after partition " + entry.getKey());
+        }
+
+        int partitionCount = 1 << prefixBits;
+        Assert.assertFalse(partitionEnds.containsKey(0));
+        Assert.assertFalse(partitionEnds.containsKey(partitionCount - 1));
+        Random random = new Random(prefixBits);
+        for (int i = 0; i < EMPTY_PARTITION_PROBES; i++) {
+            int partition = i == 0 ? 0 : i == 1 ? partitionCount - 1 : random.nextInt(partitionCount);
+            if (partitionEnds.containsKey(partition)) {
+                continue;
+            }
+            byte[] hash = getHashOfPartition(partition, prefixBits, random);
+            Assert.assertFalse(store.containsHash(hash), "Hash " + toHex(hash) + " of empty partition " + partition);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testPartitionIndexNotStartingAtZeroIsRejected() throws IOException {
+
+        Path store = compileFile(BreachedPasswordHashStore.DEFAULT_PREFIX_BITS);
+        writePartitionOffset(store, 0, 1);
+        BreachedPasswordHashStore.open(store);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testDecreasingPartitionIndexIsRejected() throws IOException {
+
+        Path store = compileFile(8);
+        // The partitions from 0x01 to 0xFE are not empty, so the offset of partition 0x81 is positive.
+        writePartitionOffset(store, 0x81, 0);
+        BreachedPasswordHashStore.open(store);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testPartitionIndexNotEndingAtHashCountIsRejected() throws IOException {
+
+        Path store = compileFile(16);
+        writePartitionOffset(store, 1 << 16, hashes.size() - 1);
+        BreachedPasswordHashStore.open(store);
+    }
+
+    private BreachedPasswordHashStore compile(int prefixBits) throws IOException {
+
+        return BreachedPasswordHashStore.open(compileFile(prefixBits));
+    }
+
+    private Path compileFile(int prefixBits) throws IOException {
+
+        Path store = Files.createTempFile(directory, "breached-passwords-" + prefixBits + "-", ".bph");
+        long hashCount = BreachedPasswordHashStoreCompiler.compile(corpus, store, prefixBits, false);
+        Assert.assertEquals(hashCount, hashes.size());
+        return store;
+    }
+
+    private static void writePartitionOffset(Path store, int partition, long offset) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(store, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+            channel.write(buffer, BreachedPasswordHashStore.HEADER_SIZE + (long) partition * Long.BYTES);
+        }
+    }
+
+    // Generates a random hash whose leading bits are the given partition.
+    private static byte[] getHashOfPartition(int partition, int prefixBits, Random random) {
+
+        byte[] hash = new byte[BreachedPasswordHashStore.HASH_LENGTH];
+        random.nextBytes(hash);
+        int leadingBits = (partition << (32 - prefixBits)) | (random.nextInt() >>> prefixBits);
+        ByteBuffer.wrap(hash).putInt(0, leadingBits);
+        return hash;
+    }
+
+    // Adds a small value to a hash as a 160-bit unsigned number.
+    private static byte[] add(byte[] hash, int delta) {
+
+        byte[] result = Arrays.copyOf(hash, hash.length);
+        int carry = delta;
+        for (int i = result.length - 1; i >= 0 && carry != 0; i--) {
+            int sum = (result[i] & 0xFF) + carry;
+            result[i] = (byte) sum;
+            carry = sum >> 8;
+        }
+        return result;
+    }
+
+    private static byte[] sha1(String password) {
+
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte value : hash) {
+            hex.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package com.wso2.password.policy.handler.validator.impl;
+
+import com.wso2.password.policy.handler.util.CredentialBuffer;
+import com.wso2.password.policy.handler.validator.PasswordValidationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.claim.ClaimManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the ClaimBasedPasswordValidator, which is shared by all the request threads and must only see the claims of
+ * the event it is validating.
+ */
+public class ClaimBasedPasswordValidatorTest {
+
+    private static final String GIVEN_NAME_CLAIM = "http://wso2.org/claims/givenname";
+    private static final String EMAIL_CLAIM = "http://wso2.org/claims/emailaddress";
+    private static final String MOBILE_CLAIM = "http://wso2.org/claims/mobile";
+    private static final Set<String> RESTRICTED_CLAIMS =
+            new LinkedHashSet<>(Arrays.asList(GIVEN_NAME_CLAIM, EMAIL_CLAIM));
+    private static final int USER_COUNT = 64;
+    private static final int THREAD_COUNT = 16;
+    private static final int VALIDATIONS_PER_THREAD = 5000;
+
+    @Test
+    public void testCredentialContainingClaimIsRejected() throws Exception {
+
+        Map<String, String> userClaims = getUserClaims(1);
+        PasswordValidationContext context = new PasswordValidationContext("carbon.super", "user1", null,
+                userClaims, RESTRICTED_CLAIMS);
+
+        Assert.assertFalse(validate("xx" + userClaims.get(GIVEN_NAME_CLAIM) + "xx", context));
+        Assert.assertFalse(validate("My " + userClaims.get(EMAIL_CLAIM).toUpperCase(), context));
+        Assert.assertTrue(validate("unrelated-password", context));
+    }
+
+    @Test
+    public void testUnrestrictedClaimIsIgnored() throws Exception {
+
+        Map<String, String> userClaims = getUserClaims(2);
+        PasswordValidationContext context = new PasswordValidationContext("carbon.super", "user2", null,
+                userClaims, RESTRICTED_CLAIMS);
+
+        Assert.assertTrue(validate("pw" + userClaims.get(MOBILE_CLAIM), context));
+    }
+
+    @Test
+    public void testClaimsAreRetrievedFromUserStore() throws Exception {
+
+        Map<String, String> userClaims = getUserClaims(3);
+        PasswordValidationContext context = new PasswordValidationContext("carbon.super", "user3",
+                stubUserStoreManager(Collections.singletonMap("user3", userClaims)), null, RESTRICTED_CLAIMS);
+
+        Assert.assertFalse(validate("pw" + userClaims.get(GIVEN_NAME_CLAIM), context));
+        Assert.assertTrue(validate("pw" + getUserClaims(4).get(GIVEN_NAME_CLAIM), context));
+    }
+
+    /**
+     * Validates the credentials of many users concurrently, each either containing a claim of the user itself, which
+     * has to be rejected, or a claim of another user, which has to be accepted. Half of the events carry the claims
+     * of the user and the other half retrieve them from a user store shared by all the users, so any state leaking
+     * from one event to another changes the outcome of the validation.
+     */
+    @Test
+    public void testConcurrentValidationsHaveNoCrossTalk() throws Exception {
+
+        Map<String, Map<String, String>> claimsByUser = new HashMap<>();
+        for (int user = 0; user < USER_COUNT; user++) {
+            claimsByUser.put("user" + user, getUserClaims(user));
+        }
+        UserStoreManager userStoreManager = stubUserStoreManager(claimsByUser);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                Random random = new Random(thread);
+                results.add(executorService.submit((Callable<List<String>>) () -> {
+                    startSignal.await();
+                    List<String> failures = new ArrayList<>();
+                    for (int i = 0; i < VALIDATIONS_PER_THREAD; i++) {
+                        int user = random.nextInt(USER_COUNT);
+                        int otherUser = (user + 1 + random.nextInt(USER_COUNT - 1)) % USER_COUNT;
+                        boolean ownClaim = random.nextBoolean();
+                        String claimUri = random.nextBoolean() ? GIVEN_NAME_CLAIM : EMAIL_CLAIM;
+                        String credential = "Pw-" + claimsByUser.get("user" + (ownClaim ? user : otherUser))
+                                .get(claimUri) + "!";
+
+                        boolean fromEvent = random.nextBoolean();
+                        PasswordValidationContext context = new PasswordValidationContext("carbon.super",
+                                "user" + user, fromEvent ? null : userStoreManager,
+                                fromEvent ? claimsByUser.get("user" + user) : null, RESTRICTED_CLAIMS);
+                        if (validate(credential, context) == ownClaim) {
+                            failures.add(String.format("user%d validated the claim of user%d as %s", user,
+                                    ownClaim ? user : otherUser, ownClaim ? "accepted" : "rejected"));
+                        }
+                    }
+                    return failures;
+                }));
+            }
+            startSignal.countDown();
+
+            List<String> failures = new ArrayList<>();
+            for (Future<List<String>> result : results) {
+                failures.addAll(result.get(60, TimeUnit.SECONDS));
+            }
+            Assert.assertTrue(failures.isEmpty(), failures.size() + " cross-talk failures, e.g. " + failures);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static boolean validate(String credential, PasswordValidationContext context) throws Exception {
+
+        try (CredentialBuffer normalizedCredential = CredentialBuffer.normalize(credential)) {
+            return ClaimBasedPasswordValidator.getInstance().validateCredentials(normalizedCredential, context);
+        }
+    }
+
+    // The claim values of the users have the same length, so none of them contains the value of another user.
+    private static Map<String, String> getUserClaims(int user) {
+
+        Map<String, String> userClaims = new HashMap<>();
+        userClaims.put(GIVEN_NAME_CLAIM, String.format("Given%04d", user));
+        userClaims.put(EMAIL_CLAIM, String.format("mail%04d@example.com", user));
+        userClaims.put(MOBILE_CLAIM, String.format("0771%06d", user));
+        return userClaims;
+    }
+
+    private static UserStoreManager stubUserStoreManager(Map<String, Map<String, String>> claimsByUser) {
+
+        ClaimManager claimManager = (ClaimManager) Proxy.newProxyInstance(ClaimManager.class.getClassLoader(),
+                new Class<?>[]{ClaimManager.class}, (proxy, method, args) -> {
+                    if ("getAllClaimUris".equals(method.getName())) {
+                        return new String[]{GIVEN_NAME_CLAIM, EMAIL_CLAIM, MOBILE_CLAIM};
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return (UserStoreManager) Proxy.newProxyInstance(UserStoreManager.class.getClassLoader(),
+                new Class<?>[]{UserStoreManager.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getClaimManager":
+                            return claimManager;
+                        case "getUserClaimValues":
+                            Map<String, String> userClaims = claimsByUser.get((String) args[0]);
+                            Map<String, String> claimValues = new HashMap<>();
+                            for (String claimUri : (String[]) args[1]) {
+                                claimValues.put(claimUri, userClaims.get(claimUri));
+                            }
+                            return claimValues;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}